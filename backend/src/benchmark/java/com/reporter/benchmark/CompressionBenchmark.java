@@ -0,0 +1,157 @@
+package com.reporter.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reporter.ReporterApplication;
+import com.reporter.config.ContentEncoding;
+import com.reporter.dto.ApiResponse;
+import com.reporter.model.FileData;
+import com.reporter.service.ArrowStreamService;
+import com.reporter.service.FileParsingService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compresses the JSON and Arrow payloads of representative report files with every
+ * available encoding and a range of levels, and prints CPU time against bytes
+ * saved. Pass report files as arguments; without arguments a synthetic sales
+ * extract is generated. Run with {@code gradle compressionBenchmark}.
+ */
+public class CompressionBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final Map<ContentEncoding, int[]> LEVELS = Map.of(
+            ContentEncoding.GZIP, new int[]{1, 4, 6, 9},
+            ContentEncoding.ZSTD, new int[]{1, 3, 6, 12}
+    );
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            files.add(Paths.get(arg).toAbsolutePath());
+        }
+        if (files.isEmpty()) {
+            files.add(generateSalesExtract(200_000));
+        }
+
+        Path workDir = Files.createTempDirectory("reporter-benchmark-config");
+        workDir.toFile().deleteOnExit();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ReporterApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=benchmark",
+                        "--app.nas.base-path=/",
+                        "--app.storage.config-path=" + workDir.resolve("reports.yaml"),
+                        "--app.storage.log-path=" + workDir.resolve("reports.log"),
+                        "--app.warmup.enabled=false",
+                        "--app.warmup.access-stats-path=" + workDir.resolve("access-stats.json"),
+                        "--app.cache.row-index-dir=" + workDir.resolve("row-index"),
+                        "--logging.level.com.reporter=WARN");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        FileParsingService parser = context.getBean(FileParsingService.class);
+        ArrowStreamService arrowStreamService = context.getBean(ArrowStreamService.class);
+
+        System.out.printf("%-28s %-7s %-5s %5s %12s %12s %7s %9s %9s%n",
+                "file", "payload", "enc", "level", "input", "output", "ratio", "cpu ms", "MB/s");
+
+        for (Path file : files) {
+            FileData fileData = parser.parseFile(file.getParent().toString(), file.getFileName().toString());
+
+            Map<String, byte[]> payloads = new LinkedHashMap<>();
+            payloads.put("json", objectMapper.writeValueAsBytes(ApiResponse.success(fileData)));
+            ByteArrayOutputStream arrow = new ByteArrayOutputStream();
+            arrowStreamService.writeFileData(fileData, arrow);
+            payloads.put("arrow", arrow.toByteArray());
+
+            for (Map.Entry<String, byte[]> payload : payloads.entrySet()) {
+                for (ContentEncoding encoding : ContentEncoding.values()) {
+                    if (!encoding.isAvailable()) {
+                        System.out.printf("%-28s %-7s %-5s unavailable on this platform%n",
+                                file.getFileName(), payload.getKey(), encoding.getToken());
+                        continue;
+                    }
+                    for (int level : LEVELS.get(encoding)) {
+                        report(file, payload.getKey(), payload.getValue(), encoding, level);
+                    }
+                }
+            }
+        }
+
+        context.close();
+    }
+
+    private static void report(Path file, String payloadName, byte[] payload, ContentEncoding encoding, int level)
+            throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            compress(payload, encoding, level);
+        }
+
+        long cpuNanos = 0;
+        int outputSize = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = THREADS.getCurrentThreadCpuTime();
+            outputSize = compress(payload, encoding, level);
+            cpuNanos += THREADS.getCurrentThreadCpuTime() - start;
+        }
+
+        double cpuMillis = cpuNanos / 1_000_000.0 / MEASURED_ROUNDS;
+        double throughput = (payload.length / 1_048_576.0) / (cpuMillis / 1000.0);
+        System.out.printf("%-28s %-7s %-5s %5d %12d %12d %6.1fx %9.1f %9.1f%n",
+                file.getFileName(), payloadName, encoding.getToken(), level,
+                payload.length, outputSize, (double) payload.length / outputSize, cpuMillis, throughput);
+    }
+
+    private static int compress(byte[] payload, ContentEncoding encoding, int level) throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream(payload.length / 4);
+        try (OutputStream encoder = encoding.wrap(sink, level)) {
+            encoder.write(payload);
+        }
+        return sink.size();
+    }
+
+    private static Path generateSalesExtract(int rows) throws IOException {
+        String[] regions = {"North", "South", "East", "West", "Central"};
+        String[] statuses = {"Open", "Shipped", "Invoiced", "Cancelled"};
+        String[] reps = {"John Doe", "Jane Smith", "Bob Johnson", "Alice Brown", "Carol White", "Dan Green"};
+        Random random = new Random(42);
+
+        Path file = Files.createTempDirectory("reporter-benchmark").resolve("sales_benchmark.csv");
+        // deleteOnExit runs in reverse registration order, so the directory goes last
+        file.getParent().toFile().deleteOnExit();
+        file.toFile().deleteOnExit();
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            writer.write("OrderId,Product,Region,Status,Sales Rep,Units Sold,Revenue,Shipped\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(String.format(Locale.ROOT, "%d,Widget %c%d,%s,%s,%s,%d,%.2f,%b%n",
+                        100_000 + i,
+                        (char) ('A' + random.nextInt(26)), random.nextInt(100),
+                        regions[random.nextInt(regions.length)],
+                        statuses[random.nextInt(statuses.length)],
+                        reps[random.nextInt(reps.length)],
+                        random.nextInt(500),
+                        random.nextDouble() * 10_000,
+                        random.nextBoolean()));
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,225 @@
+package com.reporter.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reporter.ReporterApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Generates a report tree, starts the application against it with
+ * {@link SlowNasFileSystemProvider} in front of {@code app.nas.base-path}, then
+ * drives a weighted mix of HTTP scenarios from concurrent clients and prints
+ * p50/p99/max latency and throughput per endpoint. Run with {@code gradle loadTest};
+ * the scenario and NAS latency are tuned with the {@code loadtest.*} system properties
+ * listed in the README.
+ */
+public class LoadTestRunner {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final String baseUrl;
+
+    private LoadTestRunner(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int reports = Integer.getInteger("loadtest.reports", 10);
+        int rowsPerFile = Integer.getInteger("loadtest.rows-per-file", 20_000);
+        int clients = Integer.getInteger("loadtest.clients", 16);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+
+        if (!(FileSystems.getDefault().provider() instanceof SlowNasFileSystemProvider)) {
+            System.out.println("SlowNasFileSystemProvider is not installed; NAS latency will not be simulated");
+        }
+
+        Path root = Files.createTempDirectory("reporter-loadtest").toRealPath();
+        System.out.printf("Generating %d reports with %d rows per extract in %s%n", reports, rowsPerFile, root);
+        List<String> reportPaths = new ReportTreeGenerator(rowsPerFile).generate(root, reports);
+        // Latency applies from here on, so data generation runs at local speed
+        System.setProperty("loadtest.nas.root", root.toString());
+
+        Path workDir = Files.createTempDirectory("reporter-loadtest-config");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ReporterApplication.class)
+                .run("--server.port=0",
+                        "--app.nas.base-path=" + root,
+                        "--app.storage.config-path=" + workDir.resolve("reports.yaml"),
+                        "--app.storage.log-path=" + workDir.resolve("reports.log"),
+                        "--app.warmup.enabled=false",
+                        "--app.warmup.access-stats-path=" + workDir.resolve("access-stats.json"),
+                        "--app.cache.row-index-dir=" + workDir.resolve("row-index"),
+                        "--logging.level.com.reporter=WARN");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        try {
+            LoadTestRunner runner = new LoadTestRunner("http://localhost:" + port);
+            List<String> reportIds = runner.createReports(reportPaths);
+            runner.run(reportIds, clients, Duration.ofSeconds(durationSeconds));
+            runner.print(durationSeconds);
+            printGarbageCollection(context.getBean(MeterRegistry.class));
+        } finally {
+            context.close();
+        }
+    }
+
+    private List<String> createReports(List<String> reportPaths) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (String path : reportPaths) {
+            String body = MAPPER.writeValueAsString(Map.of("name", path.substring(path.lastIndexOf('/') + 1), "path", path));
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/reports"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201 && response.statusCode() != 200) {
+                throw new IllegalStateException("Failed to create report " + path + ": " + response.body());
+            }
+            ids.add(MAPPER.readTree(response.body()).path("data").path("id").asText());
+        }
+        return ids;
+    }
+
+    private void run(List<String> reportIds, int clients, Duration duration) throws InterruptedException {
+        String[] files = {"sales_extract.csv", "sales_extract_previous.csv", "inventory.txt", "summary.xlsx", "daily_01.csv"};
+        List<Scenario> scenarios = List.of(
+                new Scenario("GET /api/reports", 10, id -> get("/api/reports")),
+                new Scenario("GET /api/folders", 15, id -> get("/api/folders?path=" + encode("/reports/" + folderOf(id, reportIds)))),
+                new Scenario("GET /api/reports/{id}/files", 25, id -> get("/api/reports/" + id + "/files")),
+                new Scenario("GET /api/files/{id}/{file}", 45, id -> get("/api/files/" + id + "/"
+                        + encode(files[ThreadLocalRandom.current().nextInt(files.length)]) + "?limit=100")),
+                new Scenario("POST /api/reports/{id}/refresh", 5, id -> post("/api/reports/" + id + "/refresh"))
+        );
+        int totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+
+        System.out.printf("Running %d clients for %ds against %s%n", clients, duration.toSeconds(), baseUrl);
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String reportId = reportIds.get(random.nextInt(reportIds.size()));
+                    Scenario scenario = pick(scenarios, random.nextInt(totalWeight));
+                    EndpointStats endpoint = stats.computeIfAbsent(scenario.name(), name -> new EndpointStats());
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<?> response = client.send(scenario.request().apply(reportId),
+                                HttpResponse.BodyHandlers.discarding());
+                        endpoint.record(System.nanoTime() - start, response.statusCode() < 400);
+                    } catch (Exception e) {
+                        endpoint.record(System.nanoTime() - start, false);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    private void print(int durationSeconds) {
+        System.out.printf("%-34s %8s %7s %9s %9s %9s %8s%n", "endpoint", "requests", "errors", "p50 ms", "p99 ms", "max ms", "req/s");
+        new TreeMap<>(stats).forEach((name, endpoint) -> {
+            long[] latencies = endpoint.sorted();
+            System.out.printf(Locale.ROOT, "%-34s %8d %7d %9.1f %9.1f %9.1f %8.1f%n",
+                    name, latencies.length, endpoint.errors.get(),
+                    percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1_000_000.0,
+                    (double) latencies.length / durationSeconds);
+        });
+    }
+
+    // Clients share the server's JVM, so these pauses include their garbage too; compare runs, not absolutes
+    private static void printGarbageCollection(MeterRegistry registry) {
+        System.out.printf("%n%-34s %8s %9s %9s%n", "gc pause", "count", "total ms", "max ms");
+        registry.find("jvm.gc.pause").timers().forEach(timer -> System.out.printf(Locale.ROOT, "%-34s %8d %9.1f %9.1f%n",
+                timer.getId().getTag("action") + " (" + timer.getId().getTag("cause") + ")",
+                timer.count(), timer.totalTime(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS)));
+    }
+
+    private static Scenario pick(List<Scenario> scenarios, int roll) {
+        for (Scenario scenario : scenarios) {
+            roll -= scenario.weight();
+            if (roll < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    private static String folderOf(String reportId, List<String> reportIds) {
+        return String.format(Locale.ROOT, "department_%02d/archive", reportIds.indexOf(reportId));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+
+    private HttpRequest post(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private record Scenario(String name, int weight, Function<String, HttpRequest> request) {
+    }
+
+    private static final class EndpointStats {
+        private final AtomicLong errors = new AtomicLong();
+        private long[] latencies = new long[1024];
+        private int count;
+
+        synchronized void record(long nanos, boolean success) {
+            if (!success) {
+                errors.incrementAndGet();
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
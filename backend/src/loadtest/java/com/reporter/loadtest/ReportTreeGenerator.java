@@ -0,0 +1,117 @@
+package com.reporter.loadtest;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes a NAS-like tree of report folders: each report has a few year/quarter
+ * subfolders holding CSV, tab-delimited TXT and XLSX extracts, so folder browsing,
+ * report scanning and parsing all see realistic fan-out and file sizes.
+ */
+public class ReportTreeGenerator {
+
+    private static final String[] REGIONS = {"North", "South", "East", "West", "Central"};
+    private static final String[] STATUSES = {"Open", "Shipped", "Invoiced", "Cancelled"};
+    private static final String[] REPS = {"John Doe", "Jane Smith", "Bob Johnson", "Alice Brown", "Carol White"};
+    private static final String HEADER = "OrderId,Product,Region,Status,Sales Rep,Units Sold,Revenue,Order Date";
+
+    private final Random random = new Random(42);
+    private final int rowsPerFile;
+
+    public ReportTreeGenerator(int rowsPerFile) {
+        this.rowsPerFile = rowsPerFile;
+    }
+
+    /**
+     * Generates {@code reports} report folders below {@code root} and returns their
+     * paths relative to it, each starting with '/' as the API expects.
+     */
+    public List<String> generate(Path root, int reports) throws IOException {
+        List<String> reportPaths = new ArrayList<>();
+        for (int r = 0; r < reports; r++) {
+            String name = String.format(Locale.ROOT, "department_%02d", r);
+            Path reportDir = root.resolve("reports").resolve(name);
+            for (int year = 2023; year <= 2024; year++) {
+                for (int quarter = 1; quarter <= 4; quarter++) {
+                    Files.createDirectories(reportDir.resolve("archive").resolve(year + "_Q" + quarter));
+                }
+            }
+            writeCsv(reportDir.resolve("sales_extract.csv"), rowsPerFile);
+            writeCsv(reportDir.resolve("sales_extract_previous.csv"), rowsPerFile);
+            writeTxt(reportDir.resolve("inventory.txt"), rowsPerFile / 2);
+            writeXlsx(reportDir.resolve("summary.xlsx"), Math.max(100, rowsPerFile / 10));
+            for (int i = 0; i < 20; i++) {
+                writeCsv(reportDir.resolve(String.format(Locale.ROOT, "daily_%02d.csv", i + 1)), 200);
+            }
+            reportPaths.add("/reports/" + name);
+        }
+        return reportPaths;
+    }
+
+    private void writeCsv(Path file, int rows) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            writer.write(HEADER + "\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(String.join(",", row(i)) + "\n");
+            }
+        }
+    }
+
+    private void writeTxt(Path file, int rows) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            writer.write(HEADER.replace(',', '\t') + "\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(String.join("\t", row(i)) + "\n");
+            }
+        }
+    }
+
+    private void writeXlsx(Path file, int rows) throws IOException {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+             OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Summary");
+            String[] headers = HEADER.split(",");
+            Row headerRow = sheet.createRow(0);
+            for (int c = 0; c < headers.length; c++) {
+                headerRow.createCell(c).setCellValue(headers[c]);
+            }
+            for (int i = 0; i < rows; i++) {
+                String[] values = row(i);
+                Row row = sheet.createRow(i + 1);
+                for (int c = 0; c < values.length; c++) {
+                    if (c == 0 || c == 5 || c == 6) {
+                        row.createCell(c).setCellValue(Double.parseDouble(values[c]));
+                    } else {
+                        row.createCell(c).setCellValue(values[c]);
+                    }
+                }
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    private String[] row(int index) {
+        return new String[]{
+                String.valueOf(100_000 + index),
+                "Widget " + (char) ('A' + random.nextInt(26)) + random.nextInt(100),
+                REGIONS[random.nextInt(REGIONS.length)],
+                STATUSES[random.nextInt(STATUSES.length)],
+                REPS[random.nextInt(REPS.length)],
+                String.valueOf(random.nextInt(500)),
+                String.format(Locale.ROOT, "%.2f", random.nextDouble() * 10_000),
+                String.format(Locale.ROOT, "2024-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28))
+        };
+    }
+}
@@ -0,0 +1,288 @@
+package com.reporter.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces the JVM's default file system provider and adds NAS-like latency to
+ * every operation on paths below {@code loadtest.nas.root}: a fixed delay per
+ * metadata call and per open, plus read throughput capped at
+ * {@code loadtest.nas.read-mb-per-second}. All other paths, including the JDK and
+ * the classpath, are served at local speed.
+ *
+ * <p>Installed with {@code -Djava.nio.file.spi.DefaultFileSystemProvider=com.reporter.loadtest.SlowNasFileSystemProvider};
+ * the JDK passes the built-in provider to the constructor. Settings are read from
+ * system properties on every call, so the root can be set after test data is generated.
+ */
+public final class SlowNasFileSystemProvider extends FileSystemProvider {
+
+    private final FileSystemProvider delegate;
+    private final SlowNasFileSystem fileSystem;
+    private final Latency latency = new Latency();
+
+    public SlowNasFileSystemProvider(FileSystemProvider delegate) {
+        this.delegate = delegate;
+        this.fileSystem = new SlowNasFileSystem(this, delegate.getFileSystem(URI.create("file:///")));
+    }
+
+    Latency latency() {
+        return latency;
+    }
+
+    private static Path unwrap(Path path) {
+        return path instanceof SlowNasPath slowPath ? slowPath.delegate() : path;
+    }
+
+    @Override
+    public String getScheme() {
+        return delegate.getScheme();
+    }
+
+    @Override
+    public FileSystem newFileSystem(URI uri, Map<String, ?> env) throws IOException {
+        return delegate.newFileSystem(uri, env);
+    }
+
+    @Override
+    public FileSystem newFileSystem(Path path, Map<String, ?> env) throws IOException {
+        return delegate.newFileSystem(unwrap(path), env);
+    }
+
+    @Override
+    public FileSystem getFileSystem(URI uri) {
+        return fileSystem;
+    }
+
+    @Override
+    public Path getPath(URI uri) {
+        return fileSystem.wrap(delegate.getPath(uri));
+    }
+
+    @Override
+    public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options,
+                                              FileAttribute<?>... attrs) throws IOException {
+        Path target = unwrap(path);
+        latency.open(target);
+        return latency.applies(target)
+                ? new ThrottledChannel(delegate.newByteChannel(target, options, attrs))
+                : delegate.newByteChannel(target, options, attrs);
+    }
+
+    @Override
+    public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options,
+                                      FileAttribute<?>... attrs) throws IOException {
+        Path target = unwrap(path);
+        latency.open(target);
+        // FileChannel cannot be wrapped portably, so channels pay only the open latency
+        return delegate.newFileChannel(target, options, attrs);
+    }
+
+    @Override
+    public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+        Path target = unwrap(dir);
+        latency.metadata(target);
+        DirectoryStream<Path> entries = delegate.newDirectoryStream(target, entry -> filter.accept(fileSystem.wrap(entry)));
+        return new DirectoryStream<>() {
+            @Override
+            public Iterator<Path> iterator() {
+                Iterator<Path> iterator = entries.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Path next() {
+                        return fileSystem.wrap(iterator.next());
+                    }
+                };
+            }
+
+            @Override
+            public void close() throws IOException {
+                entries.close();
+            }
+        };
+    }
+
+    @Override
+    public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException {
+        latency.metadata(unwrap(dir));
+        delegate.createDirectory(unwrap(dir), attrs);
+    }
+
+    @Override
+    public void delete(Path path) throws IOException {
+        latency.metadata(unwrap(path));
+        delegate.delete(unwrap(path));
+    }
+
+    @Override
+    public void copy(Path source, Path target, CopyOption... options) throws IOException {
+        delegate.copy(unwrap(source), unwrap(target), options);
+    }
+
+    @Override
+    public void move(Path source, Path target, CopyOption... options) throws IOException {
+        delegate.move(unwrap(source), unwrap(target), options);
+    }
+
+    @Override
+    public boolean isSameFile(Path path, Path path2) throws IOException {
+        return delegate.isSameFile(unwrap(path), unwrap(path2));
+    }
+
+    @Override
+    public boolean isHidden(Path path) throws IOException {
+        return delegate.isHidden(unwrap(path));
+    }
+
+    @Override
+    public FileStore getFileStore(Path path) throws IOException {
+        return delegate.getFileStore(unwrap(path));
+    }
+
+    @Override
+    public void checkAccess(Path path, AccessMode... modes) throws IOException {
+        latency.metadata(unwrap(path));
+        delegate.checkAccess(unwrap(path), modes);
+    }
+
+    @Override
+    public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+        return delegate.getFileAttributeView(unwrap(path), type, options);
+    }
+
+    @Override
+    public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+        latency.metadata(unwrap(path));
+        return delegate.readAttributes(unwrap(path), type, options);
+    }
+
+    @Override
+    public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+        latency.metadata(unwrap(path));
+        return delegate.readAttributes(unwrap(path), attributes, options);
+    }
+
+    @Override
+    public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException {
+        delegate.setAttribute(unwrap(path), attribute, value, options);
+    }
+
+    /**
+     * Latency model, configured through system properties:
+     * {@code loadtest.nas.root}, {@code loadtest.nas.metadata-latency-ms},
+     * {@code loadtest.nas.open-latency-ms}, {@code loadtest.nas.read-mb-per-second}
+     * and {@code loadtest.nas.jitter} (fraction of the delay added at random).
+     */
+    static final class Latency {
+
+        boolean applies(Path path) {
+            String root = System.getProperty("loadtest.nas.root");
+            return root != null && path.isAbsolute() && path.toString().startsWith(root);
+        }
+
+        void metadata(Path path) {
+            if (applies(path)) {
+                sleepMillis(Double.parseDouble(System.getProperty("loadtest.nas.metadata-latency-ms", "2")));
+            }
+        }
+
+        void open(Path path) {
+            if (applies(path)) {
+                sleepMillis(Double.parseDouble(System.getProperty("loadtest.nas.open-latency-ms", "5")));
+            }
+        }
+
+        void read(int bytes) {
+            double mbPerSecond = Double.parseDouble(System.getProperty("loadtest.nas.read-mb-per-second", "100"));
+            if (bytes > 0 && mbPerSecond > 0) {
+                sleepMillis(bytes / (mbPerSecond * 1024 * 1024) * 1000);
+            }
+        }
+
+        private void sleepMillis(double millis) {
+            double jitter = Double.parseDouble(System.getProperty("loadtest.nas.jitter", "0.2"));
+            double delay = millis * (1 + jitter * ThreadLocalRandom.current().nextDouble());
+            try {
+                TimeUnit.NANOSECONDS.sleep((long) (delay * 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final class ThrottledChannel implements SeekableByteChannel {
+        private final SeekableByteChannel channel;
+
+        ThrottledChannel(SeekableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int read = channel.read(dst);
+            latency.read(read);
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) throws IOException {
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
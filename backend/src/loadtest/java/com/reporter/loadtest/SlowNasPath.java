@@ -0,0 +1,143 @@
+package com.reporter.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Path of {@link SlowNasFileSystem}: wraps a path of the built-in file system so
+ * that {@code Files} operations are dispatched to {@link SlowNasFileSystemProvider}.
+ */
+final class SlowNasPath implements Path {
+
+    private final SlowNasFileSystem fileSystem;
+    private final Path delegate;
+
+    SlowNasPath(SlowNasFileSystem fileSystem, Path delegate) {
+        this.fileSystem = fileSystem;
+        this.delegate = delegate;
+    }
+
+    Path delegate() {
+        return delegate;
+    }
+
+    private Path wrap(Path path) {
+        return path == null ? null : new SlowNasPath(fileSystem, path);
+    }
+
+    private static Path unwrap(Path path) {
+        return path instanceof SlowNasPath slowPath ? slowPath.delegate : path;
+    }
+
+    @Override
+    public SlowNasFileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    @Override
+    public boolean isAbsolute() {
+        return delegate.isAbsolute();
+    }
+
+    @Override
+    public Path getRoot() {
+        return wrap(delegate.getRoot());
+    }
+
+    @Override
+    public Path getFileName() {
+        return wrap(delegate.getFileName());
+    }
+
+    @Override
+    public Path getParent() {
+        return wrap(delegate.getParent());
+    }
+
+    @Override
+    public int getNameCount() {
+        return delegate.getNameCount();
+    }
+
+    @Override
+    public Path getName(int index) {
+        return wrap(delegate.getName(index));
+    }
+
+    @Override
+    public Path subpath(int beginIndex, int endIndex) {
+        return wrap(delegate.subpath(beginIndex, endIndex));
+    }
+
+    @Override
+    public boolean startsWith(Path other) {
+        return delegate.startsWith(unwrap(other));
+    }
+
+    @Override
+    public boolean endsWith(Path other) {
+        return delegate.endsWith(unwrap(other));
+    }
+
+    @Override
+    public Path normalize() {
+        return wrap(delegate.normalize());
+    }
+
+    @Override
+    public Path resolve(Path other) {
+        return wrap(delegate.resolve(unwrap(other)));
+    }
+
+    @Override
+    public Path relativize(Path other) {
+        return wrap(delegate.relativize(unwrap(other)));
+    }
+
+    @Override
+    public URI toUri() {
+        return delegate.toUri();
+    }
+
+    @Override
+    public Path toAbsolutePath() {
+        return wrap(delegate.toAbsolutePath());
+    }
+
+    @Override
+    public Path toRealPath(LinkOption... options) throws IOException {
+        fileSystem.provider().latency().metadata(delegate);
+        return wrap(delegate.toRealPath(options));
+    }
+
+    @Override
+    public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers)
+            throws IOException {
+        return delegate.register(watcher, events, modifiers);
+    }
+
+    @Override
+    public int compareTo(Path other) {
+        return delegate.compareTo(unwrap(other));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SlowNasPath slowPath && delegate.equals(slowPath.delegate);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
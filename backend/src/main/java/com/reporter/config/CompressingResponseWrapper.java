@@ -0,0 +1,248 @@
+package com.reporter.config;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Holds back the first {@code minResponseSize} bytes of a response. Once the body
+ * grows past that threshold and its content type has a configured level, the
+ * buffered bytes and everything after them go through the negotiated encoder and
+ * the response is sent chunked; smaller or non-compressible bodies are written
+ * through unchanged with their original Content-Length. Non-blocking writers,
+ * which register a {@link WriteListener}, are passed through uncompressed since
+ * the encoder could not honour {@code isReady()}.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final ContentEncoding encoding;
+    private final Map<String, Integer> levels;
+    private final int minResponseSize;
+
+    private CompressingOutputStream outputStream;
+    private PrintWriter writer;
+    private long contentLength = -1;
+
+    CompressingResponseWrapper(HttpServletResponse response, ContentEncoding encoding,
+                               Map<String, Integer> levels, int minResponseSize) {
+        super(response);
+        this.encoding = encoding;
+        this.levels = levels;
+        this.minResponseSize = minResponseSize;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called on this response");
+        }
+        if (outputStream == null) {
+            outputStream = new CompressingOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called on this response");
+            }
+            outputStream = new CompressingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        contentLength = len;
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        contentLength = len;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            contentLength = Long.parseLong(value);
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            contentLength = Long.parseLong(value);
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        // Committing before the encoding is decided would lock in the wrong headers
+        if (outputStream == null || outputStream.isDecided()) {
+            if (outputStream != null) {
+                outputStream.flush();
+            }
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (outputStream != null && !outputStream.isDecided()) {
+            outputStream.buffer.reset();
+        }
+        super.resetBuffer();
+    }
+
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.finish();
+        } else if (contentLength >= 0) {
+            super.setContentLengthLong(contentLength);
+        }
+    }
+
+    private Integer levelFor(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int parameters = contentType.indexOf(';');
+        String mimeType = (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim();
+        return levels.get(mimeType.toLowerCase(Locale.ROOT));
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream target;
+        private boolean finished;
+        private boolean nonBlocking;
+
+        boolean isDecided() {
+            return target != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (target != null) {
+                target.write(b);
+                return;
+            }
+            buffer.write(b);
+            if (buffer.size() >= minResponseSize || levelFor(getContentType()) == null) {
+                startBody(buffer.size() >= minResponseSize);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (target != null) {
+                target.write(bytes, offset, length);
+                return;
+            }
+            buffer.write(bytes, offset, length);
+            // Content types without a level are never compressed, so there is nothing to wait for
+            if (buffer.size() >= minResponseSize || levelFor(getContentType()) == null) {
+                startBody(buffer.size() >= minResponseSize);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (target == null) {
+                startBody(buffer.size() >= minResponseSize);
+            }
+            if (nonBlocking) {
+                // The writer flushes through its listener; a flush here could block or fail while not ready
+                return;
+            }
+            if (target instanceof ServletOutputStream) {
+                target.flush();
+            } else {
+                // Closing the encoder writes its trailer and closes the servlet stream
+                target.close();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return !(target instanceof ServletOutputStream raw) || raw.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (target == null) {
+                try {
+                    // Whatever was buffered so far goes out before the stream turns non-blocking
+                    startBody(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (!(target instanceof ServletOutputStream raw)) {
+                throw new IllegalStateException("A write listener must be set before a compressed body starts");
+            }
+            nonBlocking = true;
+            raw.setWriteListener(writeListener);
+        }
+
+        private void startBody(boolean compressible) throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            Integer level = compressible ? levelFor(getContentType()) : null;
+            ServletOutputStream raw = response.getOutputStream();
+
+            if (level != null && !response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                target = encoding.wrap(raw, level);
+            } else {
+                if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                }
+                target = raw;
+            }
+
+            buffer.writeTo(target);
+            buffer = null;
+        }
+    }
+}
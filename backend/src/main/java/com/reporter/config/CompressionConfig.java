@@ -0,0 +1,67 @@
+package com.reporter.config;
+
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "app.compression.enabled", havingValue = "true", matchIfMissing = true)
+public class CompressionConfig {
+
+    @Value("${app.compression.url-patterns}")
+    private String urlPatterns;
+
+    @Value("${app.compression.encodings}")
+    private String encodings;
+
+    @Value("${app.compression.min-response-size}")
+    private int minResponseSize;
+
+    @Value("${app.compression.gzip-levels}")
+    private String gzipLevels;
+
+    @Value("${app.compression.zstd-levels}")
+    private String zstdLevels;
+
+    @Bean
+    public FilterRegistrationBean<ResponseCompressionFilter> responseCompressionFilter() {
+        List<ContentEncoding> preferred = Arrays.stream(encodings.split(","))
+                .map(ContentEncoding::fromToken)
+                .toList();
+
+        Map<ContentEncoding, Map<String, Integer>> levels = new EnumMap<>(ContentEncoding.class);
+        levels.put(ContentEncoding.GZIP, parseLevels(gzipLevels));
+        levels.put(ContentEncoding.ZSTD, parseLevels(zstdLevels));
+
+        FilterRegistrationBean<ResponseCompressionFilter> registration =
+                new FilterRegistrationBean<>(new ResponseCompressionFilter(preferred, levels, minResponseSize));
+        registration.addUrlPatterns(urlPatterns.split(","));
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    // Parses "mime/type=level,mime/type=level" into a lookup keyed by lower-case mime type
+    private Map<String, Integer> parseLevels(String spec) {
+        Map<String, Integer> levels = new HashMap<>();
+        for (String entry : spec.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator > 0) {
+                levels.put(entry.substring(0, separator).trim().toLowerCase(Locale.ROOT),
+                        Integer.parseInt(entry.substring(separator + 1).trim()));
+            }
+        }
+        return levels;
+    }
+}
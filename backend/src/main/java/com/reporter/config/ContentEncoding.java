@@ -0,0 +1,81 @@
+package com.reporter.config;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response encodings the compression filter can negotiate. zstd relies on the
+ * native library bundled with zstd-jni and is skipped on platforms where it
+ * cannot be loaded; gzip is always available.
+ */
+public enum ContentEncoding {
+
+    ZSTD("zstd") {
+        @Override
+        public boolean isAvailable() {
+            return ZstdSupport.AVAILABLE;
+        }
+
+        @Override
+        public OutputStream wrap(OutputStream outputStream, int level) throws IOException {
+            return new ZstdOutputStream(outputStream, level);
+        }
+    },
+
+    GZIP("gzip") {
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public OutputStream wrap(OutputStream outputStream, int level) throws IOException {
+            // syncFlush so that flushes from streaming bodies reach the client as complete chunks
+            return new GZIPOutputStream(outputStream, 8192, true) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+    };
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public abstract boolean isAvailable();
+
+    public abstract OutputStream wrap(OutputStream outputStream, int level) throws IOException;
+
+    public static ContentEncoding fromToken(String token) {
+        for (ContentEncoding encoding : values()) {
+            if (encoding.token.equalsIgnoreCase(token.trim())) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content encoding: " + token);
+    }
+
+    private static final class ZstdSupport {
+        private static final boolean AVAILABLE = detect();
+
+        private static boolean detect() {
+            try {
+                Native.load();
+                return true;
+            } catch (LinkageError | RuntimeException e) {
+                return false;
+            }
+        }
+    }
+}
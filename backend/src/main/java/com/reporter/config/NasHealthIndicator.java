@@ -0,0 +1,35 @@
+package com.reporter.config;
+
+import com.reporter.service.NasAccessGuard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Circuit state of each NAS mount at {@code /actuator/health}, under "nas". Reads
+ * the breakers only and never touches the NAS, so the endpoint stays responsive
+ * while a mount hangs. DEGRADED while some mounts fail fast, DOWN when all do.
+ * Not part of the readiness group, so a hung mount does not take the pod out.
+ */
+@Component("nas")
+@RequiredArgsConstructor
+public class NasHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Some NAS mounts are not responding");
+
+    private final NasAccessGuard nasAccessGuard;
+
+    @Override
+    public Health health() {
+        Map<String, NasAccessGuard.MountHealth> mounts = nasAccessGuard.health();
+        long unavailable = mounts.values().stream().filter(mount -> !mount.available()).count();
+        Status status = unavailable == 0 ? Status.UP
+                : unavailable < mounts.size() ? DEGRADED
+                : Status.DOWN;
+        return Health.status(status).withDetail("mounts", mounts).build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.reporter.config;
+
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Configuration
+@ConditionalOnProperty(name = "app.timing.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTimingConfig {
+
+    @Value("${app.timing.url-patterns}")
+    private String urlPatterns;
+
+    @Value("${app.timing.sample-rate}")
+    private double sampleRate;
+
+    @Value("${app.timing.allow-request-header}")
+    private boolean allowRequestHeader;
+
+    @Value("${app.timing.exclude-paths}")
+    private String excludePaths;
+
+    @Bean
+    public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter() {
+        Set<String> excluded = Arrays.stream(excludePaths.split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toSet());
+        FilterRegistrationBean<RequestTimingFilter> registration =
+                new FilterRegistrationBean<>(new RequestTimingFilter(sampleRate, allowRequestHeader, excluded));
+        registration.addUrlPatterns(urlPatterns.split(","));
+        registration.setDispatcherTypes(DispatcherType.REQUEST);
+        // Outside response compression, so the header is set before the compressed body starts
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,155 @@
+package com.reporter.config;
+
+import com.reporter.service.RequestTiming;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records a phase breakdown for a sample of requests: {@code app.timing.sample-rate}
+ * of them, plus any request sent with {@code X-Request-Timing: true} when
+ * {@code app.timing.allow-request-header} is set. The phases recorded before the
+ * body starts go out as a {@code Server-Timing} header; once the response is
+ * complete, one log line lists every phase including {@code serialize}, the time
+ * spent writing the body. Requests that are not sampled, and the long-lived
+ * streams in {@code app.timing.exclude-paths}, pass straight through.
+ */
+@Slf4j
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    public static final String REQUEST_TIMING_HEADER = "X-Request-Timing";
+
+    private final double sampleRate;
+    private final boolean allowRequestHeader;
+    private final Set<String> excludedPaths;
+
+    public RequestTimingFilter(double sampleRate, boolean allowRequestHeader, Set<String> excludedPaths) {
+        this.sampleRate = sampleRate;
+        this.allowRequestHeader = allowRequestHeader;
+        this.excludedPaths = excludedPaths;
+        log.info("Request timing enabled for {}% of requests{}", sampleRate * 100,
+                allowRequestHeader ? " and requests sent with " + REQUEST_TIMING_HEADER : "");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return excludedPaths.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!sampled(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestTiming timing = RequestTiming.start();
+        TimingResponseWrapper wrapper = new TimingResponseWrapper(response, timing);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            RequestTiming.clear();
+            if (isAsyncStarted(request)) {
+                // Streaming bodies are written after this returns; log once the last dispatch completes
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(request, wrapper, timing);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                finish(request, wrapper, timing);
+            }
+        }
+    }
+
+    private boolean sampled(HttpServletRequest request) {
+        return (allowRequestHeader && "true".equalsIgnoreCase(request.getHeader(REQUEST_TIMING_HEADER)))
+                || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private void finish(HttpServletRequest request, TimingResponseWrapper wrapper, RequestTiming timing) {
+        wrapper.bodyFinished();
+        String query = request.getQueryString();
+        log.info("{} {}{} status={} total={}ms {}", request.getMethod(), request.getRequestURI(),
+                query != null ? "?" + query : "", wrapper.getStatus(),
+                timing.elapsedNanos() / 1_000_000, timing.summary());
+    }
+
+    /** Adds the header just before the body starts, when the phases up to serialization are known. */
+    private static final class TimingResponseWrapper extends HttpServletResponseWrapper {
+        private final RequestTiming timing;
+        private long bodyStart;
+        private boolean bodyStarted;
+
+        private TimingResponseWrapper(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            startBody();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            startBody();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            startBody();
+            super.flushBuffer();
+        }
+
+        private synchronized void startBody() {
+            if (bodyStarted) {
+                return;
+            }
+            bodyStarted = true;
+            bodyStart = System.nanoTime();
+            if (!isCommitted()) {
+                setHeader(SERVER_TIMING_HEADER, timing.serverTiming());
+            }
+        }
+
+        // Responses without a body still get the header if nothing was sent yet
+        private synchronized void bodyFinished() {
+            if (bodyStarted) {
+                timing.add("serialize", System.nanoTime() - bodyStart, 1);
+            } else if (!isCommitted()) {
+                setHeader(SERVER_TIMING_HEADER, timing.serverTiming());
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.reporter.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compresses large responses with the best encoding both sides support. The
+ * wrapper survives the async dispatch used by streaming bodies, so the encoder
+ * is only finished once the final dispatch completes.
+ */
+@Slf4j
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private final List<ContentEncoding> preferredEncodings;
+    private final Map<ContentEncoding, Map<String, Integer>> levels;
+    private final int minResponseSize;
+
+    public ResponseCompressionFilter(List<ContentEncoding> preferredEncodings,
+                                     Map<ContentEncoding, Map<String, Integer>> levels,
+                                     int minResponseSize) {
+        this.preferredEncodings = preferredEncodings.stream()
+                .filter(ContentEncoding::isAvailable)
+                .toList();
+        this.levels = levels;
+        this.minResponseSize = minResponseSize;
+        log.info("Response compression enabled with encodings {} above {} bytes", this.preferredEncodings, minResponseSize);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CompressingResponseWrapper wrapper = WebUtils.getNativeResponse(response, CompressingResponseWrapper.class);
+        if (wrapper == null) {
+            ContentEncoding encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (encoding == null) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            wrapper = new CompressingResponseWrapper(response, encoding,
+                    levels.getOrDefault(encoding, Map.of()), minResponseSize);
+        }
+
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            if (!isAsyncStarted(request)) {
+                wrapper.finish();
+            }
+        }
+    }
+
+    ContentEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+
+        Map<String, Double> accepted = new HashMap<>();
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            double quality = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0.0;
+                    }
+                }
+            }
+            accepted.put(tokens[0].trim().toLowerCase(), quality);
+        }
+
+        for (ContentEncoding encoding : preferredEncodings) {
+            Double quality = accepted.getOrDefault(encoding.getToken(), accepted.get("*"));
+            if (quality != null && quality > 0) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+}
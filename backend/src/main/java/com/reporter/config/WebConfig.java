@@ -14,6 +14,9 @@ import java.util.Arrays;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // Row totals of Arrow previews, which browsers only expose to scripts when listed
+    private static final String[] PAGING_HEADERS = {"X-Total-Rows", "X-Total-Rows-Exact"};
+
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins;
 
@@ -29,6 +32,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(allowedOrigins.split(","))
                 .allowedMethods(allowedMethods.split(","))
                 .allowedHeaders(allowedHeaders.split(","))
+                .exposedHeaders(PAGING_HEADERS)
                 .allowCredentials(true);
     }
 
@@ -38,6 +42,7 @@ public class WebConfig implements WebMvcConfigurer {
         configuration.setAllowedOriginPatterns(Arrays.asList(allowedOrigins.split(",")));
         configuration.setAllowedMethods(Arrays.asList(allowedMethods.split(",")));
         configuration.setAllowedHeaders(Arrays.asList(allowedHeaders.split(",")));
+        configuration.setExposedHeaders(Arrays.asList(PAGING_HEADERS));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -2,13 +2,32 @@ package com.reporter.controller;
 
 import com.reporter.model.FileData;
 import com.reporter.dto.ApiResponse;
+import com.reporter.exception.ParseRejectedException;
+import com.reporter.dto.FileViewCriteria;
+import com.reporter.service.ArrowStreamService;
+import com.reporter.service.CompressedInput;
+import com.reporter.service.FileExportService;
 import com.reporter.service.FileParsingService;
+import com.reporter.service.FileRows;
+import com.reporter.service.FileViewService;
+import com.reporter.service.ParseOptions;
 import com.reporter.service.ReportService;
+import com.reporter.service.RequestTiming;
+import com.reporter.service.SortIndexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/files")
@@ -16,24 +35,170 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class FileController {
 
+    static final String TOTAL_ROWS_HEADER = "X-Total-Rows";
+    static final String TOTAL_ROWS_EXACT_HEADER = "X-Total-Rows-Exact";
+
+    @Value("${app.parse.preview-max-rows}")
+    private int previewMaxRows;
+
     private final FileParsingService fileParsingService;
     private final ReportService reportService;
+    private final ArrowStreamService arrowStreamService;
+    private final FileViewService fileViewService;
+    private final FileExportService fileExportService;
+    private final SortIndexService sortIndexService;
 
     @GetMapping("/{reportId}/{fileName}")
     public ResponseEntity<ApiResponse<FileData>> getFileData(@PathVariable String reportId, 
-                                                           @PathVariable String fileName) {
+                                                           @PathVariable String fileName,
+                                                           @RequestParam(defaultValue = "0") int offset,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) Integer preview,
+                                                           @RequestParam Map<String, String> params) {
         try {
             // First, verify the report exists and get its path
             var report = reportService.getReportById(reportId);
             
             // Parse the file data
-            FileData fileData = fileParsingService.parseFile(report.getPath(), fileName);
+            FileData fileData = preview != null
+                    ? readPreview(report.getPath(), fileName, preview)
+                    : readView(report.getPath(), fileName, offset, limit, fileViewService.criteria(params));
+            RequestTiming.rows(fileData.getData().size());
             
             return ResponseEntity.ok(ApiResponse.success(fileData));
+        } catch (ParseRejectedException e) {
+            log.warn("Parse of {} for report {} rejected: {}", fileName, reportId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error parsing file: {} for report: {}", fileName, reportId, e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ApiResponse.error("Error parsing file: " + e.getMessage()));
         }
     }
+
+    @GetMapping(value = "/{reportId}/{fileName}", produces = ArrowStreamService.ARROW_STREAM_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> getFileDataAsArrow(@PathVariable String reportId,
+                                                                   @PathVariable String fileName,
+                                                                   @RequestParam(defaultValue = "0") int offset,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) Integer preview,
+                                                                   @RequestParam Map<String, String> params) {
+        try {
+            var report = reportService.getReportById(reportId);
+            FileData fileData = preview != null
+                    ? readPreview(report.getPath(), fileName, preview)
+                    : readView(report.getPath(), fileName, offset, limit, fileViewService.criteria(params));
+            RequestTiming.rows(fileData.getData().size());
+
+            StreamingResponseBody body = outputStream -> arrowStreamService.writeFileData(fileData, outputStream);
+            // The stream only carries the rows it holds, so a preview's total travels in headers
+            return ResponseEntity.ok()
+                    .header(TOTAL_ROWS_HEADER, String.valueOf(fileData.getTotalRows()))
+                    .header(TOTAL_ROWS_EXACT_HEADER, String.valueOf(!Boolean.FALSE.equals(fileData.getTotalRowsExact())))
+                    .contentType(MediaType.parseMediaType(ArrowStreamService.ARROW_STREAM_MEDIA_TYPE))
+                    .body(body);
+        } catch (ParseRejectedException e) {
+            log.warn("Parse of {} for report {} rejected: {}", fileName, reportId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        } catch (Exception e) {
+            // Arrow clients cannot read an ApiResponse body, so errors are reported by status only
+            log.error("Error parsing file: {} for report: {}", fileName, reportId, e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * Streams the filtered and sorted view of a file as CSV or XLSX. Accepts the
+     * same {@code filter.<column>}, {@code sort} and {@code direction} parameters
+     * as the file view.
+     */
+    @GetMapping("/{reportId}/{fileName}/export")
+    public ResponseEntity<StreamingResponseBody> exportFileData(@PathVariable String reportId,
+                                                                @PathVariable String fileName,
+                                                                @RequestParam(defaultValue = "csv") String format,
+                                                                @RequestParam Map<String, String> params) {
+        boolean xlsx = "xlsx".equalsIgnoreCase(format);
+        if (!xlsx && !"csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        try {
+            var report = reportService.getReportById(reportId);
+            FileViewCriteria criteria = fileViewService.criteria(params);
+
+            String contentName = CompressedInput.innerName(fileName);
+            String baseName = contentName.contains(".") ? contentName.substring(0, contentName.lastIndexOf('.')) : contentName;
+            String downloadName = baseName + (criteria.isEmpty() ? "" : "_filtered") + (xlsx ? ".xlsx" : ".csv");
+            MediaType contentType = xlsx
+                    ? MediaType.parseMediaType(FileExportService.XLSX_MEDIA_TYPE)
+                    : new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+            // Held until the body is written, so the rows are decoded from the cache as they go out
+            FileRows rows = fileParsingService.openRows(report.getPath(), fileName, ParseOptions.from(criteria));
+            StreamingResponseBody body = outputStream -> {
+                try (rows) {
+                    if (xlsx) {
+                        fileExportService.writeXlsx(baseName, rows.getHeaders(), fileViewService.rows(rows, criteria), outputStream);
+                    } else {
+                        fileExportService.writeCsv(rows.getHeaders(), fileViewService.rows(rows, criteria), outputStream);
+                    }
+                }
+            };
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename(downloadName, StandardCharsets.UTF_8).build().toString())
+                    .contentType(contentType)
+                    .body(body);
+        } catch (ParseRejectedException e) {
+            log.warn("Parse of {} for report {} rejected: {}", fileName, reportId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        } catch (Exception e) {
+            log.error("Error exporting file: {} for report: {}", fileName, reportId, e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * First rows of the file as stored, without filters or sorting, and with an
+     * estimated total unless the whole file was read.
+     */
+    private FileData readPreview(String reportPath, String fileName, int rows) {
+        return fileParsingService.previewFile(reportPath, fileName, Math.min(Math.max(rows, 1), previewMaxRows));
+    }
+
+    /**
+     * Unfiltered, unsorted pages of CSV and text files are read through the row-offset
+     * index, and sorted views through the cached sort index. Files too large for the
+     * parse cache have filters and projection pushed into the parser and are sorted
+     * on the parsed rows.
+     */
+    private FileData readView(String reportPath, String fileName, int offset, Integer limit, FileViewCriteria criteria) {
+        ParseOptions options = ParseOptions.from(criteria);
+        if (criteria.getFilters().isEmpty() && criteria.getSort() == null && limit != null) {
+            return options.apply(fileParsingService.parsePage(reportPath, fileName, offset, limit));
+        }
+        if (criteria.getSort() != null) {
+            FileData sorted;
+            try (RequestTiming.Span span = RequestTiming.phase("sort")) {
+                sorted = sortIndexService.sortedPage(reportPath, fileName, options,
+                        criteria.getSort(), criteria.isDescending(), offset, limit);
+            }
+            if (sorted != null) {
+                return sorted;
+            }
+        }
+        FileData fileData = fileParsingService.parseFile(reportPath, fileName, options);
+        if (criteria.getSort() != null) {
+            try (RequestTiming.Span span = RequestTiming.phase("sort")) {
+                fileData = fileViewService.view(fileData, new FileViewCriteria(new LinkedHashMap<>(),
+                        criteria.getSort(), criteria.isDescending(), null));
+            }
+        }
+        return (offset > 0 || limit != null) ? fileData.page(offset, limit) : fileData;
+    }
 }
@@ -2,9 +2,12 @@ package com.reporter.controller;
 
 import com.reporter.dto.ApiResponse;
 import com.reporter.dto.FolderItem;
+import com.reporter.exception.NasUnavailableException;
 import com.reporter.service.FolderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,6 +28,11 @@ public class FolderController {
             log.debug("Getting folders for path: {}", path);
             List<FolderItem> folders = folderService.getFolders(path);
             return ResponseEntity.ok(ApiResponse.success(folders));
+        } catch (NasUnavailableException e) {
+            log.warn("Cannot browse {}: {}", path, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error getting folders for path: {}", path, e);
             return ResponseEntity.badRequest()
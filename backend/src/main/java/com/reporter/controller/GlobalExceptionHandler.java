@@ -3,7 +3,9 @@ package com.reporter.controller;
 import com.reporter.dto.ApiResponse;
 import com.reporter.exception.ReportNotFoundException;
 import com.reporter.exception.FileAccessException;
+import com.reporter.exception.ParseRejectedException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -32,6 +34,14 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(e.getMessage()));
     }
 
+    @ExceptionHandler(ParseRejectedException.class)
+    public ResponseEntity<ApiResponse<Void>> handleParseRejectedException(ParseRejectedException e) {
+        log.warn("Parse rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.error(e.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
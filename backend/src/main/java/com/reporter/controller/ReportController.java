@@ -3,14 +3,27 @@ package com.reporter.controller;
 import com.reporter.model.Report;
 import com.reporter.dto.CreateReportRequest;
 import com.reporter.dto.ApiResponse;
+import com.reporter.dto.BatchFileRequest;
+import com.reporter.dto.FileDiffResult;
+import com.reporter.dto.ReportQueryRequest;
+import com.reporter.service.FileBatchService;
+import com.reporter.service.FileDiffService;
+import com.reporter.service.ReportEventBroadcaster;
+import com.reporter.service.ReportQueryService;
+import com.reporter.service.ReportRefreshService;
 import com.reporter.service.ReportService;
 import com.reporter.exception.DuplicateReportPathException;
+import com.reporter.exception.NasUnavailableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -23,6 +36,11 @@ import java.util.List;
 public class ReportController {
 
     private final ReportService reportService;
+    private final FileBatchService fileBatchService;
+    private final ReportQueryService reportQueryService;
+    private final FileDiffService fileDiffService;
+    private final ReportEventBroadcaster eventBroadcaster;
+    private final ReportRefreshService reportRefreshService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<Report>>> getAllReports() {
@@ -36,6 +54,49 @@ public class ReportController {
         }
     }
 
+    /**
+     * Server-Sent Events stream of report and file changes. Browsers reconnect with
+     * the Last-Event-ID header and receive the events they missed.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = eventBroadcaster.subscribe(lastEventId);
+        if (emitter == null) {
+            log.warn("Rejecting report event subscriber, too many open streams");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Keeps reverse proxies from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    @GetMapping(value = "/export", produces = "application/yaml")
+    public ResponseEntity<byte[]> exportReports() {
+        try {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reports.yaml\"")
+                    .contentType(MediaType.parseMediaType("application/yaml"))
+                    .body(reportService.exportReports());
+        } catch (Exception e) {
+            log.error("Error exporting reports", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = {"application/yaml", "application/x-yaml", "text/yaml", "text/plain"})
+    public ResponseEntity<ApiResponse<Integer>> importReports(@RequestBody String yaml) {
+        try {
+            int imported = reportService.importReports(yaml);
+            return ResponseEntity.ok(ApiResponse.success(imported));
+        } catch (Exception e) {
+            log.error("Error importing reports", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Error importing reports: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Report>> getReportById(@PathVariable String id) {
         try {
@@ -106,15 +167,79 @@ public class ReportController {
         }
     }
 
+    /**
+     * Queues a rescan of every report and answers 202 at once; changes arrive as
+     * report events. Returns false when the request joined a rescan already queued.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<Boolean>> refreshAllReports() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success(reportRefreshService.requestRefresh()));
+        } catch (Exception e) {
+            log.error("Error refreshing reports", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Error refreshing reports: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/{id}/refresh")
     public ResponseEntity<ApiResponse<Report>> refreshReport(@PathVariable String id) {
         try {
             Report report = reportService.refreshReport(id);
             return ResponseEntity.ok(ApiResponse.success(report));
+        } catch (NasUnavailableException e) {
+            log.warn("Cannot refresh report {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error refreshing report: {}", id, e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ApiResponse.error("Error refreshing report: " + e.getMessage()));
         }
     }
+
+    @PostMapping(value = "/{id}/files/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getFileDataBatch(@PathVariable String id,
+                                                                 @Valid @RequestBody BatchFileRequest request) {
+        Report report = reportService.getReportById(id);
+        fileBatchService.validate(request.getFiles());
+
+        StreamingResponseBody body = outputStream -> fileBatchService.streamBatch(report, request.getFiles(), outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @PostMapping(value = "/{id}/query", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> queryReport(@PathVariable String id,
+                                                             @Valid @RequestBody ReportQueryRequest request) {
+        Report report = reportService.getReportById(id);
+        // Scanning and validation happen here so errors still get a regular error response
+        ReportQueryService.QueryResult result = reportQueryService.execute(report, request);
+
+        StreamingResponseBody body = outputStream ->
+                reportQueryService.writePage(result, request.getOffset(), request.getLimit(), outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping("/{id}/diff")
+    public ResponseEntity<ApiResponse<FileDiffResult>> diffFiles(@PathVariable String id,
+                                                                 @RequestParam String left,
+                                                                 @RequestParam String right,
+                                                                 @RequestParam List<String> key,
+                                                                 @RequestParam(required = false) String type,
+                                                                 @RequestParam(defaultValue = "0") int offset,
+                                                                 @RequestParam(defaultValue = "100") int limit) {
+        if (type != null && !List.of(FileDiffService.ADDED, FileDiffService.REMOVED, FileDiffService.CHANGED).contains(type)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Unknown change type: " + type));
+        }
+        Report report = reportService.getReportById(id);
+        FileDiffResult result = fileDiffService.diff(report, left, right, key, type, Math.max(offset, 0), Math.max(limit, 1));
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
 }
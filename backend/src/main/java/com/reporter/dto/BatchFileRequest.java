@@ -0,0 +1,19 @@
+package com.reporter.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchFileRequest {
+
+    @NotEmpty(message = "At least one file is required")
+    @Valid
+    private List<FileSliceRequest> files;
+}
@@ -0,0 +1,24 @@
+package com.reporter.dto;
+
+import com.reporter.model.FileData;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchFileResult {
+    private String fileName;
+    private boolean success;
+    private FileData data;
+    private String error;
+
+    public static BatchFileResult success(String fileName, FileData data) {
+        return new BatchFileResult(fileName, true, data, null);
+    }
+
+    public static BatchFileResult error(String fileName, String error) {
+        return new BatchFileResult(fileName, false, null, error);
+    }
+}
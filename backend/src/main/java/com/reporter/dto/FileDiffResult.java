@@ -0,0 +1,43 @@
+package com.reporter.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileDiffResult {
+    private String leftFile;
+    private String rightFile;
+    private List<String> keyColumns;
+    // Columns present on only one side are listed here and not compared
+    private List<String> addedColumns;
+    private List<String> removedColumns;
+
+    private long added;
+    private long removed;
+    private long changed;
+    private long unchanged;
+    private long duplicateKeys;
+
+    private int offset;
+    private List<RowChange> changes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RowChange {
+        private String type;
+        private Map<String, Object> key;
+        private Map<String, Object> left;
+        private Map<String, Object> right;
+        private List<String> changedColumns;
+    }
+}
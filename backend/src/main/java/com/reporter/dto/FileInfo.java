@@ -3,6 +3,7 @@ package com.reporter.dto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
@@ -16,4 +17,11 @@ public class FileInfo {
     private long size;
     private LocalDateTime lastModified;
     private String extension;
+    /**
+     * Data rows without the header, when they can be counted without parsing; see
+     * FileRowCounter. Counts arrive after the file is listed, so they are not part
+     * of equality and filling one in does not count as a file change.
+     */
+    @EqualsAndHashCode.Exclude
+    private Long rowCount;
 }
@@ -0,0 +1,23 @@
+package com.reporter.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileSliceRequest {
+
+    @NotBlank(message = "File name is required")
+    private String fileName;
+
+    @Min(value = 0, message = "Offset must not be negative")
+    private Integer offset;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    private Integer limit;
+}
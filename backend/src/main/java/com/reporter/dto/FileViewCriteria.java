@@ -0,0 +1,25 @@
+package com.reporter.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileViewCriteria {
+    // Column -> case-insensitive substring, as typed into the DataTable filter inputs
+    private Map<String, String> filters = new LinkedHashMap<>();
+    private String sort;
+    private boolean descending;
+    // Projected columns, or null for all
+    private List<String> columns;
+
+    public boolean isEmpty() {
+        return filters.isEmpty() && sort == null && columns == null;
+    }
+}
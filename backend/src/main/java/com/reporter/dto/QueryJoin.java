@@ -0,0 +1,28 @@
+package com.reporter.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryJoin {
+
+    @NotBlank(message = "Join file is required")
+    private String file;
+
+    @NotEmpty(message = "At least one join key is required")
+    private List<String> leftKeys;
+
+    // Defaults to leftKeys when the key columns have the same names on both sides
+    private List<String> rightKeys;
+
+    @Pattern(regexp = "inner|left", message = "Join type must be 'inner' or 'left'")
+    private String type = "inner";
+}
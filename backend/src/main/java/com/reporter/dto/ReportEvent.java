@@ -0,0 +1,35 @@
+package com.reporter.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change to a report or to one of its files, pushed to {@code GET /api/reports/events}
+ * subscribers. File events carry the file name and, unless the file was removed, its details.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportEvent {
+
+    public static final String REPORT_CREATED = "report-created";
+    public static final String REPORT_UPDATED = "report-updated";
+    public static final String REPORT_DELETED = "report-deleted";
+    public static final String FILE_ADDED = "file-added";
+    public static final String FILE_CHANGED = "file-changed";
+    public static final String FILE_REMOVED = "file-removed";
+
+    /** Increasing sequence number, sent as the SSE event id */
+    private long id;
+    private String type;
+    private String reportId;
+    private String reportName;
+    private String fileName;
+    private FileInfo file;
+    private LocalDateTime timestamp;
+}
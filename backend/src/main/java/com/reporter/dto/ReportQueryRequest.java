@@ -0,0 +1,33 @@
+package com.reporter.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportQueryRequest {
+
+    // File name or glob; all matching files must share the same headers and are combined with UNION ALL
+    @NotBlank(message = "Source file pattern is required")
+    private String from;
+
+    @Valid
+    private List<QueryJoin> joins = new ArrayList<>();
+
+    // Adds a leading _file column naming the file each row came from
+    private boolean includeSourceFile;
+
+    @Min(value = 0, message = "Offset must not be negative")
+    private Integer offset;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    private Integer limit;
+}
@@ -0,0 +1,18 @@
+package com.reporter.exception;
+
+/**
+ * A NAS call that timed out, or was refused because its mount's circuit is open.
+ * Answered like a rejected parse: 503 with Retry-After.
+ */
+public class NasUnavailableException extends ParseRejectedException {
+    private final String mount;
+
+    public NasUnavailableException(String mount, String message, int retryAfterSeconds) {
+        super(message, retryAfterSeconds);
+        this.mount = mount;
+    }
+
+    public String getMount() {
+        return mount;
+    }
+}
@@ -0,0 +1,14 @@
+package com.reporter.exception;
+
+public class ParseRejectedException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public ParseRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,10 +1,12 @@
 package com.reporter.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -17,4 +19,21 @@ public class FileData {
     private List<String> headers;
     private List<Map<String, Object>> data;
     private Integer totalRows;
+    /** False when {@code totalRows} is an estimate, as for a preview; absent when exact. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean totalRowsExact;
+
+    public FileData(String fileName, List<String> headers, List<Map<String, Object>> data, Integer totalRows) {
+        this(fileName, headers, data, totalRows, null);
+    }
+
+    /**
+     * Returns a copy holding at most {@code limit} rows from {@code offset} on.
+     * {@code totalRows} keeps the size of the whole file so clients can page.
+     */
+    public FileData page(int offset, Integer limit) {
+        int from = Math.min(Math.max(offset, 0), data.size());
+        int to = limit == null ? data.size() : (int) Math.min((long) from + limit, data.size());
+        return new FileData(fileName, headers, new ArrayList<>(data.subList(from, to)), totalRows);
+    }
 }
@@ -0,0 +1,15 @@
+package com.reporter.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+// Root of the reports.yaml document
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportConfig {
+    private List<Report> reports;
+}
@@ -0,0 +1,56 @@
+package com.reporter.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A date or date-time cell stored as epoch milliseconds of the local (zone-less)
+ * value, so sorting and comparisons are primitive. It is rendered as ISO-8601 text
+ * only when serialized or shown.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TemporalValue implements Comparable<TemporalValue> {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final long epochMillis;
+    private final boolean dateOnly;
+
+    public static TemporalValue ofDate(LocalDate date) {
+        return new TemporalValue(date.toEpochDay() * MILLIS_PER_DAY, true);
+    }
+
+    public static TemporalValue ofDateTime(LocalDateTime dateTime) {
+        return new TemporalValue(dateTime.toInstant(ZoneOffset.UTC).toEpochMilli(), false);
+    }
+
+    /** Restores a value from its {@link #getEpochMillis()} and {@link #isDateOnly()}. */
+    public static TemporalValue ofEpochMillis(long epochMillis, boolean dateOnly) {
+        return new TemporalValue(epochMillis, dateOnly);
+    }
+
+    @Override
+    public int compareTo(TemporalValue other) {
+        return Long.compare(epochMillis, other.epochMillis);
+    }
+
+    public LocalDateTime toLocalDateTime() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return dateOnly ? toLocalDateTime().toLocalDate().toString() : toLocalDateTime().toString();
+    }
+}
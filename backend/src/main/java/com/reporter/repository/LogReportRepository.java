@@ -0,0 +1,268 @@
+package com.reporter.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.reporter.model.Report;
+import com.reporter.model.ReportConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores reports as an append-only log of JSON lines: each change appends one
+ * {@code put} or {@code delete} record, so a write costs the size of one report
+ * rather than the whole store. On startup the log is replayed, dropping a torn
+ * final record left by a crash. Once superseded records outnumber live ones the
+ * log is compacted into a fresh snapshot. If no log exists yet, reports.yaml is
+ * imported on first start.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "log", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class LogReportRepository implements ReportRepository {
+
+    private static final int COMPACTION_MIN_RECORDS = 1000;
+
+    @Value("${app.storage.log-path}")
+    private String logPath;
+
+    @Value("${app.storage.config-path}")
+    private String legacyConfigPath;
+
+    @Value("${app.storage.fsync}")
+    private boolean fsync;
+
+    @Value("${app.storage.compaction-interval-minutes}")
+    private long compactionIntervalMinutes;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Report> reports = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long records;
+    private ScheduledExecutorService compactor;
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Path path = Paths.get(logPath);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        long start = System.nanoTime();
+        if (Files.exists(path)) {
+            replay(path);
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            log.info("Replayed {} records into {} reports in {} ms", records, reports.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } else {
+            importLegacyYaml();
+            compact();
+        }
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded,
+                compactionIntervalMinutes, compactionIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // The log is fully replayed at startup, so the index already carries file details
+    @Override
+    public synchronized List<Report> loadIndex() {
+        return new ArrayList<>(reports.values());
+    }
+
+    @Override
+    public synchronized List<Report> loadAll() {
+        return new ArrayList<>(reports.values());
+    }
+
+    @Override
+    public synchronized void save(Report report) {
+        append(List.of(new LogRecord(LogRecord.PUT, report.getId(), report)));
+        reports.put(report.getId(), report);
+    }
+
+    @Override
+    public synchronized void saveAll(Collection<Report> changed) {
+        List<LogRecord> batch = new ArrayList<>(changed.size());
+        changed.forEach(report -> batch.add(new LogRecord(LogRecord.PUT, report.getId(), report)));
+        append(batch);
+        changed.forEach(report -> reports.put(report.getId(), report));
+    }
+
+    @Override
+    public synchronized void delete(String reportId) {
+        append(List.of(new LogRecord(LogRecord.DELETE, reportId, null)));
+        reports.remove(reportId);
+    }
+
+    private void append(List<LogRecord> batch) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            for (LogRecord record : batch) {
+                buffer.write(objectMapper.writeValueAsBytes(record));
+                buffer.write('\n');
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            records += batch.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing report log " + logPath, e);
+        }
+    }
+
+    /**
+     * Applies every complete record. Blank lines are skipped, and corrupt records
+     * before the end are logged and skipped so the records after them survive.
+     * Only the bytes after the last line break, a record cut short by a crash, are truncated.
+     */
+    private void replay(Path path) throws IOException {
+        long completeBytes = 0;
+        long offset = 0;
+        int skipped = 0;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = input.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                byte[] record = line.toByteArray();
+                line.reset();
+                if (!new String(record, StandardCharsets.UTF_8).isBlank()) {
+                    try {
+                        apply(objectMapper.readValue(record, LogRecord.class));
+                    } catch (IOException e) {
+                        skipped++;
+                        log.error("Skipping corrupt report log record at byte {} of {}: {}", completeBytes, path,
+                                e.getMessage());
+                    }
+                }
+                completeBytes = offset;
+            }
+        }
+        if (skipped > 0) {
+            log.error("Skipped {} corrupt records in {}; the reports they held may be out of date", skipped, path);
+        }
+
+        // A crash during append can leave a partial last record; cut it so new records start cleanly
+        if (completeBytes < Files.size(path)) {
+            log.warn("Truncating {} bytes of an incomplete last record from {}", Files.size(path) - completeBytes, path);
+            try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncate.truncate(completeBytes);
+            }
+        }
+    }
+
+    private void apply(LogRecord record) {
+        if (LogRecord.DELETE.equals(record.op())) {
+            reports.remove(record.id());
+        } else if (record.report() != null) {
+            reports.put(record.id(), record.report());
+        }
+        records++;
+    }
+
+    private void importLegacyYaml() throws IOException {
+        Path yamlPath = Paths.get(legacyConfigPath);
+        if (!Files.exists(yamlPath)) {
+            return;
+        }
+        ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+        yamlMapper.registerModule(new JavaTimeModule());
+        ReportConfig config = yamlMapper.readValue(yamlPath.toFile(), ReportConfig.class);
+        if (config != null && config.getReports() != null) {
+            config.getReports().forEach(report -> reports.put(report.getId(), report));
+        }
+        log.info("Imported {} reports from {} into the report log", reports.size(), yamlPath);
+    }
+
+    private synchronized void compactIfNeeded() {
+        if (records > COMPACTION_MIN_RECORDS && records > 2L * reports.size()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                log.error("Error compacting report log", e);
+            }
+        }
+    }
+
+    // Writes the live reports to a new file and swaps it in atomically
+    private void compact() throws IOException {
+        Path path = Paths.get(logPath);
+        Path tempPath = path.resolveSibling(path.getFileName() + ".compact");
+        long before = records;
+
+        try (FileChannel temp = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Report report : reports.values()) {
+                byte[] line = objectMapper.writeValueAsBytes(new LogRecord(LogRecord.PUT, report.getId(), report));
+                ByteBuffer bytes = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+                while (bytes.hasRemaining()) {
+                    temp.write(bytes);
+                }
+            }
+            temp.force(true);
+        }
+
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        records = reports.size();
+        log.info("Compacted report log from {} to {} records", before, records);
+    }
+
+    record LogRecord(String op, String id, Report report) {
+        static final String PUT = "put";
+        static final String DELETE = "delete";
+    }
+}
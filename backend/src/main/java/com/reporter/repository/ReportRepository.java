@@ -0,0 +1,28 @@
+package com.reporter.repository;
+
+import com.reporter.model.Report;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persistent storage for report definitions. {@code ReportService} keeps the
+ * working set in memory and calls this for every change, so implementations
+ * only need to make single-report writes durable.
+ */
+public interface ReportRepository {
+
+    /**
+     * Loads what is needed to list reports at startup. Implementations may leave
+     * {@code fileDetails} out to start faster; {@link #loadAll()} fills them in.
+     */
+    List<Report> loadIndex();
+
+    List<Report> loadAll();
+
+    void save(Report report);
+
+    void saveAll(Collection<Report> reports);
+
+    void delete(String reportId);
+}
@@ -0,0 +1,174 @@
+package com.reporter.repository;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.reporter.model.Report;
+import com.reporter.model.ReportConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The original store: every report in a single reports.yaml that is rewritten on
+ * each change. Kept for deployments that edit the file by hand; the log store is
+ * the default.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "yaml")
+@Slf4j
+public class YamlReportRepository implements ReportRepository {
+
+    @Value("${app.storage.config-path}")
+    private String configPath;
+
+    private final ObjectMapper yamlMapper;
+    // Mirror of the stored reports, needed because every save rewrites the whole file
+    private final Map<String, Report> reports = new LinkedHashMap<>();
+    private boolean detailsLoaded;
+
+    public YamlReportRepository() {
+        this.yamlMapper = new ObjectMapper(new YAMLFactory());
+        this.yamlMapper.registerModule(new JavaTimeModule());
+    }
+
+    /**
+     * Streams reports.yaml and keeps only what the report list needs, skipping the
+     * per-file details that make up most of the document.
+     */
+    @Override
+    public synchronized List<Report> loadIndex() {
+        Path configFilePath = Paths.get(configPath);
+        if (!Files.exists(configFilePath)) {
+            detailsLoaded = true;
+            log.info("No existing configuration found, starting with empty reports");
+            return List.of();
+        }
+
+        long start = System.nanoTime();
+        try (JsonParser parser = yamlMapper.getFactory().createParser(configFilePath.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                detailsLoaded = true;
+                return List.of();
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("reports".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        Report report = readReportSummary(parser);
+                        if (report.getId() != null) {
+                            reports.put(report.getId(), report);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            log.info("Loaded index of {} reports in {} ms", reports.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.error("Error loading report index, loading full configuration instead", e);
+            reports.clear();
+            loadDetails();
+        }
+        return new ArrayList<>(reports.values());
+    }
+
+    @Override
+    public synchronized List<Report> loadAll() {
+        loadDetails();
+        return new ArrayList<>(reports.values());
+    }
+
+    @Override
+    public synchronized void save(Report report) {
+        loadDetails();
+        reports.put(report.getId(), report);
+        write();
+    }
+
+    @Override
+    public synchronized void saveAll(Collection<Report> changed) {
+        loadDetails();
+        changed.forEach(report -> reports.put(report.getId(), report));
+        write();
+    }
+
+    @Override
+    public synchronized void delete(String reportId) {
+        loadDetails();
+        reports.remove(reportId);
+        write();
+    }
+
+    private Report readReportSummary(JsonParser parser) throws IOException {
+        Report.ReportBuilder builder = Report.builder();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> builder.id(parser.getValueAsString());
+                case "name" -> builder.name(parser.getValueAsString());
+                case "path" -> builder.path(parser.getValueAsString());
+                case "files" -> builder.files(yamlMapper.readValue(parser, new TypeReference<List<String>>() {}));
+                case "createdAt" -> builder.createdAt(yamlMapper.readValue(parser, LocalDateTime.class));
+                case "updatedAt" -> builder.updatedAt(yamlMapper.readValue(parser, LocalDateTime.class));
+                default -> parser.skipChildren();
+            }
+        }
+        return builder.build();
+    }
+
+    // Replaces index entries with the full reports; entries saved since startup are already complete
+    private void loadDetails() {
+        if (detailsLoaded) {
+            return;
+        }
+        try {
+            Path configFilePath = Paths.get(configPath);
+            if (Files.exists(configFilePath)) {
+                ReportConfig config = yamlMapper.readValue(configFilePath.toFile(), ReportConfig.class);
+                if (config != null && config.getReports() != null) {
+                    for (Report full : config.getReports()) {
+                        Report current = reports.get(full.getId());
+                        if (current == null || current.getFileDetails() == null) {
+                            reports.put(full.getId(), full);
+                        }
+                    }
+                }
+            }
+            detailsLoaded = true;
+        } catch (IOException e) {
+            // Leave detailsLoaded unset so a later save does not overwrite the file with index entries
+            throw new IllegalStateException("Error loading reports configuration: " + e.getMessage(), e);
+        }
+    }
+
+    private void write() {
+        try {
+            Path configFilePath = Paths.get(configPath);
+            Files.createDirectories(configFilePath.getParent());
+
+            ReportConfig config = new ReportConfig(new ArrayList<>(reports.values()));
+            yamlMapper.writeValue(configFilePath.toFile(), config);
+            log.debug("Saved {} reports to configuration", reports.size());
+        } catch (IOException e) {
+            log.error("Error saving reports configuration", e);
+        }
+    }
+}
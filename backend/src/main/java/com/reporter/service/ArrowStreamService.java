@@ -0,0 +1,185 @@
+package com.reporter.service;
+
+import com.reporter.model.FileData;
+import com.reporter.model.TemporalValue;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes parsed file data as an Arrow IPC stream. Each column gets a single
+ * Arrow type inferred from its values, and rows are emitted in record batches
+ * of {@code app.arrow.batch-rows} so the client can start decoding before the
+ * whole table has been written.
+ */
+@Service
+@Slf4j
+public class ArrowStreamService {
+
+    public static final String ARROW_STREAM_MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+    private static final ArrowType INT64 = new ArrowType.Int(64, true);
+    private static final ArrowType FLOAT64 = new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+    private static final ArrowType BOOL = ArrowType.Bool.INSTANCE;
+    private static final ArrowType UTF8 = ArrowType.Utf8.INSTANCE;
+    private static final ArrowType DATE = new ArrowType.Date(DateUnit.MILLISECOND);
+    // Zone-less, like the local date-times read from the files
+    private static final ArrowType TIMESTAMP = new ArrowType.Timestamp(TimeUnit.MILLISECOND, null);
+
+    @Value("${app.arrow.batch-rows:8192}")
+    private int batchRows;
+
+    private final BufferAllocator allocator = new RootAllocator();
+
+    public void writeFileData(FileData fileData, OutputStream outputStream) throws IOException {
+        List<String> headers = fileData.getHeaders();
+        List<Map<String, Object>> rows = fileData.getData();
+
+        List<Field> fields = new ArrayList<>(headers.size());
+        for (String header : headers) {
+            fields.add(new Field(header, FieldType.nullable(inferArrowType(rows, header)), null));
+        }
+
+        try (BufferAllocator streamAllocator = allocator.newChildAllocator(fileData.getFileName(), 0, Long.MAX_VALUE);
+             VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields), streamAllocator);
+             ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(outputStream))) {
+
+            writer.start();
+            for (int start = 0; start < rows.size(); start += batchRows) {
+                int end = Math.min(rows.size(), start + batchRows);
+                root.allocateNew();
+                for (int column = 0; column < headers.size(); column++) {
+                    fillVector(root.getVector(column), rows, headers.get(column), start, end);
+                }
+                root.setRowCount(end - start);
+                writer.writeBatch();
+                outputStream.flush();
+            }
+            writer.end();
+        }
+
+        log.debug("Wrote {} rows of {} as Arrow stream", rows.size(), fileData.getFileName());
+    }
+
+    @PreDestroy
+    public void close() {
+        allocator.close();
+    }
+
+    private ArrowType inferArrowType(List<Map<String, Object>> rows, String header) {
+        boolean sawInteger = false;
+        boolean sawDecimal = false;
+        boolean sawBoolean = false;
+        boolean sawDate = false;
+        boolean sawDateTime = false;
+
+        for (Map<String, Object> row : rows) {
+            Object value = row.get(header);
+            if (isEmpty(value)) {
+                continue;
+            }
+            if (value instanceof Integer || value instanceof Long) {
+                sawInteger = true;
+            } else if (value instanceof Number) {
+                sawDecimal = true;
+            } else if (value instanceof Boolean) {
+                sawBoolean = true;
+            } else if (value instanceof TemporalValue temporal) {
+                sawDate |= temporal.isDateOnly();
+                sawDateTime |= !temporal.isDateOnly();
+            } else {
+                return UTF8;
+            }
+        }
+
+        if (sawDate || sawDateTime) {
+            if (sawInteger || sawDecimal || sawBoolean) {
+                return UTF8;
+            }
+            return sawDateTime ? TIMESTAMP : DATE;
+        }
+        if (sawBoolean) {
+            return (sawInteger || sawDecimal) ? UTF8 : BOOL;
+        }
+        if (sawDecimal) {
+            return FLOAT64;
+        }
+        return sawInteger ? INT64 : UTF8;
+    }
+
+    private void fillVector(FieldVector vector, List<Map<String, Object>> rows, String header, int start, int end) {
+        for (int i = start; i < end; i++) {
+            Object value = rows.get(i).get(header);
+            int index = i - start;
+
+            if (vector instanceof VarCharVector varChar) {
+                if (value == null) {
+                    varChar.setNull(index);
+                } else {
+                    varChar.setSafe(index, value.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            } else if (vector instanceof BigIntVector bigInt) {
+                if (isEmpty(value)) {
+                    bigInt.setNull(index);
+                } else {
+                    bigInt.setSafe(index, ((Number) value).longValue());
+                }
+            } else if (vector instanceof Float8Vector float8) {
+                if (isEmpty(value)) {
+                    float8.setNull(index);
+                } else {
+                    float8.setSafe(index, ((Number) value).doubleValue());
+                }
+            } else if (vector instanceof BitVector bit) {
+                if (isEmpty(value)) {
+                    bit.setNull(index);
+                } else {
+                    bit.setSafe(index, (Boolean) value ? 1 : 0);
+                }
+            } else if (vector instanceof DateMilliVector date) {
+                if (isEmpty(value)) {
+                    date.setNull(index);
+                } else {
+                    date.setSafe(index, ((TemporalValue) value).getEpochMillis());
+                }
+            } else if (vector instanceof TimeStampMilliVector timestamp) {
+                if (isEmpty(value)) {
+                    timestamp.setNull(index);
+                } else {
+                    timestamp.setSafe(index, ((TemporalValue) value).getEpochMillis());
+                }
+            }
+        }
+    }
+
+    private boolean isEmpty(Object value) {
+        return value == null || "".equals(value);
+    }
+}
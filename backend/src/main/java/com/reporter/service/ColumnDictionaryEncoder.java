@@ -0,0 +1,120 @@
+package com.reporter.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduplicates repeated cell strings while a file is parsed. Every column starts
+ * with a dictionary that maps each distinct value to one shared {@code String}
+ * instance; once a column shows too many distinct values it switches to plain
+ * storage and drops its dictionary. Header names are interned so that files with
+ * the same layout share their row keys.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ColumnDictionaryEncoder {
+
+    @Value("${app.parse.dictionary.max-distinct}")
+    private int maxDistinct;
+
+    @Value("${app.parse.dictionary.sample-rows}")
+    private int sampleRows;
+
+    @Value("${app.parse.dictionary.max-distinct-ratio}")
+    private double maxDistinctRatio;
+
+    private final MeterRegistry meterRegistry;
+
+    private DistributionSummary savedBytesSummary;
+    private Counter dictionaryColumns;
+    private Counter plainColumns;
+
+    @PostConstruct
+    public void init() {
+        savedBytesSummary = DistributionSummary.builder("reporter.parse.dictionary.saved")
+                .description("Estimated heap saved per parsed file by sharing repeated strings")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        dictionaryColumns = Counter.builder("reporter.parse.dictionary.columns").tag("encoding", "dictionary").register(meterRegistry);
+        plainColumns = Counter.builder("reporter.parse.dictionary.columns").tag("encoding", "plain").register(meterRegistry);
+    }
+
+    public Session newSession(String fileName) {
+        return new Session(fileName);
+    }
+
+    // Rough retained size of a compact (Latin-1) String: object header and fields plus the backing array
+    static long estimateStringBytes(String value) {
+        long arrayBytes = 16 + (long) value.length();
+        return 24 + ((arrayBytes + 7) / 8) * 8;
+    }
+
+    public final class Session {
+        private final String fileName;
+        private final List<ColumnDictionary> columns = new ArrayList<>();
+        private long savedBytes;
+
+        private Session(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public String header(String name) {
+            return name.intern();
+        }
+
+        public Object encode(int column, Object value) {
+            if (!(value instanceof String text) || text.isEmpty()) {
+                return value;
+            }
+            while (columns.size() <= column) {
+                columns.add(new ColumnDictionary());
+            }
+            return columns.get(column).encode(text);
+        }
+
+        public void finish() {
+            long dictionaryCount = columns.stream().filter(dictionary -> dictionary.values != null).count();
+            dictionaryColumns.increment(dictionaryCount);
+            plainColumns.increment(columns.size() - dictionaryCount);
+            savedBytesSummary.record(savedBytes);
+            log.debug("Dictionary-encoded {} of {} string columns in {}, saving ~{} KB",
+                    dictionaryCount, columns.size(), fileName, savedBytes / 1024);
+        }
+
+        private final class ColumnDictionary {
+            private Map<String, String> values = new HashMap<>();
+            private long seen;
+
+            String encode(String value) {
+                if (values == null) {
+                    return value;
+                }
+                seen++;
+                String shared = values.get(value);
+                if (shared != null) {
+                    savedBytes += estimateStringBytes(value);
+                    return shared;
+                }
+                values.put(value, value);
+                if (values.size() > maxDistinct
+                        || (seen >= sampleRows && values.size() > seen * maxDistinctRatio)) {
+                    // High-cardinality column: the dictionary would cost more than it saves
+                    values = null;
+                }
+                return value;
+            }
+        }
+    }
+}
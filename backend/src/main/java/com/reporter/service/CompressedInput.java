@@ -0,0 +1,181 @@
+package com.reporter.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Compound file names such as {@code sales.csv.gz}, {@code sales.csv.zip} and
+ * {@code sales.csv.zst}. The format is taken from the inner extension and the
+ * content is decompressed while it is read, so only the compressed bytes cross
+ * the NAS mount.
+ */
+public final class CompressedInput {
+
+    private static final List<String> CODECS = List.of("gz", "zip", "zst");
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CompressedInput() {
+    }
+
+    /** The compression suffix of the name ("gz", "zip" or "zst"), or null for a plain file. */
+    public static String codec(String fileName) {
+        String suffix = suffix(fileName);
+        return CODECS.contains(suffix) ? suffix : null;
+    }
+
+    /** The name without its compression suffix, e.g. {@code sales.csv} for {@code sales.csv.gz}. */
+    public static String innerName(String fileName) {
+        return codec(fileName) != null ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+    }
+
+    /** Lower-case extension of the content, e.g. {@code csv} for both {@code sales.csv} and {@code sales.csv.gz}. */
+    public static String extension(String fileName) {
+        return suffix(innerName(fileName));
+    }
+
+    /** The extension as listed in {@code app.nas.allowed-extensions}, e.g. {@code csv.gz}. */
+    public static String fullExtension(String fileName) {
+        String codec = codec(fileName);
+        return codec != null ? extension(fileName) + "." + codec : extension(fileName);
+    }
+
+    /**
+     * Opens the file's content, decompressing it on the fly when the name has a
+     * compression suffix. Reads of the compressed bytes go through the NAS guard.
+     */
+    static InputStream open(Path path, NasAccessGuard guard) throws IOException {
+        String fileName = path.getFileName().toString();
+        String codec = codec(fileName);
+        if (codec == null) {
+            return guard.newInputStream(path);
+        }
+        switch (codec) {
+            case "gz":
+                return new GZIPInputStream(guard.newInputStream(path), BUFFER_SIZE);
+            case "zst":
+                return new ZstdInputStream(guard.newInputStream(path));
+            default:
+                ZipFile zip = guard.call(path, () -> new ZipFile(path.toFile()));
+                try {
+                    InputStream entry = guard.guard(path,
+                            guard.call(path, () -> zip.getInputStream(zipEntry(zip, innerName(fileName)))));
+                    return new FilterInputStream(entry) {
+                        @Override
+                        public void close() throws IOException {
+                            try {
+                                super.close();
+                            } finally {
+                                zip.close();
+                            }
+                        }
+                    };
+                } catch (IOException | RuntimeException e) {
+                    zip.close();
+                    throw e;
+                }
+        }
+    }
+
+    /**
+     * Size of the decompressed content as recorded by the file itself (the gzip
+     * trailer, the zip entry or the zstd frame header), or -1 when it is not recorded.
+     */
+    static long contentSize(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        String codec = codec(fileName);
+        if (codec == null) {
+            return Files.size(path);
+        }
+        switch (codec) {
+            case "gz": {
+                long size = Files.size(path);
+                if (size < 4) {
+                    return -1;
+                }
+                // ISIZE holds the length modulo 2^32, so it is only trusted when it is not below the compressed size
+                long length = Integer.toUnsignedLong(readAt(path, size - 4, 4).getInt());
+                return length >= size ? length : -1;
+            }
+            case "zst":
+                return zstdContentSize(readAt(path, 0, 18));
+            default:
+                try (ZipFile zip = new ZipFile(path.toFile())) {
+                    return zipEntry(zip, innerName(fileName)).getSize();
+                }
+        }
+    }
+
+    // The entry named like the archive without ".zip", otherwise its first file
+    private static ZipEntry zipEntry(ZipFile zip, String innerName) throws IOException {
+        ZipEntry named = zip.getEntry(innerName);
+        if (named != null) {
+            return named;
+        }
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory()) {
+                return entry;
+            }
+        }
+        throw new IOException("Empty zip archive: " + innerName + ".zip");
+    }
+
+    // Frame_Content_Size of the first frame, per RFC 8878 section 3.1.1.1
+    private static long zstdContentSize(ByteBuffer header) {
+        if (header.remaining() < 5 || header.getInt() != ZSTD_MAGIC) {
+            return -1;
+        }
+        int descriptor = header.get() & 0xFF;
+        int sizeFlag = descriptor >>> 6;
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        int dictionaryIdBytes = new int[] {0, 1, 2, 4}[descriptor & 0x3];
+        int sizeBytes = sizeFlag == 0 ? (singleSegment ? 1 : 0) : 1 << sizeFlag;
+        int skip = (singleSegment ? 0 : 1) + dictionaryIdBytes;
+        if (sizeBytes == 0 || header.remaining() < skip + sizeBytes) {
+            return -1;
+        }
+        header.position(header.position() + skip);
+        switch (sizeBytes) {
+            case 1:
+                return header.get() & 0xFF;
+            case 2:
+                return (header.getShort() & 0xFFFF) + 256;
+            case 4:
+                return Integer.toUnsignedLong(header.getInt());
+            default:
+                long size = header.getLong();
+                return size >= 0 ? size : -1;
+        }
+    }
+
+    private static ByteBuffer readAt(Path path, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+            channel.position(position);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is filled or the file ends
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static String suffix(String fileName) {
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+}
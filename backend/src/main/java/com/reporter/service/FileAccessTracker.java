@@ -0,0 +1,99 @@
+package com.reporter.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counts how often each file is requested, keyed by its path relative to the NAS
+ * base path. Counts survive restarts in a small JSON file so the warmup after a
+ * deployment knows which files to parse first.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FileAccessTracker {
+
+    @Value("${app.warmup.access-stats-path}")
+    private String accessStatsPath;
+
+    @Value("${app.warmup.max-tracked-files}")
+    private int maxTrackedFiles;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    @PostConstruct
+    public void init() {
+        Path statsFile = Paths.get(accessStatsPath);
+        if (!Files.exists(statsFile)) {
+            return;
+        }
+        try {
+            Map<String, Long> stored = objectMapper.readValue(statsFile.toFile(), new TypeReference<Map<String, Long>>() {});
+            stored.forEach((key, count) -> counts.computeIfAbsent(key, k -> new LongAdder()).add(count));
+            log.info("Loaded access counts for {} files", counts.size());
+        } catch (IOException e) {
+            log.warn("Could not read access statistics from {}: {}", statsFile, e.getMessage());
+        }
+    }
+
+    public void record(String fileKey) {
+        counts.computeIfAbsent(fileKey, k -> new LongAdder()).increment();
+        dirty = true;
+    }
+
+    public List<String> mostAccessed(int limit) {
+        return snapshot(limit).keySet().stream().collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        // Only the most used files matter for warmup, so the rest are dropped to keep the map bounded
+        Map<String, Long> retained = snapshot(maxTrackedFiles);
+        counts.keySet().retainAll(retained.keySet());
+
+        Path statsFile = Paths.get(accessStatsPath);
+        try {
+            Files.createDirectories(statsFile.toAbsolutePath().getParent());
+            Path tempFile = statsFile.resolveSibling(statsFile.getFileName() + ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), retained);
+            Files.move(tempFile, statsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Could not write access statistics to {}: {}", statsFile, e.getMessage());
+        }
+    }
+
+    private Map<String, Long> snapshot(int limit) {
+        return counts.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+}
@@ -0,0 +1,112 @@
+package com.reporter.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reporter.dto.BatchFileResult;
+import com.reporter.dto.FileSliceRequest;
+import com.reporter.exception.FileAccessException;
+import com.reporter.model.FileData;
+import com.reporter.model.Report;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses several files of one report concurrently and streams each result as a
+ * newline-delimited JSON line in completion order, so the first finished file
+ * reaches the client without waiting for the slowest one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileBatchService {
+
+    @Value("${app.batch.parallelism}")
+    private int parallelism;
+
+    @Value("${app.batch.max-files}")
+    private int maxFiles;
+
+    private final FileParsingService fileParsingService;
+    private final ObjectMapper objectMapper;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "file-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void validate(List<FileSliceRequest> slices) {
+        if (slices.size() > maxFiles) {
+            throw new FileAccessException("A batch may request at most " + maxFiles + " files, got " + slices.size());
+        }
+    }
+
+    public void streamBatch(Report report, List<FileSliceRequest> slices, OutputStream outputStream) throws IOException {
+        // Resolve the report directory once for the whole batch
+        Path reportDirectory = fileParsingService.resolveReportDirectory(report.getPath());
+        CompletionService<BatchFileResult> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<BatchFileResult>> futures = new ArrayList<>(slices.size());
+
+        for (FileSliceRequest slice : slices) {
+            futures.add(completionService.submit(() -> parseSlice(reportDirectory, slice)));
+        }
+
+        try {
+            for (int i = 0; i < slices.size(); i++) {
+                BatchFileResult result = completionService.take().get();
+                outputStream.write(objectMapper.writeValueAsBytes(result));
+                outputStream.write('\n');
+                outputStream.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while streaming batch for report " + report.getId(), e);
+        } catch (ExecutionException e) {
+            // parseSlice reports failures as results, so this only happens on programming errors
+            throw new IOException("Batch task failed for report " + report.getId(), e.getCause());
+        } finally {
+            // Stop outstanding parses if the client went away or a write failed
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private BatchFileResult parseSlice(Path reportDirectory, FileSliceRequest slice) {
+        try {
+            int offset = slice.getOffset() != null ? slice.getOffset() : 0;
+            FileData fileData = slice.getLimit() != null
+                    ? fileParsingService.parsePage(reportDirectory, slice.getFileName(), offset, slice.getLimit())
+                    : fileParsingService.parseFile(reportDirectory, slice.getFileName()).page(offset, null);
+            return BatchFileResult.success(slice.getFileName(), fileData);
+        } catch (Exception e) {
+            log.warn("Batch parse of {} failed: {}", slice.getFileName(), e.getMessage());
+            return BatchFileResult.error(slice.getFileName(), e.getMessage());
+        }
+    }
+}
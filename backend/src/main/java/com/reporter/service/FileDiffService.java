@@ -0,0 +1,448 @@
+package com.reporter.service;
+
+import com.reporter.dto.FileDiffResult;
+import com.reporter.exception.FileAccessException;
+import com.reporter.model.Report;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Compares two files of a report row by row on one or more key columns. Each row
+ * is reduced to its key and a 64-bit fingerprint of the compared columns; the
+ * right side is hashed and the left side probed against it. When either file has
+ * more rows than {@code app.diff.in-memory-rows}, both sides are first split by
+ * key hash into partitions on disk and compared one partition at a time. The
+ * outcome is a set of row positions, cached so later pages do not recompute it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileDiffService {
+
+    public static final String ADDED = "added";
+    public static final String REMOVED = "removed";
+    public static final String CHANGED = "changed";
+
+    private static final int MAX_PARTITIONS = 256;
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    @Value("${app.diff.in-memory-rows}")
+    private int inMemoryRows;
+
+    @Value("${app.diff.cache-entries}")
+    private int cacheEntries;
+
+    private final FileParsingService fileParsingService;
+
+    private final LinkedHashMap<OutcomeKey, DiffOutcome> outcomes = new LinkedHashMap<>(16, 0.75f, true);
+
+    public FileDiffResult diff(Report report, String leftFile, String rightFile, List<String> keyColumns,
+                               String type, int offset, int limit) {
+        Path reportDirectory = fileParsingService.resolveReportDirectory(report.getPath());
+        // Read before the rows, so an outcome is never filed under a newer version than it was computed from
+        OutcomeKey outcomeKey = new OutcomeKey(fileParsingService.version(reportDirectory, leftFile),
+                fileParsingService.version(reportDirectory, rightFile), List.copyOf(keyColumns));
+        // Both files stay open for the diff, which reads their rows from the cache one at a time
+        try (FileRows left = fileParsingService.openRows(reportDirectory, leftFile, ParseOptions.ALL);
+             FileRows right = fileParsingService.openRows(reportDirectory, rightFile, ParseOptions.ALL)) {
+            return diff(outcomeKey, left, right, leftFile, rightFile, keyColumns, type, offset, limit);
+        }
+    }
+
+    private FileDiffResult diff(OutcomeKey outcomeKey, FileRows left, FileRows right, String leftFile, String rightFile,
+                                List<String> keyColumns, String type, int offset, int limit) {
+        for (String key : keyColumns) {
+            if (!left.getHeaders().contains(key) || !right.getHeaders().contains(key)) {
+                throw new FileAccessException("Key column '" + key + "' must exist in both files");
+            }
+        }
+        List<String> compared = left.getHeaders().stream()
+                .filter(header -> right.getHeaders().contains(header) && !keyColumns.contains(header))
+                .collect(Collectors.toList());
+
+        DiffOutcome outcome = outcome(outcomeKey, left, right, keyColumns, compared);
+
+        List<FileDiffResult.RowChange> changes = new ArrayList<>();
+        Iterator<int[]> positions = outcome.positions(type);
+        for (int skipped = 0; skipped < offset && positions.hasNext(); skipped++) {
+            positions.next();
+        }
+        while (changes.size() < limit && positions.hasNext()) {
+            changes.add(toChange(positions.next(), left, right, keyColumns, compared));
+        }
+
+        return FileDiffResult.builder()
+                .leftFile(leftFile)
+                .rightFile(rightFile)
+                .keyColumns(keyColumns)
+                .addedColumns(right.getHeaders().stream().filter(h -> !left.getHeaders().contains(h)).collect(Collectors.toList()))
+                .removedColumns(left.getHeaders().stream().filter(h -> !right.getHeaders().contains(h)).collect(Collectors.toList()))
+                .added(outcome.added.size())
+                .removed(outcome.removed.size())
+                .changed(outcome.changedLeft.size())
+                .unchanged(outcome.unchanged)
+                .duplicateKeys(outcome.duplicateKeys)
+                .offset(offset)
+                .changes(changes)
+                .build();
+    }
+
+    private DiffOutcome outcome(OutcomeKey cacheKey, FileRows left, FileRows right, List<String> keyColumns,
+                                List<String> compared) {
+        synchronized (outcomes) {
+            DiffOutcome cached = outcomes.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long start = System.nanoTime();
+        DiffOutcome outcome = new DiffOutcome();
+        int largest = Math.max(left.size(), right.size());
+        if (largest <= inMemoryRows) {
+            Matcher matcher = new Matcher(outcome);
+            forEachKeyedRow(right, keyColumns, compared, matcher::build);
+            forEachKeyedRow(left, keyColumns, compared, matcher::probe);
+            matcher.finish();
+        } else {
+            int partitions = Math.min(MAX_PARTITIONS, (largest + inMemoryRows - 1) / inMemoryRows * 2);
+            diffPartitioned(outcome, left, right, keyColumns, compared, partitions);
+        }
+        outcome.sort();
+        log.info("Diffed {} against {} rows in {} ms: {} added, {} removed, {} changed",
+                left.size(), right.size(), (System.nanoTime() - start) / 1_000_000,
+                outcome.added.size(), outcome.removed.size(), outcome.changedLeft.size());
+
+        synchronized (outcomes) {
+            outcomes.put(cacheKey, outcome);
+            Iterator<OutcomeKey> eldest = outcomes.keySet().iterator();
+            while (outcomes.size() > cacheEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return outcome;
+    }
+
+    private void diffPartitioned(DiffOutcome outcome, FileRows left, FileRows right, List<String> keyColumns,
+                                 List<String> compared, int partitions) {
+        Path spillDirectory = null;
+        try {
+            spillDirectory = Files.createTempDirectory("reporter-diff");
+            Path[] rightParts = spill(spillDirectory, "right", right, keyColumns, compared, partitions);
+            Path[] leftParts = spill(spillDirectory, "left", left, keyColumns, compared, partitions);
+
+            for (int p = 0; p < partitions; p++) {
+                Matcher matcher = new Matcher(outcome);
+                readPartition(rightParts[p], matcher::build);
+                readPartition(leftParts[p], matcher::probe);
+                matcher.finish();
+            }
+            log.debug("Diff spilled {} partitions to {}", partitions, spillDirectory);
+        } catch (IOException e) {
+            throw new FileAccessException("Error spilling diff partitions to disk", e);
+        } finally {
+            deleteQuietly(spillDirectory);
+        }
+    }
+
+    private Path[] spill(Path directory, String side, FileRows fileRows, List<String> keyColumns,
+                         List<String> compared, int partitions) throws IOException {
+        Path[] paths = new Path[partitions];
+        DataOutputStream[] outputs = new DataOutputStream[partitions];
+        try {
+            for (int p = 0; p < partitions; p++) {
+                paths[p] = directory.resolve(side + "-" + p);
+                outputs[p] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(paths[p]), 64 * 1024));
+            }
+            forEachKeyedRow(fileRows, keyColumns, compared, row -> {
+                DataOutputStream output = outputs[Math.floorMod(row.key().hashCode(), partitions)];
+                try {
+                    byte[] key = row.key().getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(key.length);
+                    output.write(key);
+                    output.writeLong(row.fingerprint());
+                    output.writeInt(row.index());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+        return paths;
+    }
+
+    private void readPartition(Path path, Consumer<KeyedRow> consumer) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                byte[] key = new byte[length];
+                input.readFully(key);
+                consumer.accept(new KeyedRow(new String(key, StandardCharsets.UTF_8), input.readLong(), input.readInt()));
+            }
+        }
+    }
+
+    private void forEachKeyedRow(FileRows rows, List<String> keyColumns, List<String> compared, Consumer<KeyedRow> consumer) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.row(i);
+            key.setLength(0);
+            for (String column : keyColumns) {
+                key.append(FileViewService.asText(row.get(column))).append(KEY_SEPARATOR);
+            }
+            consumer.accept(new KeyedRow(key.toString(), fingerprint(row, compared), i));
+        }
+    }
+
+    // 64-bit FNV-1a over the text of each compared column
+    private static long fingerprint(Map<String, Object> row, List<String> compared) {
+        long hash = 0xcbf29ce484222325L;
+        for (String column : compared) {
+            String text = FileViewService.asText(row.get(column));
+            for (int i = 0; i < text.length(); i++) {
+                hash ^= text.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= KEY_SEPARATOR;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private FileDiffResult.RowChange toChange(int[] position, FileRows left, FileRows right,
+                                              List<String> keyColumns, List<String> compared) {
+        Map<String, Object> leftRow = position[1] >= 0 ? left.row(position[1]) : null;
+        Map<String, Object> rightRow = position[2] >= 0 ? right.row(position[2]) : null;
+        Map<String, Object> keyRow = leftRow != null ? leftRow : rightRow;
+
+        Map<String, Object> key = new LinkedHashMap<>();
+        keyColumns.forEach(column -> key.put(column, keyRow.get(column)));
+
+        List<String> changedColumns = null;
+        if (leftRow != null && rightRow != null) {
+            changedColumns = compared.stream()
+                    .filter(column -> !Objects.equals(FileViewService.asText(leftRow.get(column)),
+                            FileViewService.asText(rightRow.get(column))))
+                    .collect(Collectors.toList());
+        }
+        String type = position[0] == 0 ? CHANGED : position[0] == 1 ? REMOVED : ADDED;
+        return new FileDiffResult.RowChange(type, key, leftRow, rightRow, changedColumns);
+    }
+
+    private static void deleteQuietly(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (var paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Could not delete diff spill directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private record KeyedRow(String key, long fingerprint, int index) {
+    }
+
+    // Hash table over one partition of the right side, probed by the same partition of the left side
+    private static final class Matcher {
+        private final DiffOutcome outcome;
+        private final Map<String, RightEntry> table = new HashMap<>();
+
+        Matcher(DiffOutcome outcome) {
+            this.outcome = outcome;
+        }
+
+        void build(KeyedRow row) {
+            if (table.putIfAbsent(row.key(), new RightEntry(row.fingerprint(), row.index())) != null) {
+                outcome.duplicateKeys++;
+            }
+        }
+
+        void probe(KeyedRow row) {
+            RightEntry entry = table.get(row.key());
+            if (entry == null) {
+                outcome.removed.add(row.index());
+            } else if (entry.matched) {
+                outcome.duplicateKeys++;
+            } else {
+                entry.matched = true;
+                if (entry.fingerprint == row.fingerprint()) {
+                    outcome.unchanged++;
+                } else {
+                    outcome.changedLeft.add(row.index());
+                    outcome.changedRight.add(entry.index);
+                }
+            }
+        }
+
+        void finish() {
+            table.values().forEach(entry -> {
+                if (!entry.matched) {
+                    outcome.added.add(entry.index);
+                }
+            });
+        }
+    }
+
+    private static final class RightEntry {
+        final long fingerprint;
+        final int index;
+        boolean matched;
+
+        RightEntry(long fingerprint, int index) {
+            this.fingerprint = fingerprint;
+            this.index = index;
+        }
+    }
+
+    /** Both file versions and the key columns; a changed file gets a new version, so outcomes never go stale. */
+    private record OutcomeKey(FileParsingService.FileVersion left, FileParsingService.FileVersion right,
+                              List<String> keyColumns) {
+    }
+
+    /**
+     * Row positions of every difference: changed rows by left position, then
+     * removed rows by left position, then added rows by right position.
+     */
+    private static final class DiffOutcome {
+        final IntList changedLeft = new IntList();
+        final IntList changedRight = new IntList();
+        final IntList removed = new IntList();
+        final IntList added = new IntList();
+        long unchanged;
+        long duplicateKeys;
+
+        void sort() {
+            // Changed pairs are sorted together by left position
+            long[] pairs = new long[changedLeft.size()];
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = ((long) changedLeft.get(i) << 32) | (changedRight.get(i) & 0xffffffffL);
+            }
+            Arrays.sort(pairs);
+            for (int i = 0; i < pairs.length; i++) {
+                changedLeft.set(i, (int) (pairs[i] >>> 32));
+                changedRight.set(i, (int) pairs[i]);
+            }
+            removed.sort();
+            added.sort();
+        }
+
+        // Each element is {kind, leftIndex, rightIndex} with kind 0 = changed, 1 = removed, 2 = added
+        Iterator<int[]> positions(String type) {
+            List<Iterator<int[]>> parts = new ArrayList<>();
+            if (type == null || CHANGED.equals(type)) {
+                parts.add(range(changedLeft.size(), i -> new int[]{0, changedLeft.get(i), changedRight.get(i)}));
+            }
+            if (type == null || REMOVED.equals(type)) {
+                parts.add(range(removed.size(), i -> new int[]{1, removed.get(i), -1}));
+            }
+            if (type == null || ADDED.equals(type)) {
+                parts.add(range(added.size(), i -> new int[]{2, -1, added.get(i)}));
+            }
+            Iterator<Iterator<int[]>> remaining = parts.iterator();
+            return new Iterator<>() {
+                private Iterator<int[]> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && remaining.hasNext()) {
+                        current = remaining.next();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public int[] next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+
+        private static Iterator<int[]> range(int size, IntFunction<int[]> element) {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public int[] next() {
+                    return element.apply(next++);
+                }
+            };
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+    }
+}
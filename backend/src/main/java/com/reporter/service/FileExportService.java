@@ -0,0 +1,115 @@
+package com.reporter.service;
+
+import com.opencsv.CSVWriter;
+import com.reporter.model.TemporalValue;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows of a file view as CSV or XLSX straight to the response. CSV is
+ * flushed as it is produced; XLSX goes through POI's streaming workbook, which
+ * keeps only a small window of rows in memory and spills the rest to a temp file.
+ */
+@Service
+@Slf4j
+public class FileExportService {
+
+    public static final String XLSX_MEDIA_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    @Value("${app.export.xlsx-row-window}")
+    private int xlsxRowWindow;
+
+    public void writeCsv(List<String> headers, Stream<Map<String, Object>> rows, OutputStream outputStream) throws IOException {
+        CSVWriter csvWriter = new CSVWriter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+        csvWriter.writeNext(headers.toArray(new String[0]));
+
+        String[] line = new String[headers.size()];
+        int written = 0;
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            Map<String, Object> row = iterator.next();
+            for (int i = 0; i < line.length; i++) {
+                line[i] = FileViewService.asText(row.get(headers.get(i)));
+            }
+            csvWriter.writeNext(line);
+            if (++written % FLUSH_EVERY_ROWS == 0) {
+                csvWriter.flush();
+            }
+        }
+        csvWriter.flush();
+    }
+
+    public void writeXlsx(String sheetName, List<String> headers, Stream<Map<String, Object>> rows,
+                          OutputStream outputStream) throws IOException {
+        int lastRowIndex = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(xlsxRowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet(WorkbookUtil.createSafeSheetName(sheetName));
+            // Cell styles are workbook-wide, so one per temporal kind is shared by every date cell
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            CellStyle dateTimeStyle = workbook.createCellStyle();
+            dateTimeStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.size(); i++) {
+                headerRow.createCell(i).setCellValue(headers.get(i));
+            }
+
+            int rowIndex = 1;
+            Iterator<Map<String, Object>> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                if (rowIndex > lastRowIndex) {
+                    log.warn("XLSX export of {} truncated at {} rows, the sheet limit", sheetName, lastRowIndex);
+                    break;
+                }
+                Map<String, Object> row = iterator.next();
+                Row sheetRow = sheet.createRow(rowIndex++);
+                for (int i = 0; i < headers.size(); i++) {
+                    Cell cell = sheetRow.createCell(i);
+                    Object value = row.get(headers.get(i));
+                    if (value instanceof TemporalValue temporal) {
+                        cell.setCellValue(temporal.toLocalDateTime());
+                        cell.setCellStyle(temporal.isDateOnly() ? dateStyle : dateTimeStyle);
+                    } else {
+                        setCellValue(cell, value);
+                    }
+                }
+            }
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void setCellValue(Cell cell, Object value) {
+        if (value instanceof Number number) {
+            cell.setCellValue(number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+            cell.setCellValue(bool);
+        } else {
+            cell.setCellValue(FileViewService.asText(value));
+        }
+    }
+}
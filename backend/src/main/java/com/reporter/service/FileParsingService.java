@@ -1,10 +1,15 @@
 package com.reporter.service;
 
 import com.reporter.model.FileData;
+import com.reporter.model.TemporalValue;
 import com.reporter.exception.FileAccessException;
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
+import com.opencsv.ICSVParser;
 import com.opencsv.exceptions.CsvValidationException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -13,48 +18,677 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.zip.CRC32;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FileParsingService {
 
+    // Text formats whose files are typically only ever appended to
+    private static final Set<String> APPENDABLE_EXTENSIONS = Set.of("csv", "txt");
+    private static final int TAIL_BLOCK_SIZE = 4096;
+
     @Value("${app.nas.base-path}")
     private String nasBasePath;
 
+    @Value("${app.parse.compressed-expansion}")
+    private double compressedExpansion;
+
+    private final ParseAdmissionController admissionController;
+    private final ParsedFileCache parsedFileCache;
+    private final ColumnDictionaryEncoder dictionaryEncoder;
+    private final FileAccessTracker accessTracker;
+    private final RowOffsetIndexStore rowOffsetIndexStore;
+    private final TemporalColumnParser temporalColumnParser;
+    private final NasAccessGuard nasAccessGuard;
+
     public FileData parseFile(String reportPath, String fileName) {
+        return parseFile(resolveReportDirectory(reportPath), fileName);
+    }
+
+    public Path resolveReportDirectory(String reportPath) {
+        return Paths.get(nasBasePath, reportPath).normalize();
+    }
+
+    public FileData parseFile(Path reportDirectory, String fileName) {
+        return parseFile(reportDirectory, fileName, true);
+    }
+
+    /**
+     * Loads a file into the parse cache without counting it as a request, so warming
+     * does not reinforce its own choice of files.
+     */
+    public void warm(String reportPath, String fileName) {
+        Path filePath = resolveFile(resolveReportDirectory(reportPath), fileName, false);
+        load(filePath, fileName).close();
+    }
+
+    /**
+     * Returns the projected columns of the rows passing the filters of {@code options}.
+     * A file that may fit the parse cache is parsed whole and cached, so later views
+     * of it are served from memory, and then filtered. Only files larger than the
+     * cache have the options pushed down into the parser, and that partial result
+     * is not cached.
+     */
+    public FileData parseFile(String reportPath, String fileName, ParseOptions options) {
+        if (options.isEmpty()) {
+            return parseFile(reportPath, fileName);
+        }
+        Path filePath = resolveFile(resolveReportDirectory(reportPath), fileName, true);
         try {
-            Path filePath = Paths.get(nasBasePath, reportPath, fileName);
-            if (!Files.exists(filePath)) {
-                throw new FileAccessException("File not found: " + filePath);
+            BasicFileAttributes attributes = nasAccessGuard.readAttributes(filePath);
+            try (ParsedFileCache.Entry cached = parsedFileCache.acquire(filePath)) {
+                if (cached != null && cached.isCurrent(attributes.size(), attributes.lastModifiedTime().toMillis())) {
+                    parsedFileCache.recordHit();
+                    return decodeCached(cached, fileName, options);
+                }
             }
 
-            String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
-            
+            long contentSize = contentSize(filePath, attributes.size());
+            if (parsedFileCache.mayFit(contentSize)) {
+                try (Parsed parsed = load(filePath, fileName)) {
+                    return parsed.fileData() != null
+                            ? options.apply(parsed.fileData())
+                            : decodeCached(parsed.entry(), fileName, options);
+                }
+            }
+            return parsePushedDown(filePath, fileName, contentSize, options);
+        } catch (IOException e) {
+            throw new FileAccessException("Error reading file: " + fileName, e);
+        }
+    }
+
+    public FileRows openRows(String reportPath, String fileName, ParseOptions options) {
+        return openRows(resolveReportDirectory(reportPath), fileName, options);
+    }
+
+    /**
+     * Opens the rows passing the filters of {@code options} for a caller that walks
+     * them or picks them by position. A file that may fit the parse cache is loaded
+     * into it and read from the cached table as the caller goes, without a heap copy;
+     * larger files have the options pushed into the parser. Callers close the result.
+     */
+    public FileRows openRows(Path reportDirectory, String fileName, ParseOptions options) {
+        Path filePath = resolveFile(reportDirectory, fileName, true);
+        try {
+            BasicFileAttributes attributes = nasAccessGuard.readAttributes(filePath);
+            long contentSize = contentSize(filePath, attributes.size());
+            if (!parsedFileCache.mayFit(contentSize)) {
+                return FileRows.parsed(parsePushedDown(filePath, fileName, contentSize, options));
+            }
+            Parsed parsed = load(filePath, fileName);
+            if (parsed.entry() == null) {
+                return FileRows.parsed(options.apply(parsed.fileData()));
+            }
+            try {
+                return FileRows.cached(parsed.entry(), options);
+            } catch (RuntimeException e) {
+                parsed.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new FileAccessException("Error reading file: " + fileName, e);
+        }
+    }
+
+    // Files larger than the cache: only the rows and columns the options keep are built, and not cached
+    private FileData parsePushedDown(Path filePath, String fileName, long contentSize, ParseOptions options)
+            throws IOException {
+        String extension = CompressedInput.extension(fileName);
+        long estimatedHeap = admissionController.estimateHeapCost(contentSize, extension);
+        try (ParseAdmissionController.Permit permit = admissionController.admit(fileName, estimatedHeap);
+             RequestTiming.Span span = RequestTiming.phase("parse")) {
+            return parseWholeFile(filePath, fileName, extension, options,
+                    new RowOffsetIndex.Recorder(rowOffsetIndexStore.getInterval()));
+        }
+    }
+
+    /**
+     * Returns {@code limit} rows from {@code offset} on. Served from the parse cache,
+     * decoding only the page, when the file is cached; otherwise CSV and text files with a current row-offset
+     * index are read by seeking to the nearest indexed row and parsing only the page.
+     */
+    public FileData parsePage(String reportPath, String fileName, int offset, int limit) {
+        return parsePage(resolveReportDirectory(reportPath), fileName, offset, limit);
+    }
+
+    public FileData parsePage(Path reportDirectory, String fileName, int offset, int limit) {
+        Path filePath = resolveFile(reportDirectory, fileName, true);
+        try {
+            String extension = CompressedInput.extension(fileName);
+            BasicFileAttributes attributes = nasAccessGuard.readAttributes(filePath);
+            try (ParsedFileCache.Entry cached = parsedFileCache.acquire(filePath)) {
+                if (cached != null && cached.isCurrent(attributes.size(), attributes.lastModifiedTime().toMillis())) {
+                    parsedFileCache.recordHit();
+                    return cached.readPage(offset, limit);
+                }
+            }
+            RowOffsetIndex index = isAppendable(fileName)
+                    ? rowOffsetIndexStore.get(filePath, attributes.size(), attributes.lastModifiedTime().toMillis())
+                    : null;
+            if (index != null) {
+                return readIndexedPage(filePath, fileName, extension, index, offset, limit);
+            }
+            if ("parquet".equals(extension) && CompressedInput.codec(fileName) == null) {
+                return readParquetPage(filePath, fileName, offset, limit);
+            }
+        } catch (IOException e) {
+            throw new FileAccessException("Error reading file: " + fileName, e);
+        }
+        return parseResolvedFile(filePath, fileName).page(offset, limit);
+    }
+
+    /**
+     * Returns the first {@code rows} rows without parsing the rest of the file. The
+     * total is exact when the file is cached, indexed or shorter than the preview;
+     * otherwise it is estimated from the bytes read so far, or from the sheet
+     * dimension of an XLSX file, and {@code totalRowsExact} is false. Previews are
+     * not cached.
+     */
+    public FileData previewFile(String reportPath, String fileName, int rows) {
+        Path filePath = resolveFile(resolveReportDirectory(reportPath), fileName, true);
+        try {
+            String extension = CompressedInput.extension(fileName);
+            BasicFileAttributes attributes = nasAccessGuard.readAttributes(filePath);
+            try (ParsedFileCache.Entry cached = parsedFileCache.acquire(filePath)) {
+                if (cached != null && cached.isCurrent(attributes.size(), attributes.lastModifiedTime().toMillis())) {
+                    parsedFileCache.recordHit();
+                    return exact(cached.readPage(0, rows));
+                }
+            }
+            RowOffsetIndex index = isAppendable(fileName)
+                    ? rowOffsetIndexStore.get(filePath, attributes.size(), attributes.lastModifiedTime().toMillis())
+                    : null;
+            if (index != null) {
+                return exact(readIndexedPage(filePath, fileName, extension, index, 0, rows));
+            }
             switch (extension) {
-                case "xlsx":
-                case "xls":
-                    return parseExcelFile(filePath, fileName);
                 case "csv":
-                    return parseCsvFile(filePath, fileName);
                 case "txt":
-                    return parseTextFile(filePath, fileName);
+                    return previewTextFile(filePath, fileName, "csv".equals(extension),
+                            contentSize(filePath, attributes.size()), rows);
+                case "xlsx":
+                    if (CompressedInput.codec(fileName) == null) {
+                        return previewXlsxFile(filePath, fileName, rows);
+                    }
+                    break;
+                case "parquet":
+                    if (CompressedInput.codec(fileName) == null) {
+                        return exact(readParquetPage(filePath, fileName, 0, rows));
+                    }
+                    break;
                 default:
-                    throw new FileAccessException("Unsupported file format: " + extension);
+                    break;
             }
         } catch (IOException e) {
             throw new FileAccessException("Error reading file: " + fileName, e);
         }
+        // Binary .xls has no streaming reader here, so it is parsed (and cached) whole
+        return exact(parseResolvedFile(filePath, fileName).page(0, rows));
+    }
+
+    private static FileData exact(FileData fileData) {
+        fileData.setTotalRowsExact(true);
+        return fileData;
     }
 
-    private FileData parseExcelFile(Path filePath, String fileName) throws IOException {
+    /**
+     * Reads the header and up to {@code rows} records, then peeks at the next one.
+     * If there is one, the total is extrapolated from the bytes the preview rows took.
+     */
+    private FileData previewTextFile(Path filePath, String fileName, boolean csv, long size, int rows)
+            throws IOException {
         List<String> headers = new ArrayList<>();
         List<Map<String, Object>> data = new ArrayList<>();
+        ColumnDictionaryEncoder.Session dictionary = dictionaryEncoder.newSession(fileName);
+        TemporalColumnParser.Session dates = temporalColumnParser.newSession(filePath);
+        CSVParser csvParser = newCsvParser();
+
+        try (RequestTiming.Span span = RequestTiming.phase("parse");
+             RecordScanner scanner = new RecordScanner(CompressedInput.open(filePath, nasAccessGuard), 0, csv)) {
+            String record = scanner.next();
+            String delimiter = null;
+            if (csv) {
+                if (record != null) {
+                    for (String header : parseCsvRecord(csvParser, record, fileName)) {
+                        headers.add(dictionary.header(header));
+                    }
+                    record = scanner.next();
+                }
+            } else if (record != null && (delimiter = detectDelimiter(record)) != null) {
+                for (String header : record.split(delimiter)) {
+                    headers.add(dictionary.header(header));
+                }
+                record = scanner.next();
+            } else {
+                headers.add("Content");
+            }
+
+            ParseOptions.RowPlan plan = ParseOptions.ALL.plan(headers);
+            long dataStart = scanner.recordStart();
+            for (; record != null; record = scanner.next()) {
+                if (!csv && record.trim().isEmpty()) {
+                    continue;
+                }
+                if (data.size() == rows) {
+                    break;
+                }
+                if (csv) {
+                    data.add(toCsvRow(parseCsvRecord(csvParser, record, fileName), plan, dates, dictionary));
+                } else if (delimiter != null) {
+                    data.add(toDelimitedRow(record, delimiter, plan, dates, dictionary));
+                } else {
+                    data.add(toContentRow(record, plan, dictionary));
+                }
+            }
+
+            dates.finish();
+            boolean complete = record == null;
+            long previewBytes = scanner.recordStart() - dataStart;
+            long total = complete || previewBytes <= 0
+                    ? data.size() + (complete ? 0 : 1)
+                    : Math.max(data.size() * (size - dataStart) / previewBytes, data.size() + 1L);
+            return preview(fileName, headers, data, total, complete);
+        }
+    }
+
+    private FileData previewXlsxFile(Path filePath, String fileName, int rows) throws IOException {
+        // The streaming reader holds the shared strings and the preview rows, not the sheet
+        long estimatedHeap = admissionController.estimateHeapCost(nasAccessGuard.readAttributes(filePath).size(), "csv");
+        XlsxPreviewReader.Result result;
+        try (ParseAdmissionController.Permit permit = admissionController.admit(fileName, estimatedHeap);
+             RequestTiming.Span span = RequestTiming.phase("parse")) {
+            result = XlsxPreviewReader.read(filePath, rows);
+        }
+        ColumnDictionaryEncoder.Session dictionary = dictionaryEncoder.newSession(fileName);
+        TemporalColumnParser.Session dates = temporalColumnParser.newSession(filePath);
+        List<String> headers = new ArrayList<>();
+        result.headers().forEach(header -> headers.add(dictionary.header(header)));
+        ParseOptions.RowPlan plan = ParseOptions.ALL.plan(headers);
+        List<Map<String, Object>> data = new ArrayList<>(result.rows().size());
+        for (Object[] cells : result.rows()) {
+            data.add(dates.row(plan, headers.size(), i -> i < cells.length ? cells[i] : "", dictionary::encode));
+        }
+        dates.finish();
+        return preview(fileName, headers, data, result.totalRows(), result.exact());
+    }
+
+    private static FileData preview(String fileName, List<String> headers, List<Map<String, Object>> data,
+                                    long total, boolean exact) {
+        return FileData.builder()
+                .fileName(fileName)
+                .headers(headers)
+                .data(data)
+                .totalRows((int) Math.min(total, Integer.MAX_VALUE))
+                .totalRowsExact(exact)
+                .build();
+    }
+
+    /**
+     * Makes sure the file is parsed and cached, and returns its cache entry with a
+     * reader reference held, plus the rows when they were parsed for this call and
+     * did not fit the cache. Returns null without parsing when the file is larger
+     * than the cache, so the caller can push its options into the parser instead.
+     * Callers close the result.
+     */
+    Parsed acquireParsed(String reportPath, String fileName) {
+        Path filePath = resolveFile(resolveReportDirectory(reportPath), fileName, true);
+        try {
+            BasicFileAttributes attributes = nasAccessGuard.readAttributes(filePath);
+            if (!parsedFileCache.mayFit(contentSize(filePath, attributes.size()))) {
+                return null;
+            }
+        } catch (IOException e) {
+            throw new FileAccessException("Error reading file: " + fileName, e);
+        }
+        return load(filePath, fileName);
+    }
+
+    /**
+     * Size and modification time of a report file, read before its rows so that
+     * results derived from them can be keyed by the version they came from.
+     */
+    public FileVersion version(Path reportDirectory, String fileName) {
+        Path filePath = resolveFile(reportDirectory, fileName, false);
+        try {
+            BasicFileAttributes attributes = nasAccessGuard.readAttributes(filePath);
+            return new FileVersion(filePath, attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            throw new FileAccessException("Error reading file: " + fileName, e);
+        }
+    }
+
+    public record FileVersion(Path path, long size, long lastModified) {
+    }
+
+    private FileData parseFile(Path reportDirectory, String fileName, boolean recordAccess) {
+        return parseResolvedFile(resolveFile(reportDirectory, fileName, recordAccess), fileName);
+    }
+
+    private Path resolveFile(Path reportDirectory, String fileName, boolean recordAccess) {
+        Path filePath = reportDirectory.resolve(fileName).normalize();
+        if (!filePath.startsWith(reportDirectory)) {
+            throw new SecurityException("Access denied: File outside of report directory");
+        }
+        try {
+            if (!nasAccessGuard.exists(filePath)) {
+                throw new FileAccessException("File not found: " + filePath);
+            }
+        } catch (IOException e) {
+            throw new FileAccessException("Error reading file: " + fileName, e);
+        }
+        if (recordAccess) {
+            Path relativePath = Paths.get(nasBasePath).normalize().relativize(filePath);
+            accessTracker.record(relativePath.toString().replace('\\', '/'));
+        }
+        return filePath;
+    }
+
+    private FileData parseResolvedFile(Path filePath, String fileName) {
+        try (Parsed parsed = load(filePath, fileName)) {
+            return parsed.fileData() != null ? parsed.fileData() : decodeCached(parsed.entry(), fileName, ParseOptions.ALL);
+        }
+    }
+
+    /**
+     * Decodes the rows of a cached file that pass the filters of {@code options}, and
+     * only their projected columns, under a permit sized to what is decoded. The
+     * filters are tested on the off-heap columns first.
+     */
+    private FileData decodeCached(ParsedFileCache.Entry cached, String fileName, ParseOptions options) {
+        ParseOptions.RowPlan plan = options.plan(cached.table().headers());
+        int[] rows = cached.matchingRows(plan);
+        long heapBytes = OffHeapTable.decodedBytes(rows.length, plan.headers().size());
+        try (ParseAdmissionController.Permit permit = admissionController.admit(fileName,
+                admissionController.estimateDecodeCost(heapBytes))) {
+            return cached.read(plan, rows);
+        }
+    }
+
+    /**
+     * Makes sure the current version of the file is parsed and cached. Returns its
+     * cache entry with a reader reference held, and the parsed rows too when this
+     * call parsed them; a file that does not fit the cache comes back as rows only.
+     */
+    private Parsed load(Path filePath, String fileName) {
+        try {
+            String extension = CompressedInput.extension(fileName);
+            BasicFileAttributes attributes = nasAccessGuard.readAttributes(filePath);
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+
+            ParsedFileCache.Entry cached = parsedFileCache.acquire(filePath);
+            if (cached != null && cached.isCurrent(size, lastModified)) {
+                parsedFileCache.recordHit();
+                return new Parsed(cached, null);
+            }
+            try (cached) {
+                if (cached != null && cached.mayHaveBeenAppended(size, lastModified)) {
+                    FileData appended = parseAppendedRows(filePath, fileName, extension, cached, size, lastModified);
+                    if (appended != null) {
+                        parsedFileCache.recordAppend();
+                        return new Parsed(parsedFileCache.acquire(filePath), appended);
+                    }
+                }
+            }
+            parsedFileCache.recordMiss();
+
+            long estimatedHeap = admissionController.estimateHeapCost(contentSize(filePath, size), extension);
+            RowOffsetIndex.Recorder rowOffsets = new RowOffsetIndex.Recorder(rowOffsetIndexStore.getInterval());
+            FileData fileData;
+            try (ParseAdmissionController.Permit permit = admissionController.admit(fileName, estimatedHeap);
+                 RequestTiming.Span span = RequestTiming.phase("parse")) {
+                fileData = parseWholeFile(filePath, fileName, extension, ParseOptions.ALL, rowOffsets);
+            }
+
+            long parsedBytes = -1;
+            long tailChecksum = 0;
+            if (isAppendable(fileName) && isUnchanged(filePath, size, lastModified)) {
+                rowOffsetIndexStore.put(filePath, rowOffsets.build(size, lastModified, fileData.getHeaders()));
+                if (endsWithNewline(filePath, size)) {
+                    parsedBytes = size;
+                    tailChecksum = tailChecksum(filePath, size);
+                }
+            }
+            parsedFileCache.put(filePath, fileData, size, lastModified, parsedBytes, tailChecksum);
+            return new Parsed(parsedFileCache.acquire(filePath), fileData);
+        } catch (IOException e) {
+            throw new FileAccessException("Error reading file: " + fileName, e);
+        }
+    }
+
+    /** A loaded file: its cache entry, or null if it did not fit, and its rows if they were just parsed. */
+    record Parsed(ParsedFileCache.Entry entry, FileData fileData) implements AutoCloseable {
+        @Override
+        public void close() {
+            if (entry != null) {
+                entry.close();
+            }
+        }
+    }
+
+    private FileData parseWholeFile(Path filePath, String fileName, String extension, ParseOptions options,
+                                    RowOffsetIndex.Recorder rowOffsets) throws IOException {
+        String codec = CompressedInput.codec(fileName);
+        // Only the text parsers read from a stream; workbooks need the whole file
+        if (codec != null && !APPENDABLE_EXTENSIONS.contains(extension)) {
+            throw new FileAccessException("Unsupported file format: " + extension + "." + codec);
+        }
+        switch (extension) {
+            case "xlsx":
+            case "xls":
+                return parseExcelFile(filePath, fileName, options);
+            case "csv":
+                return parseCsvFile(filePath, fileName, options, rowOffsets);
+            case "txt":
+                return parseTextFile(filePath, fileName, options, rowOffsets);
+            case "parquet":
+                return parseParquetFile(filePath, fileName, options);
+            default:
+                throw new FileAccessException("Unsupported file format: " + extension);
+        }
+    }
+
+    /**
+     * Parses only the bytes appended since the cached parse and merges them into
+     * the cached rows. Returns null when the cached prefix no longer matches the
+     * file or the new data does not end on a line boundary, so the caller falls
+     * back to a full parse.
+     */
+    private FileData parseAppendedRows(Path filePath, String fileName, String extension,
+                                       ParsedFileCache.Entry cached, long size, long lastModified) throws IOException {
+        if (tailChecksum(filePath, cached.getParsedBytes()) != cached.getTailChecksum()) {
+            log.debug("Cached prefix of {} changed, re-parsing whole file", filePath);
+            return null;
+        }
+
+        byte[] appendedBytes = readRange(filePath, cached.getParsedBytes(), size);
+        if (appendedBytes.length == 0 || appendedBytes[appendedBytes.length - 1] != '\n') {
+            return null;
+        }
+
+        String appendedText = new String(appendedBytes, StandardCharsets.UTF_8);
+        // The cached rows are decoded and merged under the same permit as the new ones
+        long estimatedHeap = admissionController.estimateDecodeCost(cached.decodedBytes()
+                + admissionController.estimateHeapCost(appendedBytes.length, extension));
+        List<Map<String, Object>> appendedRows = new ArrayList<>();
+        ColumnDictionaryEncoder.Session dictionary = dictionaryEncoder.newSession(fileName);
+        TemporalColumnParser.Session dates = temporalColumnParser.newSession(filePath);
+
+        FileData fileData;
+        try (ParseAdmissionController.Permit permit = admissionController.admit(fileName, estimatedHeap)) {
+            FileData previous = cached.readFileData();
+            ParseOptions.RowPlan plan = ParseOptions.ALL.plan(previous.getHeaders());
+
+            try (RequestTiming.Span span = RequestTiming.phase("parse")) {
+                if ("csv".equals(extension)) {
+                    try (CSVReader csvReader = new CSVReaderBuilder(new StringReader(appendedText)).withCSVParser(newCsvParser()).build()) {
+                        readCsvRows(csvReader, plan, appendedRows, dates, dictionary);
+                    }
+                } else {
+                    String delimiter;
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(nasAccessGuard.newInputStream(filePath), StandardCharsets.UTF_8))) {
+                        delimiter = detectDelimiter(reader.readLine());
+                    }
+                    appendedText.lines()
+                            .filter(line -> !line.trim().isEmpty())
+                            .map(line -> delimiter != null
+                                    ? toDelimitedRow(line, delimiter, plan, dates, dictionary)
+                                    : toContentRow(line, plan, dictionary))
+                            .forEach(appendedRows::add);
+                }
+            } catch (CsvValidationException e) {
+                throw new FileAccessException("Error parsing CSV file: " + fileName, e);
+            }
+            dates.finish();
+            dictionary.finish();
+
+            List<Map<String, Object>> merged = new ArrayList<>(previous.getData().size() + appendedRows.size());
+            merged.addAll(previous.getData());
+            merged.addAll(appendedRows);
+
+            fileData = FileData.builder()
+                    .fileName(fileName)
+                    .headers(previous.getHeaders())
+                    .data(merged)
+                    .totalRows(merged.size())
+                    .build();
+
+            parsedFileCache.put(filePath, fileData, size, lastModified, size, tailChecksum(filePath, size));
+        }
+        log.debug("Appended {} rows from {} new bytes of {}", appendedRows.size(), appendedBytes.length, filePath);
+        return fileData;
+    }
+
+    /**
+     * Seeks to the indexed row at or before {@code offset} and parses forward until
+     * the page is complete, so the cost depends on the page size and the index
+     * interval rather than on how deep the page is.
+     */
+    private FileData readIndexedPage(Path filePath, String fileName, String extension, RowOffsetIndex index,
+                                     int offset, int limit) throws IOException {
+        int from = Math.min(Math.max(offset, 0), index.getTotalRows());
+        int to = (int) Math.min((long) from + limit, index.getTotalRows());
+        List<Map<String, Object>> data = new ArrayList<>(to - from);
+        if (from == to) {
+            return new FileData(fileName, index.getHeaders(), data, index.getTotalRows());
+        }
+
+        boolean csv = "csv".equals(extension);
+        long averageRowBytes = index.getSize() / Math.max(index.getTotalRows(), 1);
+        long estimatedHeap = admissionController.estimateHeapCost(
+                averageRowBytes * (to - from + index.getInterval()), extension);
+        ColumnDictionaryEncoder.Session dictionary = dictionaryEncoder.newSession(fileName);
+        TemporalColumnParser.Session dates = temporalColumnParser.newSession(filePath);
+        List<String> headers = new ArrayList<>(index.getHeaders().size());
+        index.getHeaders().forEach(header -> headers.add(dictionary.header(header)));
+        ParseOptions.RowPlan plan = ParseOptions.ALL.plan(headers);
+        CSVParser csvParser = newCsvParser();
+        long start = index.offsetBefore(from);
+
+        try (ParseAdmissionController.Permit permit = admissionController.admit(fileName, estimatedHeap);
+             RequestTiming.Span span = RequestTiming.phase("parse");
+             FileChannel channel = nasAccessGuard.call(filePath, () -> FileChannel.open(filePath));
+             InputStream in = nasAccessGuard.guard(filePath, Channels.newInputStream(channel.position(start)))) {
+            RecordScanner scanner = new RecordScanner(in, start, csv);
+            int row = from - from % index.getInterval();
+            String record;
+            while (row < to && (record = scanner.next()) != null) {
+                if (!csv && record.trim().isEmpty()) {
+                    continue;
+                }
+                if (row++ < from) {
+                    continue;
+                }
+                if (csv) {
+                    data.add(toCsvRow(parseCsvRecord(csvParser, record, fileName), plan, dates, dictionary));
+                } else if (index.getDelimiter() != null) {
+                    data.add(toDelimitedRow(record, index.getDelimiter(), plan, dates, dictionary));
+                } else {
+                    data.add(toContentRow(record, plan, dictionary));
+                }
+            }
+        }
+        dates.finish();
+        dictionary.finish();
+        rowOffsetIndexStore.recordPage();
+        return new FileData(fileName, headers, data, index.getTotalRows());
+    }
+
+    // Compressed files are only ever rewritten whole, and their offsets cannot be seeked to
+    private static boolean isAppendable(String fileName) {
+        return CompressedInput.codec(fileName) == null
+                && APPENDABLE_EXTENSIONS.contains(CompressedInput.extension(fileName));
+    }
+
+    /**
+     * Bytes of content behind {@code size} bytes on disk. For compressed files this is
+     * the size the file records, or {@code app.parse.compressed-expansion} times the
+     * compressed size when it records none.
+     */
+    private long contentSize(Path filePath, long size) throws IOException {
+        if (CompressedInput.codec(filePath.getFileName().toString()) == null) {
+            return size;
+        }
+        long contentSize = nasAccessGuard.call(filePath, () -> CompressedInput.contentSize(filePath));
+        return contentSize >= 0 ? contentSize : (long) (size * compressedExpansion);
+    }
+
+    private boolean isUnchanged(Path filePath, long size, long lastModified) throws IOException {
+        BasicFileAttributes attributes = nasAccessGuard.readAttributes(filePath);
+        return attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified;
+    }
+
+    private boolean endsWithNewline(Path filePath, long size) throws IOException {
+        if (size == 0) {
+            return false;
+        }
+        byte[] last = readRange(filePath, size - 1, size);
+        return last.length == 1 && last[0] == '\n';
+    }
+
+    // CRC32 of the block that ends at the given offset, used to detect rewrites of the parsed prefix
+    private long tailChecksum(Path filePath, long end) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(readRange(filePath, Math.max(0, end - TAIL_BLOCK_SIZE), end));
+        return crc.getValue();
+    }
+
+    private byte[] readRange(Path filePath, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        nasAccessGuard.call(filePath, () -> {
+            try (SeekableByteChannel channel = Files.newByteChannel(filePath)) {
+                channel.position(start);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading until the range is filled or the file ends
+                }
+            }
+            return null;
+        });
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private FileData parseExcelFile(Path filePath, String fileName, ParseOptions options) throws IOException {
+        List<String> headers = new ArrayList<>();
+        List<Map<String, Object>> data = new ArrayList<>();
+        ColumnDictionaryEncoder.Session dictionary = dictionaryEncoder.newSession(fileName);
+        TemporalColumnParser.Session dates = temporalColumnParser.newWholeFileSession(filePath);
         
-        try (InputStream inputStream = Files.newInputStream(filePath)) {
+        try (InputStream inputStream = nasAccessGuard.newInputStream(filePath)) {
             Workbook workbook;
             if (fileName.endsWith(".xlsx")) {
                 workbook = new XSSFWorkbook(inputStream);
@@ -69,26 +703,26 @@ public class FileParsingService {
             if (rowIterator.hasNext()) {
                 Row headerRow = rowIterator.next();
                 for (Cell cell : headerRow) {
-                    headers.add(getCellValueAsString(cell));
+                    headers.add(dictionary.header(getCellValueAsString(cell)));
                 }
             }
             
-            // Read data rows
+            // Read data rows; only filtered and projected cells are converted
+            ParseOptions.RowPlan plan = options.plan(headers);
             while (rowIterator.hasNext()) {
                 Row row = rowIterator.next();
-                Map<String, Object> rowData = new HashMap<>();
-                
-                for (int i = 0; i < headers.size(); i++) {
-                    Cell cell = row.getCell(i);
-                    String header = headers.get(i);
-                    Object value = getCellValue(cell);
-                    rowData.put(header, value);
+                Map<String, Object> rowData = dates.row(plan, headers.size(),
+                        i -> getCellValue(row.getCell(i)), dictionary::encode);
+                if (rowData != null) {
+                    data.add(rowData);
                 }
-                data.add(rowData);
             }
+            headers = plan.headers();
             
             workbook.close();
         }
+        dates.finish();
+        dictionary.finish();
         
         return FileData.builder()
                 .fileName(fileName)
@@ -98,31 +732,36 @@ public class FileParsingService {
                 .build();
     }
 
-    private FileData parseCsvFile(Path filePath, String fileName) throws IOException {
+    private FileData parseCsvFile(Path filePath, String fileName, ParseOptions options,
+                                  RowOffsetIndex.Recorder rowOffsets) throws IOException {
         List<String> headers = new ArrayList<>();
         List<Map<String, Object>> data = new ArrayList<>();
+        ColumnDictionaryEncoder.Session dictionary = dictionaryEncoder.newSession(fileName);
+        TemporalColumnParser.Session dates = temporalColumnParser.newWholeFileSession(filePath);
+        CSVParser csvParser = newCsvParser();
         
-        try (Reader reader = Files.newBufferedReader(filePath);
-             CSVReader csvReader = new CSVReaderBuilder(reader).build()) {
-            
-            String[] headerArray = csvReader.readNext();
-            if (headerArray != null) {
-                headers.addAll(Arrays.asList(headerArray));
+        // Records are split here rather than by CSVReader so that each row's byte offset is known
+        try (RecordScanner scanner = new RecordScanner(CompressedInput.open(filePath, nasAccessGuard), 0, true)) {
+            String headerRecord = scanner.next();
+            if (headerRecord != null) {
+                for (String header : parseCsvRecord(csvParser, headerRecord, fileName)) {
+                    headers.add(dictionary.header(header));
+                }
             }
             
-            String[] row;
-            while ((row = csvReader.readNext()) != null) {
-                Map<String, Object> rowData = new HashMap<>();
-                for (int i = 0; i < Math.min(row.length, headers.size()); i++) {
-                    String header = headers.get(i);
-                    Object value = parseValue(row[i]);
-                    rowData.put(header, value);
+            ParseOptions.RowPlan plan = options.plan(headers);
+            String record;
+            while ((record = scanner.next()) != null) {
+                rowOffsets.row(scanner.recordStart());
+                Map<String, Object> rowData = toCsvRow(parseCsvRecord(csvParser, record, fileName), plan, dates, dictionary);
+                if (rowData != null) {
+                    data.add(rowData);
                 }
-                data.add(rowData);
             }
-        } catch (CsvValidationException e) {
-            throw new FileAccessException("Error parsing CSV file: " + fileName, e);
+            headers = plan.headers();
         }
+        dates.finish();
+        dictionary.finish();
         
         return FileData.builder()
                 .fileName(fileName)
@@ -132,65 +771,167 @@ public class FileParsingService {
                 .build();
     }
 
-    private FileData parseTextFile(Path filePath, String fileName) throws IOException {
-        List<String> lines = Files.readAllLines(filePath);
-        
-        if (lines.isEmpty()) {
-            return FileData.builder()
-                    .fileName(fileName)
-                    .headers(List.of("Content"))
-                    .data(List.of())
-                    .totalRows(0)
-                    .build();
+    private FileData parseParquetFile(Path filePath, String fileName, ParseOptions options) throws IOException {
+        try (ParquetFileTable table = nasAccessGuard.call(filePath, () -> ParquetFileTable.open(filePath))) {
+            return readParquetRows(table, fileName, options, 0, Long.MAX_VALUE,
+                    temporalColumnParser.newWholeFileSession(filePath));
         }
-        
-        // Try to detect if it's tab-delimited or space-delimited
-        String firstLine = lines.get(0);
-        String delimiter = detectDelimiter(firstLine);
-        
+    }
+
+    /**
+     * Reads one page of a Parquet file, decoding only the row groups that hold it.
+     * The total comes from the footer, so even the last page of a large file is cheap.
+     */
+    private FileData readParquetPage(Path filePath, String fileName, int offset, int limit) throws IOException {
+        try (ParquetFileTable table = nasAccessGuard.call(filePath, () -> ParquetFileTable.open(filePath))) {
+            long from = Math.max(offset, 0);
+            long to = from + limit;
+            long estimatedHeap = admissionController.estimateHeapCost(table.compressedBytes(from, to), "parquet");
+            FileData page;
+            try (ParseAdmissionController.Permit permit = admissionController.admit(fileName, estimatedHeap);
+                 RequestTiming.Span span = RequestTiming.phase("parse")) {
+                page = readParquetRows(table, fileName, ParseOptions.ALL, from, to,
+                        temporalColumnParser.newSession(filePath));
+            }
+            page.setTotalRows((int) Math.min(table.rowCount(), Integer.MAX_VALUE));
+            return page;
+        }
+    }
+
+    private FileData readParquetRows(ParquetFileTable table, String fileName, ParseOptions options,
+                                     long from, long to, TemporalColumnParser.Session dates) throws IOException {
         List<String> headers = new ArrayList<>();
         List<Map<String, Object>> data = new ArrayList<>();
-        
-        if (delimiter != null) {
-            // Parse as delimited text
-            String[] headerArray = firstLine.split(delimiter);
-            headers.addAll(Arrays.asList(headerArray));
-            
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i);
-                if (line.trim().isEmpty()) continue;
-                
-                String[] values = line.split(delimiter);
-                Map<String, Object> rowData = new HashMap<>();
-                
-                for (int j = 0; j < Math.min(values.length, headers.size()); j++) {
-                    String header = headers.get(j);
-                    Object value = parseValue(values[j].trim());
-                    rowData.put(header, value);
-                }
+        ColumnDictionaryEncoder.Session dictionary = dictionaryEncoder.newSession(fileName);
+        table.headers().forEach(header -> headers.add(dictionary.header(header)));
+
+        ParseOptions.RowPlan plan = options.plan(headers);
+        table.scan(plan, dates::mayMatch, from, to, valueAt -> {
+            Map<String, Object> rowData = dates.row(plan, headers.size(), valueAt, dictionary::encode);
+            if (rowData != null) {
                 data.add(rowData);
             }
-        } else {
-            // Treat as single column with line content
-            headers.add("Content");
-            for (String line : lines) {
-                if (!line.trim().isEmpty()) {
-                    Map<String, Object> rowData = new HashMap<>();
-                    rowData.put("Content", line);
-                    data.add(rowData);
-                }
-            }
+        });
+        dates.finish();
+        dictionary.finish();
+        if (table.skippedGroups() > 0) {
+            log.debug("Skipped {} row groups of {} whose statistics rule out the filters", table.skippedGroups(), fileName);
         }
-        
+
         return FileData.builder()
                 .fileName(fileName)
-                .headers(headers)
+                .headers(plan.headers())
                 .data(data)
                 .totalRows(data.size())
                 .build();
     }
 
-    private String detectDelimiter(String line) {
+    private void readCsvRows(CSVReader csvReader, ParseOptions.RowPlan plan, List<Map<String, Object>> data,
+                             TemporalColumnParser.Session dates, ColumnDictionaryEncoder.Session dictionary) throws IOException, CsvValidationException {
+        String[] row;
+        while ((row = csvReader.readNext()) != null) {
+            data.add(toCsvRow(row, plan, dates, dictionary));
+        }
+    }
+
+    /**
+     * RFC 4180 parsing: quotes inside a field are doubled, and backslashes are
+     * plain characters. RecordScanner splits records by the same rule, so the
+     * row-offset index and the parser agree on where each record starts.
+     */
+    private static CSVParser newCsvParser() {
+        return new CSVParserBuilder().withEscapeChar(ICSVParser.NULL_CHARACTER).build();
+    }
+
+    private String[] parseCsvRecord(CSVParser csvParser, String record, String fileName) throws IOException {
+        String[] values = csvParser.parseLine(record);
+        if (csvParser.isPending()) {
+            throw new FileAccessException("Error parsing CSV file: " + fileName + " (unterminated quoted field)");
+        }
+        return values;
+    }
+
+    // Returns null when the plan's filters reject the row
+    private Map<String, Object> toCsvRow(String[] row, ParseOptions.RowPlan plan, TemporalColumnParser.Session dates,
+                                         ColumnDictionaryEncoder.Session dictionary) {
+        return dates.row(plan, Math.min(row.length, plan.columnCount()),
+                i -> parseValue(row[i]), dictionary::encode);
+    }
+
+    private FileData parseTextFile(Path filePath, String fileName, ParseOptions options,
+                                   RowOffsetIndex.Recorder rowOffsets) throws IOException {
+        try (RecordScanner scanner = new RecordScanner(CompressedInput.open(filePath, nasAccessGuard), 0, false)) {
+            String firstLine = scanner.next();
+            
+            if (firstLine == null) {
+                return FileData.builder()
+                        .fileName(fileName)
+                        .headers(List.of("Content"))
+                        .data(List.of())
+                        .totalRows(0)
+                        .build();
+            }
+            
+            // Try to detect if it's tab-delimited or space-delimited
+            String delimiter = detectDelimiter(firstLine);
+            rowOffsets.delimiter(delimiter);
+            
+            List<String> headers = new ArrayList<>();
+            List<Map<String, Object>> data = new ArrayList<>();
+            ColumnDictionaryEncoder.Session dictionary = dictionaryEncoder.newSession(fileName);
+            TemporalColumnParser.Session dates = temporalColumnParser.newWholeFileSession(filePath);
+            
+            if (delimiter != null) {
+                // Parse as delimited text
+                String[] headerArray = firstLine.split(delimiter);
+                for (String header : headerArray) {
+                    headers.add(dictionary.header(header));
+                }
+            } else {
+                // Treat as single column with line content
+                headers.add("Content");
+            }
+            
+            ParseOptions.RowPlan plan = options.plan(headers);
+            String line = delimiter != null ? scanner.next() : firstLine;
+            for (; line != null; line = scanner.next()) {
+                if (line.trim().isEmpty()) continue;
+                
+                rowOffsets.row(scanner.recordStart());
+                Map<String, Object> rowData = delimiter != null
+                        ? toDelimitedRow(line, delimiter, plan, dates, dictionary)
+                        : toContentRow(line, plan, dictionary);
+                if (rowData != null) {
+                    data.add(rowData);
+                }
+            }
+            headers = plan.headers();
+            dates.finish();
+            dictionary.finish();
+            
+            return FileData.builder()
+                    .fileName(fileName)
+                    .headers(headers)
+                    .data(data)
+                    .totalRows(data.size())
+                    .build();
+        }
+    }
+
+    private Map<String, Object> toDelimitedRow(String line, String delimiter, ParseOptions.RowPlan plan,
+                                               TemporalColumnParser.Session dates,
+                                               ColumnDictionaryEncoder.Session dictionary) {
+        String[] values = line.split(delimiter);
+        return dates.row(plan, Math.min(values.length, plan.columnCount()),
+                j -> parseValue(values[j].trim()), dictionary::encode);
+    }
+
+    private Map<String, Object> toContentRow(String line, ParseOptions.RowPlan plan,
+                                             ColumnDictionaryEncoder.Session dictionary) {
+        return plan.row(1, i -> line, dictionary::encode);
+    }
+
+    static String detectDelimiter(String line) {
         String[] delimiters = {"\t", "\\|", ";", " {2,}"}; // Tab, pipe, semicolon, multiple spaces
         
         for (String delimiter : delimiters) {
@@ -212,7 +953,7 @@ public class FileParsingService {
                 return cell.getStringCellValue();
             case NUMERIC:
                 if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
+                    return toTemporalValue(cell);
                 } else {
                     double numericValue = cell.getNumericCellValue();
                     if (numericValue == (long) numericValue) {
@@ -232,6 +973,14 @@ public class FileParsingService {
         }
     }
 
+    // Date cells without a time of day become dates; the workbook's display format is not applied
+    private TemporalValue toTemporalValue(Cell cell) {
+        LocalDateTime dateTime = cell.getLocalDateTimeCellValue();
+        return dateTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? TemporalValue.ofDate(dateTime.toLocalDate())
+                : TemporalValue.ofDateTime(dateTime);
+    }
+
     private String getCellValueAsString(Cell cell) {
         if (cell == null) {
             return "";
@@ -242,7 +991,7 @@ public class FileParsingService {
                 return cell.getStringCellValue();
             case NUMERIC:
                 if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
+                    return toTemporalValue(cell).toString();
                 } else {
                     double numericValue = cell.getNumericCellValue();
                     if (numericValue == (long) numericValue) {
@@ -0,0 +1,262 @@
+package com.reporter.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row counts for the file list, without parsing. CSV and text files count their
+ * line breaks over a memory-mapped file eight bytes at a time, XLSX files read
+ * the sheet's {@code dimension} and Parquet files their footer. Counting runs on
+ * a background thread, so listing a report never waits for it: a file shows its
+ * count from the first scan after the count is done. Counts are kept per file size
+ * and modification time, so only files that changed since are counted again.
+ * Files are opened and read through the NAS guard, so a hung mount times the
+ * count out and counts wait while its circuit is open.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileRowCounter {
+
+    // Each chunk is paged in by one NAS call, so it has to arrive within app.nas.timeout-ms
+    private static final long MAP_CHUNK_BYTES = 16L * 1024 * 1024;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long QUOTES = 0x2222222222222222L;
+    private static final int FIRST_LINE_MAX_BYTES = 64 * 1024;
+    private static final Set<String> COUNTABLE = Set.of("csv", "txt", "xlsx", "parquet");
+
+    @Value("${app.row-count.max-entries}")
+    private int maxEntries;
+
+    @Value("${app.row-count.max-file-mb}")
+    private long maxFileMb;
+
+    private final RowOffsetIndexStore rowOffsetIndexStore;
+    private final NasAccessGuard nasAccessGuard;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Path, Count> counts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Count> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // Files queued or being counted, so repeated scans do not queue them twice
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+    private Timer scanTimer;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        scanTimer = Timer.builder("reporter.files.row-count.scans")
+                .description("Files read to count their rows for the file list")
+                .register(meterRegistry);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "row-count");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Data rows of the file, not counting a header row, or null when the format has
+     * no cheap count, the file is compressed or larger than {@code app.row-count.max-file-mb},
+     * or the count is still running. Text files count blank lines too, which the parser skips.
+     */
+    public Long rowCount(Path filePath, long size, long lastModified) {
+        synchronized (this) {
+            Count cached = counts.get(filePath);
+            if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+                return cached.rows();
+            }
+        }
+        String fileName = filePath.getFileName().toString();
+        String extension = CompressedInput.extension(fileName);
+        if (CompressedInput.codec(fileName) != null || size > maxFileMb * 1024 * 1024
+                || !COUNTABLE.contains(extension)) {
+            store(filePath, size, lastModified, null);
+            return null;
+        }
+        // An index from an earlier parse already has the exact count
+        RowOffsetIndex index = "xlsx".equals(extension) || "parquet".equals(extension) ? null
+                : rowOffsetIndexStore.get(filePath, size, lastModified);
+        if (index != null) {
+            long rows = index.getTotalRows();
+            store(filePath, size, lastModified, rows);
+            return rows;
+        }
+        if (pending.add(filePath)) {
+            try {
+                executor.execute(() -> countLater(filePath, extension, size, lastModified));
+            } catch (RejectedExecutionException e) {
+                pending.remove(filePath);
+            }
+        }
+        return null;
+    }
+
+    private void countLater(Path filePath, String extension, long size, long lastModified) {
+        try {
+            if (!nasAccessGuard.isAvailable(filePath)) {
+                // Counted again by the first scan after the mount answers
+                return;
+            }
+            store(filePath, size, lastModified, count(filePath, extension));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cannot count rows of {}: {}", filePath, e.getMessage());
+        } finally {
+            pending.remove(filePath);
+        }
+    }
+
+    private synchronized void store(Path filePath, long size, long lastModified, Long rows) {
+        counts.put(filePath, new Count(size, lastModified, rows));
+    }
+
+    private Long count(Path filePath, String extension) throws IOException {
+        switch (extension) {
+            case "csv":
+            case "txt": {
+                long start = System.nanoTime();
+                long rows = textRows(filePath, "csv".equals(extension));
+                scanTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return rows;
+            }
+            case "xlsx": {
+                long rows = nasAccessGuard.call(filePath, () -> XlsxPreviewReader.dimensionRows(filePath));
+                return rows >= 0 ? rows : null;
+            }
+            case "parquet":
+                return nasAccessGuard.call(filePath, () -> {
+                    try (ParquetFileTable table = ParquetFileTable.open(filePath)) {
+                        return table.rowCount();
+                    }
+                });
+            default:
+                return null;
+        }
+    }
+
+    private long textRows(Path filePath, boolean csv) throws IOException {
+        try (FileChannel channel = nasAccessGuard.call(filePath, () -> FileChannel.open(filePath))) {
+            long records = countRecords(filePath, channel, csv);
+            // CSV files and delimited text files start with a header row
+            boolean header = csv || (records > 0
+                    && FileParsingService.detectDelimiter(nasAccessGuard.call(filePath, () -> firstLine(channel))) != null);
+            return Math.max(records - (header ? 1 : 0), 0);
+        }
+    }
+
+    // Maps a chunk and pages it in on the mount's threads, so scanning it does not touch the NAS
+    private MappedByteBuffer map(Path filePath, FileChannel channel, long position, long size) throws IOException {
+        return nasAccessGuard.call(filePath, () -> channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(MAP_CHUNK_BYTES, size - position)).load());
+    }
+
+    /**
+     * Lines in the file, counting an unterminated last line. CSV files fall back to a
+     * quote-aware byte scan when they contain quotes, since quoted fields may hold line breaks.
+     */
+    long countRecords(Path filePath, FileChannel channel, boolean quoteAware) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return 0;
+        }
+        long newlines = 0;
+        boolean quoted = false;
+        byte last = 0;
+        for (long position = 0; position < size; position += MAP_CHUNK_BYTES) {
+            MappedByteBuffer buffer = map(filePath, channel, position, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int limit = buffer.limit();
+            int i = 0;
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                long word = buffer.getLong(i);
+                newlines += Long.bitCount(matchingBytes(word, NEWLINES));
+                quoted |= quoteAware && matchingBytes(word, QUOTES) != 0;
+            }
+            for (; i < limit; i++) {
+                byte b = buffer.get(i);
+                newlines += b == '\n' ? 1 : 0;
+                quoted |= quoteAware && b == '"';
+            }
+            last = buffer.get(limit - 1);
+        }
+        if (quoted) {
+            return countQuotedRecords(filePath, channel, size);
+        }
+        return newlines + (last != '\n' ? 1 : 0);
+    }
+
+    // Same record rule as RecordScanner: line breaks inside double quotes do not end a record
+    private long countQuotedRecords(Path filePath, FileChannel channel, long size) throws IOException {
+        long records = 0;
+        boolean inQuotes = false;
+        byte last = 0;
+        for (long position = 0; position < size; position += MAP_CHUNK_BYTES) {
+            MappedByteBuffer buffer = map(filePath, channel, position, size);
+            int limit = buffer.limit();
+            for (int i = 0; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    records++;
+                }
+            }
+            last = buffer.get(limit - 1);
+        }
+        return records + (last != '\n' ? 1 : 0);
+    }
+
+    /** High bit set in every byte of {@code word} equal to the byte repeated in {@code pattern}. */
+    private static long matchingBytes(long word, long pattern) {
+        long zeroWhereEqual = word ^ pattern;
+        long highBitWhereNonZero = (zeroWhereEqual & LOW_BITS) + LOW_BITS;
+        return ~(highBitWhereNonZero | zeroWhereEqual | LOW_BITS);
+    }
+
+    private static String firstLine(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(FIRST_LINE_MAX_BYTES, channel.size()));
+        channel.read(buffer, 0);
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        int end = text.indexOf('\n');
+        String line = end >= 0 ? text.substring(0, end) : text;
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    /** A count for one file version. */
+    private record Count(long size, long lastModified, Long rows) {
+    }
+}
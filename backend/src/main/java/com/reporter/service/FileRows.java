@@ -0,0 +1,94 @@
+package com.reporter.service;
+
+import com.reporter.model.FileData;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The rows of one file passing a request's filters, for requests that walk them or
+ * pick them by position: exports, queries and diffs. Rows of a cached file are
+ * decoded one at a time from its off-heap table, which stays alive until
+ * {@link #close()}, so the request never holds a heap copy of the file. Files that
+ * do not fit the parse cache come as the rows parsed for the request.
+ */
+public final class FileRows implements AutoCloseable {
+
+    private final ParsedFileCache.Entry entry;
+    private final ParseOptions.RowPlan plan;
+    // Positions in the cached table of the rows passing the plan's filters
+    private final int[] positions;
+    private final FileData fileData;
+
+    private FileRows(ParsedFileCache.Entry entry, ParseOptions.RowPlan plan, int[] positions, FileData fileData) {
+        this.entry = entry;
+        this.plan = plan;
+        this.positions = positions;
+        this.fileData = fileData;
+    }
+
+    /** Takes over the entry's reader reference; closing the rows gives it back. */
+    static FileRows cached(ParsedFileCache.Entry entry, ParseOptions options) {
+        ParseOptions.RowPlan plan = options.plan(entry.table().headers());
+        return new FileRows(entry, plan, entry.matchingRows(plan), null);
+    }
+
+    static FileRows parsed(FileData fileData) {
+        return new FileRows(null, null, null, fileData);
+    }
+
+    public List<String> getHeaders() {
+        return fileData != null ? fileData.getHeaders() : plan.headers();
+    }
+
+    public int size() {
+        return fileData != null ? fileData.getData().size() : positions.length;
+    }
+
+    /** The {@code index}-th matching row, in file order. */
+    public Map<String, Object> row(int index) {
+        return fileData != null ? fileData.getData().get(index) : entry.table().row(plan, positions[index]);
+    }
+
+    /** The matching rows in file order, decoded as the stream is consumed. */
+    public Stream<Map<String, Object>> stream() {
+        return fileData != null ? fileData.getData().stream() : IntStream.range(0, positions.length).mapToObj(this::row);
+    }
+
+    /**
+     * The matching rows in the file view's order by {@code column}, decoded as the
+     * stream is consumed, or null when the rows are not cached. The order comes from
+     * the cached table's primitive sort ranks, as for sorted pages; ties keep file order.
+     */
+    public Stream<Map<String, Object>> sorted(String column, boolean descending) {
+        if (fileData != null) {
+            return null;
+        }
+        OffHeapTable table = entry.table();
+        int index = table.headers().indexOf(column);
+        if (index < 0) {
+            return stream();
+        }
+        // Collators are not thread-safe, so each sort gets its own
+        int[] ranks = table.sortRanks(index, Collator.getInstance(Locale.ROOT));
+        int maxRank = SortIndexService.maxRank(ranks);
+        long[] order = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            order[i] = SortIndexService.pack(ranks[positions[i]], maxRank, descending, positions[i]);
+        }
+        Arrays.sort(order);
+        return Arrays.stream(order).mapToObj(packed -> table.row(plan, (int) packed));
+    }
+
+    @Override
+    public void close() {
+        if (entry != null) {
+            entry.close();
+        }
+    }
+}
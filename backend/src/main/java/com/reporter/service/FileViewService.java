@@ -0,0 +1,149 @@
+package com.reporter.service;
+
+import com.reporter.dto.FileViewCriteria;
+import com.reporter.model.FileData;
+import com.reporter.model.TemporalValue;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Applies the file view's column filters and sort order on the server with the
+ * same rules as {@code DataTable}: case-insensitive substring filters and a sort
+ * that compares numbers numerically, dates chronologically and everything else as text.
+ */
+@Service
+public class FileViewService {
+
+    public static final String FILTER_PREFIX = "filter.";
+
+    /**
+     * Reads {@code filter.<column>}, {@code sort}, {@code direction} and the
+     * comma-separated {@code columns} from the request parameters; any other
+     * parameters are ignored.
+     */
+    public FileViewCriteria criteria(Map<String, String> params) {
+        FileViewCriteria criteria = new FileViewCriteria();
+        params.forEach((name, value) -> {
+            if (name.startsWith(FILTER_PREFIX) && value != null && !value.isEmpty()) {
+                criteria.getFilters().put(name.substring(FILTER_PREFIX.length()), value);
+            }
+        });
+        String sort = params.get("sort");
+        criteria.setSort(sort != null && !sort.isEmpty() ? sort : null);
+        criteria.setDescending("desc".equalsIgnoreCase(params.get("direction")));
+        String columns = params.get("columns");
+        if (columns != null && !columns.isBlank()) {
+            criteria.setColumns(Arrays.stream(columns.split(","))
+                    .map(String::trim)
+                    .filter(column -> !column.isEmpty())
+                    .collect(Collectors.toList()));
+        }
+        return criteria;
+    }
+
+    public Stream<Map<String, Object>> rows(FileData fileData, FileViewCriteria criteria) {
+        Stream<Map<String, Object>> rows = fileData.getData().stream();
+        for (Map.Entry<String, String> filter : criteria.getFilters().entrySet()) {
+            rows = rows.filter(matches(filter.getKey(), filter.getValue()));
+        }
+        return sorted(rows, criteria);
+    }
+
+    /**
+     * The view of rows opened with {@code ParseOptions.from(criteria)}, which already
+     * applied the filters. Cached rows are sorted on the table's sort ranks, so only
+     * row positions are held and each row is decoded as it is read.
+     */
+    public Stream<Map<String, Object>> rows(FileRows rows, FileViewCriteria criteria) {
+        if (criteria.getSort() == null) {
+            return rows.stream();
+        }
+        Stream<Map<String, Object>> sorted = rows.sorted(criteria.getSort(), criteria.isDescending());
+        return sorted != null ? sorted : sorted(rows.stream(), criteria);
+    }
+
+    private Stream<Map<String, Object>> sorted(Stream<Map<String, Object>> rows, FileViewCriteria criteria) {
+        if (criteria.getSort() == null) {
+            return rows;
+        }
+        Comparator<Map<String, Object>> comparator = comparator(criteria.getSort());
+        return rows.sorted(criteria.isDescending() ? comparator.reversed() : comparator);
+    }
+
+    // totalRows becomes the number of matching rows so clients page through the view
+    public FileData view(FileData fileData, FileViewCriteria criteria) {
+        if (criteria.isEmpty()) {
+            return fileData;
+        }
+        List<Map<String, Object>> rows = rows(fileData, criteria).collect(Collectors.toList());
+        return FileData.builder()
+                .fileName(fileData.getFileName())
+                .headers(fileData.getHeaders())
+                .data(rows)
+                .totalRows(rows.size())
+                .build();
+    }
+
+    /**
+     * Renders a cell as text for filtering and export; doubles are written without
+     * exponent so large values read the same as in the browser.
+     */
+    public static String asText(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Double number && Double.isFinite(number)) {
+            return BigDecimal.valueOf(number).stripTrailingZeros().toPlainString();
+        }
+        return value.toString();
+    }
+
+    /** The filter rule: the cell's text contains the lower-case needle, ignoring case. */
+    public static boolean matches(Object value, String lowerCaseNeedle) {
+        return asText(value).toLowerCase(Locale.ROOT).contains(lowerCaseNeedle);
+    }
+
+    private Predicate<Map<String, Object>> matches(String column, String filterValue) {
+        String needle = filterValue.toLowerCase(Locale.ROOT);
+        return row -> matches(row.get(column), needle);
+    }
+
+    private Comparator<Map<String, Object>> comparator(String column) {
+        // Collators are not thread-safe, so each sort gets its own
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        return (a, b) -> {
+            Object left = a.get(column);
+            Object right = b.get(column);
+            int leftRank = typeRank(left);
+            int rightRank = typeRank(right);
+            if (leftRank != rightRank) {
+                // Keep mixed columns consistently ordered: numbers, then dates, then text
+                return Integer.compare(leftRank, rightRank);
+            }
+            if (leftRank == 0) {
+                return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+            }
+            if (leftRank == 1) {
+                return Long.compare(((TemporalValue) left).getEpochMillis(), ((TemporalValue) right).getEpochMillis());
+            }
+            return collator.compare(asText(left), asText(right));
+        };
+    }
+
+    private static int typeRank(Object value) {
+        if (value instanceof Number) {
+            return 0;
+        }
+        return value instanceof TemporalValue ? 1 : 2;
+    }
+}
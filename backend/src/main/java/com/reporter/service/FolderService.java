@@ -2,6 +2,8 @@ package com.reporter.service;
 
 import com.reporter.dto.FolderItem;
 import com.reporter.exception.FileAccessException;
+import com.reporter.exception.NasUnavailableException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -13,69 +15,133 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FolderService {
 
+    // Listings kept to answer from while a mount is not responding
+    private static final int CACHED_LISTINGS = 256;
+
     @Value("${app.nas.base-path}")
     private String basePath;
 
+    private final NasAccessGuard nasAccessGuard;
+
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private final Map<Path, List<FolderItem>> lastListings = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, List<FolderItem>> eldest) {
+                    return size() > CACHED_LISTINGS;
+                }
+            });
+
+    /**
+     * Lists the subfolders of the path. Each NAS call (the listing, and every
+     * child's attributes and subfolder check) gets its own timeout, so a large
+     * folder that keeps answering is not mistaken for a hung mount. While the
+     * path's NAS mount is not responding, the last listing of the path is
+     * returned if there is one.
+     */
     public List<FolderItem> getFolders(String requestedPath) {
+        Path resolvedPath = null;
         try {
             // Resolve the actual path
-            Path resolvedPath = resolveAndValidatePath(requestedPath);
+            resolvedPath = resolveAndValidatePath(requestedPath);
             
             log.debug("Browsing folders in: {}", resolvedPath);
-            
-            if (!Files.exists(resolvedPath)) {
-                log.warn("Path does not exist: {}", resolvedPath);
-                return new ArrayList<>();
-            }
-            
-            if (!Files.isDirectory(resolvedPath)) {
-                log.warn("Path is not a directory: {}", resolvedPath);
-                return new ArrayList<>();
+
+            List<FolderItem> cached = lastListings.get(resolvedPath);
+            if (cached != null && !nasAccessGuard.isAvailable(resolvedPath)) {
+                return cached;
             }
-            
-            // List directories only
-            try (DirectoryStream<Path> stream = Files.newDirectoryStream(resolvedPath, Files::isDirectory)) {
-                List<FolderItem> folders = new ArrayList<>();
-                
-                for (Path path : stream) {
-                    try {
-                        FolderItem item = createFolderItem(path, requestedPath);
-                        folders.add(item);
-                    } catch (Exception e) {
-                        log.warn("Error processing folder: {}", path, e);
-                        // Continue processing other folders
-                    }
-                }
-                
-                // Sort by name
-                folders.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
-                
-                log.debug("Found {} folders in {}", folders.size(), resolvedPath);
-                return folders;
-                
-            } catch (IOException e) {
-                log.error("Error reading directory: {}", resolvedPath, e);
-                throw new FileAccessException("Cannot read directory: " + resolvedPath);
+            List<FolderItem> folders = listFolders(resolvedPath, requestedPath);
+            lastListings.put(resolvedPath, folders);
+            return folders;
+
+        } catch (NasUnavailableException e) {
+            List<FolderItem> cached = resolvedPath != null ? lastListings.get(resolvedPath) : null;
+            if (cached != null) {
+                log.warn("Serving last listing of {}: {}", resolvedPath, e.getMessage());
+                return cached;
             }
-            
+            throw e;
         } catch (Exception e) {
             log.error("Error getting folders for path: {}", requestedPath, e);
             throw new FileAccessException("Failed to browse folders: " + e.getMessage());
         }
     }
 
+    private List<FolderItem> listFolders(Path resolvedPath, String requestedPath) throws IOException {
+        if (!nasAccessGuard.exists(resolvedPath)) {
+            log.warn("Path does not exist: {}", resolvedPath);
+            return new ArrayList<>();
+        }
+        
+        if (!nasAccessGuard.isDirectory(resolvedPath)) {
+            log.warn("Path is not a directory: {}", resolvedPath);
+            return new ArrayList<>();
+        }
+        
+        List<Path> entries;
+        try {
+            entries = nasAccessGuard.call(resolvedPath, () -> entries(resolvedPath));
+        } catch (NasUnavailableException e) {
+            throw e;
+        } catch (IOException e) {
+            log.error("Error reading directory: {}", resolvedPath, e);
+            throw new FileAccessException("Cannot read directory: " + resolvedPath);
+        }
+
+        // List directories only
+        List<FolderItem> folders = new ArrayList<>();
+        for (Path path : entries) {
+            try {
+                FolderItem item = createFolderItem(path, requestedPath);
+                if (item != null) {
+                    folders.add(item);
+                }
+            } catch (NasUnavailableException e) {
+                // The mount stopped answering; the cached listing is better than a partial one
+                throw e;
+            } catch (Exception e) {
+                log.warn("Error processing folder: {}", path, e);
+                // Continue processing other folders
+            }
+        }
+        
+        // Sort by name
+        folders.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
+        
+        log.debug("Found {} folders in {}", folders.size(), resolvedPath);
+        return folders;
+    }
+
+    // Entry names only; checking which are folders is left to one call per entry
+    private static List<Path> entries(Path directory) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                entries.add(path);
+            }
+        }
+        return entries;
+    }
+
     public boolean isValidPath(String requestedPath) {
         try {
             Path resolvedPath = resolveAndValidatePath(requestedPath);
-            return Files.exists(resolvedPath) && Files.isDirectory(resolvedPath);
+            if (!nasAccessGuard.isAvailable(resolvedPath) && lastListings.containsKey(resolvedPath)) {
+                return true;
+            }
+            return nasAccessGuard.isDirectory(resolvedPath);
         } catch (Exception e) {
             log.debug("Path validation failed for: {}", requestedPath, e);
             return false;
@@ -101,7 +167,12 @@ public class FolderService {
         return resolvedPath;
     }
 
+    // Null when the entry is not a folder
     private FolderItem createFolderItem(Path path, String requestedPath) throws IOException {
+        BasicFileAttributes attrs = nasAccessGuard.readAttributes(path);
+        if (!attrs.isDirectory()) {
+            return null;
+        }
         String fileName = path.getFileName().toString();
         
         // Create the logical path for the frontend
@@ -113,20 +184,12 @@ public class FolderService {
         }
         
         // Check if folder has subfolders
-        boolean hasSubfolders = hasSubdirectories(path);
+        boolean hasSubfolders = nasAccessGuard.call(path, () -> hasSubdirectories(path));
         
         // Get file attributes
-        long size = 0;
-        String lastModified = "";
-        
-        try {
-            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
-            size = attrs.size();
-            lastModified = LocalDateTime.ofInstant(attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault())
-                    .format(dateFormatter);
-        } catch (IOException e) {
-            log.debug("Could not read attributes for: {}", path, e);
-        }
+        long size = attrs.size();
+        String lastModified = LocalDateTime.ofInstant(attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault())
+                .format(dateFormatter);
         
         return new FolderItem(fileName, logicalPath, true, hasSubfolders, size, lastModified);
     }
@@ -0,0 +1,356 @@
+package com.reporter.service;
+
+import com.reporter.exception.NasUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs filesystem calls against the NAS on a small thread pool per mount, each
+ * with a timeout, so a hung NFS export ties up its own threads instead of the
+ * request threads. After {@code app.nas.breaker.failure-threshold} timeouts in a
+ * row a mount's circuit opens: its calls fail fast with {@link NasUnavailableException}
+ * for {@code app.nas.breaker.open-seconds}, and callers serve the metadata they
+ * cached. Then a single trial call decides whether the circuit closes again.
+ * Mounts are the folders listed in {@code app.nas.mount-points}; everything else
+ * under the base path counts as one mount.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NasAccessGuard {
+
+    private static final String ROOT_MOUNT = "/";
+    private static final int QUEUED_CALLS_PER_THREAD = 8;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${app.nas.base-path}")
+    private String nasBasePath;
+
+    @Value("${app.nas.mount-points}")
+    private String mountPoints;
+
+    @Value("${app.nas.timeout-ms}")
+    private long timeoutMs;
+
+    @Value("${app.nas.threads-per-mount}")
+    private int threadsPerMount;
+
+    @Value("${app.nas.breaker.failure-threshold}")
+    private int failureThreshold;
+
+    @Value("${app.nas.breaker.open-seconds}")
+    private int openSeconds;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Mount> mounts = new ConcurrentHashMap<>();
+    private Path basePath;
+    // Deepest first, so nested mount points win over their parents
+    private List<Path> configuredMounts;
+
+    @PostConstruct
+    public void init() {
+        basePath = Paths.get(nasBasePath).normalize();
+        configuredMounts = Arrays.stream(mountPoints.split(","))
+                .map(String::trim)
+                .filter(point -> !point.isEmpty())
+                .map(point -> basePath.resolve(point.startsWith("/") ? point.substring(1) : point).normalize())
+                .filter(point -> point.startsWith(basePath) && !point.equals(basePath))
+                .sorted(Comparator.comparingInt(Path::getNameCount).reversed())
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mounts.values().forEach(mount -> mount.executor.shutdownNow());
+    }
+
+    /** The mount holding the path, e.g. {@code /finance}; worked out from the path alone, without I/O. */
+    public String mountOf(Path path) {
+        Path normalized = path.normalize();
+        for (Path mount : configuredMounts) {
+            if (normalized.startsWith(mount)) {
+                return "/" + basePath.relativize(mount).toString().replace('\\', '/');
+            }
+        }
+        return ROOT_MOUNT;
+    }
+
+    /** False while the path's mount is open-circuited, i.e. calls would fail fast. */
+    public boolean isAvailable(Path path) {
+        Mount mount = mounts.get(mountOf(path));
+        return mount == null || mount.isAvailable(System.nanoTime());
+    }
+
+    /**
+     * Runs {@code call} on the mount's threads and waits at most {@code app.nas.timeout-ms}.
+     * I/O errors of the call itself are rethrown as they are; a timeout, a full
+     * queue or an open circuit throw {@link NasUnavailableException}.
+     */
+    public <T> T call(Path path, IoCall<T> call) throws IOException {
+        try (RequestTiming.Span span = RequestTiming.phase("nas")) {
+            return callOnMount(path, call);
+        }
+    }
+
+    private <T> T callOnMount(Path path, IoCall<T> call) throws IOException {
+        Mount mount = mounts.computeIfAbsent(mountOf(path), this::newMount);
+        mount.acquire(System.nanoTime());
+        Future<T> future;
+        try {
+            future = mount.executor.submit(call::call);
+        } catch (RejectedExecutionException e) {
+            mount.failure(System.nanoTime());
+            throw mount.unavailable("all NAS threads of the mount are busy");
+        }
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            mount.success();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            mount.timeouts.increment();
+            mount.failure(System.nanoTime());
+            throw mount.unavailable("NAS call timed out after " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            // The mount answered, even if only with an error
+            mount.success();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            mount.abandon();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + path);
+        }
+    }
+
+    public boolean exists(Path path) throws IOException {
+        return call(path, () -> Files.exists(path));
+    }
+
+    public boolean isDirectory(Path path) throws IOException {
+        return call(path, () -> Files.isDirectory(path));
+    }
+
+    public BasicFileAttributes readAttributes(Path path) throws IOException {
+        return call(path, () -> Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /** Opens the file with every read, skip and close subject to the timeout, buffered in 64 KB reads. */
+    public InputStream newInputStream(Path path) throws IOException {
+        return guard(path, call(path, () -> Files.newInputStream(path)));
+    }
+
+    /** Routes the reads of a stream opened on the path through its mount's threads. */
+    public InputStream guard(Path path, InputStream in) {
+        return new BufferedInputStream(new GuardedInputStream(path, in), STREAM_BUFFER_SIZE);
+    }
+
+    /** Circuit state of every mount used so far, for the health endpoint. */
+    public Map<String, MountHealth> health() {
+        long now = System.nanoTime();
+        Map<String, MountHealth> health = new TreeMap<>();
+        mounts.forEach((name, mount) -> health.put(name, mount.health(now)));
+        return health;
+    }
+
+    /** A filesystem call; may throw the I/O errors of the underlying calls. */
+    @FunctionalInterface
+    public interface IoCall<T> {
+        T call() throws IOException;
+    }
+
+    /** A mount's circuit state, consecutive failures and seconds until the next trial call while open. */
+    public record MountHealth(String state, int consecutiveFailures, long retryAfterSeconds) {
+        public boolean available() {
+            return "CLOSED".equals(state);
+        }
+    }
+
+    private Mount newMount(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadsPerMount, threadsPerMount,
+                30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(threadsPerMount * QUEUED_CALLS_PER_THREAD),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "nas" + name.replace('/', '-') + "-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        Mount mount = new Mount(name, executor,
+                Counter.builder("reporter.nas.timeouts")
+                        .description("NAS calls that did not finish within app.nas.timeout-ms")
+                        .tag("mount", name)
+                        .register(meterRegistry),
+                Counter.builder("reporter.nas.rejected")
+                        .description("NAS calls failed fast because the mount's circuit was open")
+                        .tag("mount", name)
+                        .register(meterRegistry));
+        Gauge.builder("reporter.nas.circuit.open", mount, m -> m.isAvailable(System.nanoTime()) ? 0 : 1)
+                .description("1 while the mount's circuit is open")
+                .tag("mount", name)
+                .register(meterRegistry);
+        return mount;
+    }
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** One mount's threads and circuit breaker. */
+    private final class Mount {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final Counter timeouts;
+        private final Counter rejected;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openUntil;
+
+        private Mount(String name, ThreadPoolExecutor executor, Counter timeouts, Counter rejected) {
+            this.name = name;
+            this.executor = executor;
+            this.timeouts = timeouts;
+            this.rejected = rejected;
+        }
+
+        // Admits the call, or throws while the circuit is open or a trial call is running
+        private synchronized void acquire(long now) {
+            if (state == State.OPEN && now - openUntil >= 0) {
+                state = State.HALF_OPEN;
+                log.info("Trying NAS mount {} again", name);
+                return;
+            }
+            if (state != State.CLOSED) {
+                rejected.increment();
+                throw unavailable("NAS mount " + name + " is not responding");
+            }
+        }
+
+        private synchronized void success() {
+            if (state != State.CLOSED) {
+                log.info("NAS mount {} is responding again", name);
+            }
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+        }
+
+        private synchronized void failure(long now) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openUntil = now + TimeUnit.SECONDS.toNanos(openSeconds);
+                log.warn("NAS mount {} failed {} calls in a row; failing fast for {} s", name, consecutiveFailures,
+                        openSeconds);
+            }
+        }
+
+        // An interrupted trial call decides nothing; the next call tries again
+        private synchronized void abandon() {
+            if (state == State.HALF_OPEN) {
+                state = State.OPEN;
+            }
+        }
+
+        private synchronized boolean isAvailable(long now) {
+            return state == State.CLOSED || (state == State.OPEN && now - openUntil >= 0);
+        }
+
+        private synchronized MountHealth health(long now) {
+            long retryAfter = state == State.CLOSED ? 0 : Math.max(TimeUnit.NANOSECONDS.toSeconds(openUntil - now), 0);
+            return new MountHealth(state.name(), consecutiveFailures, retryAfter);
+        }
+
+        private synchronized NasUnavailableException unavailable(String message) {
+            long retryAfter = state == State.CLOSED ? 1 : TimeUnit.NANOSECONDS.toSeconds(openUntil - System.nanoTime());
+            return new NasUnavailableException(name, message, (int) Math.max(retryAfter, 1));
+        }
+    }
+
+    /** Hands every read to the mount's threads; the caller waits at most the timeout for each. */
+    private final class GuardedInputStream extends InputStream {
+        private final Path path;
+        private final InputStream in;
+
+        private GuardedInputStream(Path path, InputStream in) {
+            this.path = path;
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = call(path, in::read);
+            RequestTiming.bytesRead(b >= 0 ? 1 : 0);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = call(path, () -> in.read(b, off, len));
+            RequestTiming.bytesRead(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return call(path, () -> in.skip(n));
+        }
+
+        @Override
+        public int available() throws IOException {
+            return call(path, in::available);
+        }
+
+        // Closes on the caller's thread when the mount refuses the call, so outages do not leak descriptors
+        @Override
+        public void close() throws IOException {
+            try {
+                call(path, () -> {
+                    in.close();
+                    return null;
+                });
+            } catch (NasUnavailableException e) {
+                // Returns at once when the timed-out close already got the stream
+                in.close();
+            }
+        }
+    }
+}
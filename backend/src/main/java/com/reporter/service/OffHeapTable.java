@@ -0,0 +1,443 @@
+package com.reporter.service;
+
+import com.reporter.model.FileData;
+import com.reporter.model.TemporalValue;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+
+import java.nio.charset.StandardCharsets;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A parsed table held outside the Java heap in one buffer, column by column: a
+ * one-byte type tag and an eight-byte slot per cell, followed by each column's
+ * distinct strings as length-prefixed UTF-8. Only the header row stays on the heap.
+ * The table is reference counted; the cache holds one reference and every reader
+ * retains another while decoding, so eviction frees the buffer only after the
+ * last reader has released it.
+ */
+final class OffHeapTable {
+
+    private static final byte ABSENT = 0;
+    private static final byte NULL = 1;
+    private static final byte STRING = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte DATE = 7;
+    private static final byte DATE_TIME = 8;
+
+    // Sort keys of text cells that are not stored strings
+    private static final long EMPTY_TEXT = -1;
+    private static final long FALSE_TEXT = -2;
+    private static final long TRUE_TEXT = -3;
+
+    // Rough heap cost of a decoded row map, and of each cell in it: entry, boxed value or short string
+    private static final long ROW_MAP_BYTES = 64;
+    private static final long DECODED_CELL_BYTES = 80;
+
+    private final String fileName;
+    private final List<String> headers;
+    private final int rowCount;
+    private final long slotsStart;
+    private final ArrowBuf buffer;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private OffHeapTable(String fileName, List<String> headers, int rowCount, long slotsStart, ArrowBuf buffer) {
+        this.fileName = fileName;
+        this.headers = headers;
+        this.rowCount = rowCount;
+        this.slotsStart = slotsStart;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Sizes the off-heap copy of a parsed file. Strings repeated within a column are
+     * stored once. Returns null if a cell holds a type the table cannot store.
+     */
+    static Layout layout(FileData fileData) {
+        List<String> headers = fileData.getHeaders();
+        List<Map<String, Object>> rows = fileData.getData();
+        long cells = (long) headers.size() * rows.size();
+        // Slots start on an 8-byte boundary after the tags
+        long slotsStart = (cells + 7) & ~7L;
+        long stringBytes = 0;
+        List<Map<String, byte[]>> strings = new ArrayList<>(headers.size());
+        for (String header : headers) {
+            Map<String, byte[]> distinct = new LinkedHashMap<>();
+            for (Map<String, Object> row : rows) {
+                Object value = row.get(header);
+                if (value instanceof String text) {
+                    if (!distinct.containsKey(text)) {
+                        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                        distinct.put(text, utf8);
+                        stringBytes += Integer.BYTES + utf8.length;
+                    }
+                } else if (tagOf(value) < 0) {
+                    return null;
+                }
+            }
+            strings.add(distinct);
+        }
+        return new Layout(fileData, slotsStart, slotsStart + cells * Long.BYTES + stringBytes, strings);
+    }
+
+    /** Copies the file into a buffer from {@code allocator}, which enforces the off-heap budget. */
+    static OffHeapTable write(Layout layout, BufferAllocator allocator) {
+        FileData fileData = layout.fileData;
+        List<String> headers = List.copyOf(fileData.getHeaders());
+        List<Map<String, Object>> rows = fileData.getData();
+        ArrowBuf buffer = allocator.buffer(Math.max(layout.bytes, 1));
+        try {
+            long stringOffset = layout.slotsStart + (long) headers.size() * rows.size() * Long.BYTES;
+            for (int column = 0; column < headers.size(); column++) {
+                Map<String, Long> stringOffsets = new HashMap<>();
+                for (Map.Entry<String, byte[]> string : layout.strings.get(column).entrySet()) {
+                    stringOffsets.put(string.getKey(), stringOffset);
+                    buffer.setInt(stringOffset, string.getValue().length);
+                    buffer.setBytes(stringOffset + Integer.BYTES, string.getValue());
+                    stringOffset += Integer.BYTES + string.getValue().length;
+                }
+
+                String header = headers.get(column);
+                for (int row = 0; row < rows.size(); row++) {
+                    Map<String, Object> values = rows.get(row);
+                    Object value = values.get(header);
+                    byte tag = value == null && !values.containsKey(header) ? ABSENT : tagOf(value);
+                    long cell = (long) column * rows.size() + row;
+                    buffer.setByte(cell, tag);
+                    buffer.setLong(layout.slotsStart + cell * Long.BYTES, slotOf(tag, value, stringOffsets));
+                }
+            }
+        } catch (RuntimeException e) {
+            buffer.close();
+            throw e;
+        }
+        return new OffHeapTable(fileData.getFileName(), headers, rows.size(), layout.slotsStart, buffer);
+    }
+
+    long bytes() {
+        return buffer.capacity();
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    String fileName() {
+        return fileName;
+    }
+
+    List<String> headers() {
+        return headers;
+    }
+
+    /** Rough heap taken by {@code rows} decoded rows of {@code columns} columns. */
+    static long decodedBytes(int rows, int columns) {
+        return rows * (ROW_MAP_BYTES + columns * DECODED_CELL_BYTES);
+    }
+
+    /** Rows passing the plan's filters, testing only the filtered columns. */
+    int[] matchingRows(ParseOptions.RowPlan plan) {
+        if (!plan.hasFilters()) {
+            int[] rows = new int[rowCount];
+            Arrays.setAll(rows, row -> row);
+            return rows;
+        }
+        int width = headers.size();
+        int[] rows = new int[rowCount];
+        int count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            int current = row;
+            if (plan.accepts(width, column -> value(column, current))) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /** Decodes the given rows, and only the plan's projected columns of them. */
+    FileData read(ParseOptions.RowPlan plan, int[] rows) {
+        List<Map<String, Object>> data = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            data.add(row(plan, row));
+        }
+        return new FileData(fileName, plan.headers(), data, rows.length);
+    }
+
+    /** Decodes the plan's projected columns of one row; null when it fails the plan's filters. */
+    Map<String, Object> row(ParseOptions.RowPlan plan, int row) {
+        return plan.row(headers.size(), column -> value(column, row), (column, value) -> value);
+    }
+
+    /** Decodes one cell; absent cells read as null. */
+    Object value(int column, int row) {
+        long cell = (long) column * rowCount + row;
+        byte tag = buffer.getByte(cell);
+        return tag == ABSENT ? null : valueOf(tag, buffer.getLong(slotsStart + cell * Long.BYTES));
+    }
+
+    /**
+     * Primitive sort keys of a column's cells in the file view's sort order: numbers,
+     * then dates, then text by {@code collator}, with absent cells sorting as empty
+     * text. The only object comparisons are the one collation sort of the column's
+     * distinct strings.
+     */
+    SortKeys sortKeys(int column, Collator collator) {
+        byte[] classes = new byte[rowCount];
+        long[] keys = new long[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            long cell = (long) column * rowCount + row;
+            byte tag = buffer.getByte(cell);
+            long slot = buffer.getLong(slotsStart + cell * Long.BYTES);
+            switch (tag) {
+                case INTEGER:
+                case LONG:
+                    keys[row] = sortableBits((double) slot);
+                    break;
+                case DOUBLE:
+                    keys[row] = sortableBits(Double.longBitsToDouble(slot));
+                    break;
+                case DATE:
+                case DATE_TIME:
+                    classes[row] = 1;
+                    keys[row] = slot;
+                    break;
+                case STRING:
+                    classes[row] = 2;
+                    keys[row] = slot;
+                    break;
+                case BOOLEAN:
+                    classes[row] = 2;
+                    keys[row] = slot != 0 ? TRUE_TEXT : FALSE_TEXT;
+                    break;
+                default:
+                    classes[row] = 2;
+                    keys[row] = EMPTY_TEXT;
+            }
+        }
+        rankText(classes, keys, collator);
+        return new SortKeys(classes, keys);
+    }
+
+    /** Dense ranks of a column's cells in sort order; equal values share a rank. */
+    int[] sortRanks(int column, Collator collator) {
+        SortKeys sortKeys = sortKeys(column, collator);
+        byte[] classes = sortKeys.classes;
+        long[] keys = sortKeys.keys;
+        // Numbers, dates and text each get a block of ranks in that order
+        int[] ranks = new int[rowCount];
+        int base = 0;
+        for (byte sortClass = 0; sortClass < 3; sortClass++) {
+            long[] distinct = distinctKeys(classes, keys, sortClass);
+            for (int row = 0; row < rowCount; row++) {
+                if (classes[row] == sortClass) {
+                    ranks[row] = base + Arrays.binarySearch(distinct, keys[row]);
+                }
+            }
+            base += distinct.length;
+        }
+        return ranks;
+    }
+
+    // Replaces the string keys of text cells by their collation rank
+    private void rankText(byte[] classes, long[] keys, Collator collator) {
+        long[] distinct = distinctKeys(classes, keys, (byte) 2);
+        CollationKey[] collationKeys = new CollationKey[distinct.length];
+        for (int i = 0; i < distinct.length; i++) {
+            collationKeys[i] = collator.getCollationKey(text(distinct[i]));
+        }
+        Integer[] order = new Integer[distinct.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> collationKeys[a].compareTo(collationKeys[b]));
+        long[] textRanks = new long[distinct.length];
+        for (int i = 0, rank = 0; i < order.length; i++) {
+            if (i > 0 && collationKeys[order[i]].compareTo(collationKeys[order[i - 1]]) != 0) {
+                rank++;
+            }
+            textRanks[order[i]] = rank;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            if (classes[row] == 2) {
+                keys[row] = textRanks[Arrays.binarySearch(distinct, keys[row])];
+            }
+        }
+    }
+
+    private String text(long key) {
+        if (key == EMPTY_TEXT) {
+            return "";
+        } else if (key == FALSE_TEXT) {
+            return "false";
+        } else if (key == TRUE_TEXT) {
+            return "true";
+        }
+        return (String) valueOf(STRING, key);
+    }
+
+    private long[] distinctKeys(byte[] classes, long[] keys, byte sortClass) {
+        int count = 0;
+        long[] selected = new long[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            if (classes[row] == sortClass) {
+                selected[count++] = keys[row];
+            }
+        }
+        long[] sorted = Arrays.copyOf(selected, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    // Long bits of a double that order like Double.compare
+    private static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /** Takes a reader reference; fails once the table has been freed. */
+    boolean retain() {
+        int current;
+        do {
+            current = references.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            buffer.close();
+        }
+    }
+
+    /** Decodes rows {@code from} (inclusive) to {@code to} (exclusive) into heap row maps. */
+    FileData read(int from, int to) {
+        List<Map<String, Object>> data = new ArrayList<>(Math.max(to - from, 0));
+        for (int row = from; row < to; row++) {
+            Map<String, Object> values = new HashMap<>();
+            for (int column = 0; column < headers.size(); column++) {
+                long cell = (long) column * rowCount + row;
+                byte tag = buffer.getByte(cell);
+                if (tag != ABSENT) {
+                    values.put(headers.get(column), valueOf(tag, buffer.getLong(slotsStart + cell * Long.BYTES)));
+                }
+            }
+            data.add(values);
+        }
+        return new FileData(fileName, headers, data, rowCount);
+    }
+
+    private Object valueOf(byte tag, long slot) {
+        switch (tag) {
+            case STRING:
+                byte[] utf8 = new byte[buffer.getInt(slot)];
+                buffer.getBytes(slot + Integer.BYTES, utf8);
+                return new String(utf8, StandardCharsets.UTF_8);
+            case INTEGER:
+                return (int) slot;
+            case LONG:
+                return slot;
+            case DOUBLE:
+                return Double.longBitsToDouble(slot);
+            case BOOLEAN:
+                return slot != 0;
+            case DATE:
+                return TemporalValue.ofEpochMillis(slot, true);
+            case DATE_TIME:
+                return TemporalValue.ofEpochMillis(slot, false);
+            default:
+                return null;
+        }
+    }
+
+    private static byte tagOf(Object value) {
+        if (value == null) {
+            return NULL;
+        } else if (value instanceof String) {
+            return STRING;
+        } else if (value instanceof Integer) {
+            return INTEGER;
+        } else if (value instanceof Long) {
+            return LONG;
+        } else if (value instanceof Double) {
+            return DOUBLE;
+        } else if (value instanceof Boolean) {
+            return BOOLEAN;
+        } else if (value instanceof TemporalValue temporal) {
+            return temporal.isDateOnly() ? DATE : DATE_TIME;
+        }
+        return -1;
+    }
+
+    private static long slotOf(byte tag, Object value, Map<String, Long> stringOffsets) {
+        switch (tag) {
+            case STRING:
+                return stringOffsets.get(value);
+            case INTEGER:
+                return (Integer) value;
+            case LONG:
+                return (Long) value;
+            case DOUBLE:
+                return Double.doubleToRawLongBits((Double) value);
+            case BOOLEAN:
+                return (Boolean) value ? 1 : 0;
+            case DATE:
+            case DATE_TIME:
+                return ((TemporalValue) value).getEpochMillis();
+            default:
+                return 0;
+        }
+    }
+
+    /** Per-row sort class (0 number, 1 date, 2 text) and key within the class. */
+    static final class SortKeys {
+        private final byte[] classes;
+        private final long[] keys;
+
+        private SortKeys(byte[] classes, long[] keys) {
+            this.classes = classes;
+            this.keys = keys;
+        }
+
+        int compare(int row, int otherRow) {
+            int byClass = Byte.compare(classes[row], classes[otherRow]);
+            return byClass != 0 ? byClass : Long.compare(keys[row], keys[otherRow]);
+        }
+    }
+
+    /** Size and distinct strings of a table, computed before its buffer is allocated. */
+    static final class Layout {
+        private final FileData fileData;
+        private final long slotsStart;
+        private final long bytes;
+        private final List<Map<String, byte[]>> strings;
+
+        private Layout(FileData fileData, long slotsStart, long bytes, List<Map<String, byte[]>> strings) {
+            this.fileData = fileData;
+            this.slotsStart = slotsStart;
+            this.bytes = bytes;
+            this.strings = strings;
+        }
+
+        long bytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.reporter.service;
+
+import com.reporter.model.TemporalValue;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.EncodingStats;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.page.DictionaryPageReadStore;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * A Parquet file read through its footer: the flat, non-repeated columns become
+ * the headers and the row count is known before any data is read. Scans decode
+ * only the columns a {@link ParseOptions.RowPlan} reads, skip row groups outside
+ * the requested rows, and skip groups whose statistics or dictionary show that
+ * no row can pass the plan's filters. A table is scanned once; open another for
+ * the next request.
+ */
+final class ParquetFileTable implements Closeable {
+
+    private static final long JULIAN_EPOCH_DAY = 2_440_588L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ParquetFileReader reader;
+    private final MessageType schema;
+    private final List<ColumnDescriptor> columns = new ArrayList<>();
+    private final List<String> headers = new ArrayList<>();
+    // Position of each header's chunk among a row group's column chunks
+    private final List<Integer> chunkIndexes = new ArrayList<>();
+    private final List<BlockMetaData> rowGroups;
+    private int skippedGroups;
+
+    private ParquetFileTable(ParquetFileReader reader) {
+        this.reader = reader;
+        this.schema = reader.getFooter().getFileMetaData().getSchema();
+        this.rowGroups = reader.getRowGroups();
+        List<ColumnDescriptor> leaves = schema.getColumns();
+        for (int i = 0; i < leaves.size(); i++) {
+            ColumnDescriptor leaf = leaves.get(i);
+            // Nested and repeated fields have no single cell value
+            if (leaf.getPath().length == 1 && leaf.getMaxRepetitionLevel() == 0) {
+                columns.add(leaf);
+                headers.add(leaf.getPath()[0]);
+                chunkIndexes.add(i);
+            }
+        }
+    }
+
+    static ParquetFileTable open(Path path) throws IOException {
+        return new ParquetFileTable(ParquetFileReader.open(new LocalInputFile(path)));
+    }
+
+    List<String> headers() {
+        return headers;
+    }
+
+    long rowCount() {
+        return reader.getRecordCount();
+    }
+
+    /** Compressed bytes of the row groups holding rows {@code from} to {@code to}. */
+    long compressedBytes(long from, long to) {
+        long bytes = 0;
+        long groupStart = 0;
+        for (BlockMetaData group : rowGroups) {
+            long groupEnd = groupStart + group.getRowCount();
+            if (groupEnd > from && groupStart < to) {
+                bytes += group.getCompressedSize();
+            }
+            groupStart = groupEnd;
+        }
+        return bytes;
+    }
+
+    /** Row groups skipped by the filters of the last scan. */
+    int skippedGroups() {
+        return skippedGroups;
+    }
+
+    /**
+     * Passes rows {@code from} to {@code to} of the file, in file order, to
+     * {@code consumer}. Cells of columns the plan does not read come back as null,
+     * and missing values as empty strings, like blank cells in other formats.
+     */
+    void scan(ParseOptions.RowPlan plan, CellMatcher matcher, long from, long to, RowConsumer consumer)
+            throws IOException {
+        List<Type> fields = new ArrayList<>();
+        int[] fieldIndexes = new int[headers.size()];
+        for (int column = 0; column < headers.size(); column++) {
+            // At least one column is read so that rows still come back
+            boolean read = plan.reads(column) || (fields.isEmpty() && column == headers.size() - 1);
+            fieldIndexes[column] = read ? fields.size() : -1;
+            if (read) {
+                fields.add(schema.getType(headers.get(column)));
+            }
+        }
+        if (fields.isEmpty()) {
+            return;
+        }
+        MessageType projection = new MessageType(schema.getName(), fields);
+        reader.setRequestedSchema(projection);
+
+        skippedGroups = 0;
+        long groupStart = 0;
+        for (BlockMetaData group : rowGroups) {
+            long groupEnd = groupStart + group.getRowCount();
+            if (groupEnd <= from || groupStart >= to || plan.rejectsAll((column, needle) -> mayMatch(group, column, needle, matcher))) {
+                skippedGroups += groupStart < to && groupEnd > from ? 1 : 0;
+                reader.skipNextRowGroup();
+                groupStart = groupEnd;
+                continue;
+            }
+            PageReadStore pages = reader.readNextRowGroup();
+            RecordReader<Group> records = new ColumnIOFactory().getColumnIO(projection)
+                    .getRecordReader(pages, new GroupRecordConverter(projection));
+            long last = Math.min(groupEnd, to);
+            for (long row = groupStart; row < last; row++) {
+                Group record = records.read();
+                if (row < from) {
+                    continue;
+                }
+                consumer.row(column -> {
+                    int field = fieldIndexes[column];
+                    if (field < 0) {
+                        return null;
+                    }
+                    return record.getFieldRepetitionCount(field) == 0 ? "" : value(column, record, field);
+                });
+            }
+            groupStart = groupEnd;
+            if (groupStart >= to) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Whether a cell holding {@code value} may pass a filter for {@code needle} once the
+     * parser has converted it, e.g. text read as a date, so pruning by statistics and
+     * dictionaries judges values the way the rows will be filtered.
+     */
+    @FunctionalInterface
+    interface CellMatcher {
+        boolean mayMatch(int column, Object value, String needle);
+    }
+
+    /** Receives one row; {@code valueAt} is only valid during the call. */
+    @FunctionalInterface
+    interface RowConsumer {
+        void row(IntFunction<Object> valueAt);
+    }
+
+    /**
+     * False only when no value of the column in this row group can contain the
+     * needle: every value is null, the statistics show a single value that does not
+     * match, an integer column is filtered by non-digits, or the dictionary of a
+     * fully dictionary-encoded column has no matching entry.
+     */
+    private boolean mayMatch(BlockMetaData group, int column, String needle, CellMatcher matcher) {
+        if (column < 0) {
+            return FileViewService.matches(null, needle);
+        }
+        if (needle.isEmpty()) {
+            return true;
+        }
+        ColumnChunkMetaData chunk = group.getColumns().get(chunkIndexes.get(column));
+        Statistics<?> statistics = chunk.getStatistics();
+        if (statistics != null && statistics.isNumNullsSet() && statistics.getNumNulls() == group.getRowCount()) {
+            return false;
+        }
+        if (statistics != null && statistics.hasNonNullValue()
+                && statistics.genericGetMin().equals(statistics.genericGetMax())) {
+            return matcher.mayMatch(column, convert(column, statistics.genericGetMin()), needle);
+        }
+        PrimitiveType type = columns.get(column).getPrimitiveType();
+        if (isPlainInteger(type) && !needle.chars().allMatch(c -> c == '-' || Character.isDigit(c))) {
+            return false;
+        }
+        try {
+            return dictionaryMayMatch(group, chunk, column, needle, matcher);
+        } catch (IOException | RuntimeException e) {
+            return true;
+        }
+    }
+
+    private boolean dictionaryMayMatch(BlockMetaData group, ColumnChunkMetaData chunk, int column, String needle,
+                                       CellMatcher matcher) throws IOException {
+        EncodingStats encodings = chunk.getEncodingStats();
+        if (encodings == null || !encodings.hasDictionaryPages() || encodings.hasNonDictionaryEncodedPages()) {
+            return true;
+        }
+        ColumnDescriptor descriptor = columns.get(column);
+        DictionaryPageReadStore dictionaries = reader.getDictionaryReader(group);
+        DictionaryPage page = dictionaries.readDictionaryPage(descriptor);
+        if (page == null) {
+            return true;
+        }
+        Dictionary dictionary = page.getEncoding().initDictionary(descriptor, page);
+        for (int id = 0; id <= dictionary.getMaxId(); id++) {
+            if (matcher.mayMatch(column, convert(column, dictionaryValue(dictionary, descriptor, id)), needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object dictionaryValue(Dictionary dictionary, ColumnDescriptor descriptor, int id) {
+        switch (descriptor.getPrimitiveType().getPrimitiveTypeName()) {
+            case INT32:
+                return dictionary.decodeToInt(id);
+            case INT64:
+                return dictionary.decodeToLong(id);
+            case FLOAT:
+                return dictionary.decodeToFloat(id);
+            case DOUBLE:
+                return dictionary.decodeToDouble(id);
+            case BOOLEAN:
+                return dictionary.decodeToBoolean(id);
+            default:
+                return dictionary.decodeToBinary(id);
+        }
+    }
+
+    private Object value(int column, Group record, int field) {
+        switch (columns.get(column).getPrimitiveType().getPrimitiveTypeName()) {
+            case BOOLEAN:
+                return record.getBoolean(field, 0);
+            case INT32:
+                return convert(column, record.getInteger(field, 0));
+            case INT64:
+                return convert(column, record.getLong(field, 0));
+            case FLOAT:
+                return convert(column, record.getFloat(field, 0));
+            case DOUBLE:
+                return record.getDouble(field, 0);
+            case INT96:
+                return convert(column, record.getInt96(field, 0));
+            default:
+                return convert(column, record.getBinary(field, 0));
+        }
+    }
+
+    /** Maps a physical value to the cell types of the other formats, applying the column's logical type. */
+    private Object convert(int column, Object raw) {
+        PrimitiveType type = columns.get(column).getPrimitiveType();
+        LogicalTypeAnnotation logical = type.getLogicalTypeAnnotation();
+        if (logical instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation decimal) {
+            BigInteger unscaled = raw instanceof Binary binary
+                    ? new BigInteger(binary.getBytes())
+                    : BigInteger.valueOf(((Number) raw).longValue());
+            return new BigDecimal(unscaled, decimal.getScale()).doubleValue();
+        }
+        if (logical instanceof LogicalTypeAnnotation.DateLogicalTypeAnnotation) {
+            return TemporalValue.ofDate(LocalDate.ofEpochDay(((Number) raw).longValue()));
+        }
+        if (logical instanceof LogicalTypeAnnotation.TimestampLogicalTypeAnnotation timestamp) {
+            long value = ((Number) raw).longValue();
+            long millis = switch (timestamp.getUnit()) {
+                case MILLIS -> value;
+                case MICROS -> Math.floorDiv(value, 1_000L);
+                case NANOS -> Math.floorDiv(value, 1_000_000L);
+            };
+            return TemporalValue.ofEpochMillis(millis, false);
+        }
+        if (type.getPrimitiveTypeName() == PrimitiveType.PrimitiveTypeName.INT96) {
+            // Legacy timestamps: nanoseconds of the day, then the Julian day
+            ByteBuffer bytes = ((Binary) raw).toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+            long nanosOfDay = bytes.getLong();
+            long julianDay = Integer.toUnsignedLong(bytes.getInt());
+            return TemporalValue.ofEpochMillis((julianDay - JULIAN_EPOCH_DAY) * MILLIS_PER_DAY + nanosOfDay / 1_000_000L,
+                    false);
+        }
+        if (raw instanceof Float number) {
+            // Through its shortest text, so 0.1f reads as 0.1 rather than 0.10000000149011612
+            return Double.parseDouble(Float.toString(number));
+        }
+        if (raw instanceof Binary binary) {
+            return binary.toStringUsingUTF8();
+        }
+        return raw;
+    }
+
+    private static boolean isPlainInteger(PrimitiveType type) {
+        PrimitiveType.PrimitiveTypeName name = type.getPrimitiveTypeName();
+        LogicalTypeAnnotation logical = type.getLogicalTypeAnnotation();
+        return (name == PrimitiveType.PrimitiveTypeName.INT32 || name == PrimitiveType.PrimitiveTypeName.INT64)
+                && (logical == null || logical instanceof LogicalTypeAnnotation.IntLogicalTypeAnnotation);
+    }
+}
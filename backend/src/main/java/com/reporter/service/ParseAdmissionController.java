@@ -0,0 +1,197 @@
+package com.reporter.service;
+
+import com.reporter.exception.ParseRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many files are parsed at once and how much heap they may claim
+ * between them. Each job reserves an estimate derived from file size and format;
+ * jobs that do not fit wait up to {@code app.parse.queue-timeout-ms} for running
+ * parses to finish and are otherwise rejected with a retry hint.
+ */
+@Component
+@Slf4j
+public class ParseAdmissionController {
+
+    private static final double DEFAULT_HEAP_FACTOR = 8.0;
+    private static final long MIN_COST_BYTES = 1024 * 1024;
+
+    @Value("${app.parse.max-concurrent}")
+    private int maxConcurrent;
+
+    @Value("${app.parse.memory-budget-mb}")
+    private long memoryBudgetMb;
+
+    @Value("${app.parse.max-queued}")
+    private int maxQueued;
+
+    @Value("${app.parse.queue-timeout-ms}")
+    private long queueTimeoutMs;
+
+    @Value("${app.parse.retry-after-seconds}")
+    private int retryAfterSeconds;
+
+    @Value("${app.parse.heap-factors}")
+    private String heapFactorSpec;
+
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private final Map<String, Double> heapFactors = new HashMap<>();
+
+    private long budgetBytes;
+    private volatile int active;
+    private volatile int queued;
+    private volatile long reservedBytes;
+
+    private Counter admittedCounter;
+    private Counter queueFullCounter;
+    private Counter timeoutCounter;
+    private Timer waitTimer;
+
+    public ParseAdmissionController(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        budgetBytes = memoryBudgetMb * 1024 * 1024;
+        for (String entry : heapFactorSpec.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length == 2) {
+                heapFactors.put(parts[0].trim().toLowerCase(Locale.ROOT), Double.parseDouble(parts[1].trim()));
+            }
+        }
+
+        Gauge.builder("reporter.parse.active", this, controller -> controller.active)
+                .description("Parses currently running")
+                .register(meterRegistry);
+        Gauge.builder("reporter.parse.queued", this, controller -> controller.queued)
+                .description("Parses waiting for admission")
+                .register(meterRegistry);
+        Gauge.builder("reporter.parse.reserved", this, controller -> controller.reservedBytes)
+                .description("Estimated heap reserved by running parses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("reporter.parse.budget", this, controller -> controller.budgetBytes)
+                .description("Heap budget shared by all parses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        admittedCounter = Counter.builder("reporter.parse.admitted").register(meterRegistry);
+        queueFullCounter = Counter.builder("reporter.parse.rejected").tag("reason", "queue_full").register(meterRegistry);
+        timeoutCounter = Counter.builder("reporter.parse.rejected").tag("reason", "timeout").register(meterRegistry);
+        waitTimer = Timer.builder("reporter.parse.wait")
+                .description("Time spent waiting for parse admission")
+                .register(meterRegistry);
+
+        log.info("Parse admission: {} concurrent parses within {} MB", maxConcurrent, memoryBudgetMb);
+    }
+
+    public long estimateHeapCost(long fileSize, String extension) {
+        double factor = heapFactors.getOrDefault(extension.toLowerCase(Locale.ROOT), DEFAULT_HEAP_FACTOR);
+        long estimate = Math.max(MIN_COST_BYTES, (long) (fileSize * factor));
+        // A file larger than the whole budget may still run, but only on its own
+        return Math.min(estimate, budgetBytes);
+    }
+
+    /** Cost of decoding about {@code heapBytes} of rows that are already in memory, e.g. in the parse cache. */
+    public long estimateDecodeCost(long heapBytes) {
+        return Math.min(Math.max(MIN_COST_BYTES, heapBytes), budgetBytes);
+    }
+
+    public Permit admit(String fileName, long estimatedBytes) {
+        long waitStart = System.nanoTime();
+        long deadline = waitStart + TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+
+        lock.lock();
+        try {
+            if (!canRun(estimatedBytes)) {
+                if (queued >= maxQueued) {
+                    queueFullCounter.increment();
+                    log.warn("Rejecting parse of {}: {} parses already queued", fileName, queued);
+                    throw new ParseRejectedException("Server is busy parsing other files, please retry shortly", retryAfterSeconds);
+                }
+
+                queued++;
+                try {
+                    while (!canRun(estimatedBytes)) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            timeoutCounter.increment();
+                            log.warn("Rejecting parse of {}: no capacity within {} ms", fileName, queueTimeoutMs);
+                            throw new ParseRejectedException("Timed out waiting for parse capacity, please retry shortly", retryAfterSeconds);
+                        }
+                        released.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ParseRejectedException("Interrupted while waiting for parse capacity", retryAfterSeconds);
+                } finally {
+                    queued--;
+                }
+            }
+
+            active++;
+            reservedBytes += estimatedBytes;
+        } finally {
+            lock.unlock();
+        }
+
+        long waited = System.nanoTime() - waitStart;
+        waitTimer.record(waited, TimeUnit.NANOSECONDS);
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.add("admit", waited, 1);
+        }
+        admittedCounter.increment();
+        log.debug("Admitted parse of {} reserving {} bytes", fileName, estimatedBytes);
+        return new Permit(estimatedBytes);
+    }
+
+    private boolean canRun(long estimatedBytes) {
+        return active < maxConcurrent && reservedBytes + estimatedBytes <= budgetBytes;
+    }
+
+    private void release(long estimatedBytes) {
+        lock.lock();
+        try {
+            active--;
+            reservedBytes -= estimatedBytes;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public final class Permit implements AutoCloseable {
+        private final long estimatedBytes;
+        private boolean closed;
+
+        private Permit(long estimatedBytes) {
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(estimatedBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.reporter.service;
+
+import com.reporter.dto.FileViewCriteria;
+import com.reporter.model.FileData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.IntFunction;
+
+/**
+ * Column projection and row filters pushed down into the parsers. Columns that are
+ * not projected are never converted to values, and rows failing a filter are
+ * dropped before their row map is built. Filters use the file view's rule: a
+ * case-insensitive substring of the cell's text. Projected columns keep file order.
+ */
+public class ParseOptions {
+
+    public static final ParseOptions ALL = new ParseOptions(null, Map.of());
+
+    /** Projected columns, or null for all columns */
+    private final Set<String> columns;
+    /** Column -> lower-case substring the cell must contain */
+    private final Map<String, String> filters;
+
+    public ParseOptions(Set<String> columns, Map<String, String> filters) {
+        this.columns = columns;
+        this.filters = filters;
+    }
+
+    /**
+     * Options for a file view: its filters, and its columns plus the sort column
+     * so the view can still be sorted after projection.
+     */
+    public static ParseOptions from(FileViewCriteria criteria) {
+        Set<String> columns = null;
+        if (criteria.getColumns() != null) {
+            columns = new LinkedHashSet<>(criteria.getColumns());
+            if (criteria.getSort() != null) {
+                columns.add(criteria.getSort());
+            }
+        }
+        Map<String, String> filters = new LinkedHashMap<>();
+        criteria.getFilters().forEach((column, value) -> filters.put(column, value.toLowerCase(Locale.ROOT)));
+        return new ParseOptions(columns, filters);
+    }
+
+    public boolean isEmpty() {
+        return columns == null && filters.isEmpty();
+    }
+
+    /** Applies the options to an already parsed file, e.g. one served from the parse cache. */
+    public FileData apply(FileData fileData) {
+        if (isEmpty()) {
+            return fileData;
+        }
+        RowPlan plan = plan(fileData.getHeaders());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map<String, Object> row : fileData.getData()) {
+            Map<String, Object> projected = plan.row(fileData.getHeaders().size(),
+                    i -> row.get(fileData.getHeaders().get(i)), (i, value) -> value);
+            if (projected != null) {
+                rows.add(projected);
+            }
+        }
+        return FileData.builder()
+                .fileName(fileData.getFileName())
+                .headers(plan.headers())
+                .data(rows)
+                .totalRows(rows.size())
+                .build();
+    }
+
+    RowPlan plan(List<String> headers) {
+        List<Integer> filterColumns = new ArrayList<>();
+        List<String> needles = new ArrayList<>();
+        filters.forEach((column, needle) -> {
+            filterColumns.add(headers.indexOf(column));
+            needles.add(needle);
+        });
+        List<Integer> projected = new ArrayList<>();
+        for (int i = 0; i < headers.size(); i++) {
+            if (columns == null || columns.contains(headers.get(i))) {
+                projected.add(i);
+            }
+        }
+        return new RowPlan(headers,
+                filterColumns.stream().mapToInt(Integer::intValue).toArray(),
+                needles.toArray(new String[0]),
+                projected.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /** Encodes a converted cell value before it is stored, e.g. through a column dictionary. */
+    @FunctionalInterface
+    interface ValueEncoder {
+        Object encode(int column, Object value);
+    }
+
+    /** Options resolved against one file's header row. */
+    static class RowPlan {
+        private final List<String> headers;
+        private final int[] filterColumns;
+        private final String[] needles;
+        private final int[] projected;
+
+        RowPlan(List<String> headers, int[] filterColumns, String[] needles, int[] projected) {
+            this.headers = headers;
+            this.filterColumns = filterColumns;
+            this.needles = needles;
+            this.projected = projected;
+        }
+
+        int columnCount() {
+            return headers.size();
+        }
+
+        String header(int column) {
+            return headers.get(column);
+        }
+
+        List<String> headers() {
+            List<String> projectedHeaders = new ArrayList<>(projected.length);
+            for (int column : projected) {
+                projectedHeaders.add(headers.get(column));
+            }
+            return projectedHeaders;
+        }
+
+        boolean hasFilters() {
+            return filterColumns.length > 0;
+        }
+
+        /** Whether the plan needs the column's values, to filter or to return them. */
+        boolean reads(int column) {
+            for (int filterColumn : filterColumns) {
+                if (filterColumn == column) {
+                    return true;
+                }
+            }
+            for (int projectedColumn : projected) {
+                if (projectedColumn == column) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * True when some filter can match none of a block of rows, as judged by
+         * {@code mayMatch(column, needle)} from the block's metadata, so the whole
+         * block can be skipped.
+         */
+        boolean rejectsAll(BiPredicate<Integer, String> mayMatch) {
+            for (int f = 0; f < filterColumns.length; f++) {
+                if (!mayMatch.test(filterColumns[f], needles[f])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Tests the filters alone, converting only the filtered columns. */
+        boolean accepts(int width, IntFunction<Object> valueAt) {
+            for (int f = 0; f < filterColumns.length; f++) {
+                int column = filterColumns[f];
+                if (!FileViewService.matches(column >= 0 && column < width ? valueAt.apply(column) : null, needles[f])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Builds the row map from the first {@code width} cells, converting only
+         * filtered and projected columns, or returns null if a filter rejects the row.
+         */
+        Map<String, Object> row(int width, IntFunction<Object> valueAt, ValueEncoder encoder) {
+            Object[] filterValues = filterColumns.length == 0 ? null : new Object[filterColumns.length];
+            for (int f = 0; f < filterColumns.length; f++) {
+                int column = filterColumns[f];
+                Object value = column >= 0 && column < width ? valueAt.apply(column) : null;
+                if (!FileViewService.matches(value, needles[f])) {
+                    return null;
+                }
+                filterValues[f] = value;
+            }
+            Map<String, Object> row = new HashMap<>();
+            for (int column : projected) {
+                if (column >= width) {
+                    break;
+                }
+                row.put(headers.get(column), encoder.encode(column, converted(column, valueAt, filterValues)));
+            }
+            return row;
+        }
+
+        // Filter columns were already converted while testing the row
+        private Object converted(int column, IntFunction<Object> valueAt, Object[] filterValues) {
+            for (int f = 0; f < filterColumns.length; f++) {
+                if (filterColumns[f] == column) {
+                    return filterValues[f];
+                }
+            }
+            return valueAt.apply(column);
+        }
+    }
+}
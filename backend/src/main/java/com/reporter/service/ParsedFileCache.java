@@ -0,0 +1,257 @@
+package com.reporter.service;
+
+import com.reporter.model.FileData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.memory.RootAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps recently parsed files in memory, keyed by absolute path and bounded by
+ * entry count and by an off-heap budget of {@code app.cache.off-heap-mb}. Cached
+ * tables live outside the Java heap (see {@link OffHeapTable}), so a full cache
+ * adds nothing for the garbage collector to trace; readers decode the rows they
+ * need into short-lived heap objects. Entries for append-only text formats also
+ * remember how many bytes were parsed and a checksum of the block before that
+ * offset, so growth can be parsed incrementally.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ParsedFileCache {
+
+    @Value("${app.cache.max-entries}")
+    private int maxEntries;
+
+    @Value("${app.cache.off-heap-mb}")
+    private long offHeapMb;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private BufferAllocator allocator;
+    private long maxBytes;
+    private long cachedBytes;
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter appendCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        maxBytes = offHeapMb * 1024 * 1024;
+        // The allocator limit is the hard cap; it also covers evicted tables still being read
+        allocator = new RootAllocator(maxBytes);
+        Gauge.builder("reporter.parse.cache.entries", this, cache -> cache.size())
+                .register(meterRegistry);
+        Gauge.builder("reporter.parse.cache.off-heap", this, cache -> cache.allocator.getAllocatedMemory())
+                .description("Off-heap bytes held by cached and still-read tables")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        hitCounter = Counter.builder("reporter.parse.cache.requests").tag("result", "hit").register(meterRegistry);
+        missCounter = Counter.builder("reporter.parse.cache.requests").tag("result", "miss").register(meterRegistry);
+        appendCounter = Counter.builder("reporter.parse.cache.requests").tag("result", "append").register(meterRegistry);
+        rejectedCounter = Counter.builder("reporter.parse.cache.rejected")
+                .description("Parsed files not cached because they did not fit the off-heap budget")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        entries.values().forEach(entry -> entry.table.release());
+        entries.clear();
+        try {
+            allocator.close();
+        } catch (IllegalStateException e) {
+            // Requests still decoding at shutdown hold their tables
+            log.warn("Closing parse cache with tables still in use: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the cached entry with a reader reference held, or null. Callers must
+     * close the entry (try-with-resources) when done reading so it can be freed.
+     */
+    public synchronized Entry acquire(Path filePath) {
+        Entry entry = entries.get(filePath);
+        return entry != null && entry.table.retain() ? entry : null;
+    }
+
+    /**
+     * Copies a parsed file off-heap and caches it, evicting older entries to make
+     * room. Files that do not fit the budget, even with the cache emptied, are not cached.
+     */
+    public void put(Path filePath, FileData fileData, long size, long lastModified, long parsedBytes, long tailChecksum) {
+        OffHeapTable.Layout layout = OffHeapTable.layout(fileData);
+        if (layout == null || layout.bytes() > maxBytes) {
+            rejectedCounter.increment();
+            invalidate(filePath);
+            return;
+        }
+
+        OffHeapTable table;
+        synchronized (this) {
+            remove(filePath);
+            evict(layout.bytes());
+        }
+        try {
+            table = OffHeapTable.write(layout, allocator);
+        } catch (OutOfMemoryException e) {
+            // Evicted tables that are still being read have not been freed yet
+            rejectedCounter.increment();
+            log.debug("Not caching {}: off-heap budget in use by readers", filePath);
+            return;
+        }
+
+        synchronized (this) {
+            remove(filePath);
+            entries.put(filePath, new Entry(table, size, lastModified, parsedBytes, tailChecksum));
+            cachedBytes += table.bytes();
+            evict(0);
+        }
+    }
+
+    /**
+     * Whether a file with this much content may fit the off-heap budget once parsed.
+     * Only a guess from the file size; {@link #put} decides from the actual layout.
+     */
+    public boolean mayFit(long contentBytes) {
+        return contentBytes <= maxBytes;
+    }
+
+    public synchronized void invalidate(Path filePath) {
+        remove(filePath);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    void recordHit() {
+        hitCounter.increment();
+    }
+
+    void recordMiss() {
+        missCounter.increment();
+    }
+
+    void recordAppend() {
+        appendCounter.increment();
+    }
+
+    private void remove(Path filePath) {
+        Entry removed = entries.remove(filePath);
+        if (removed != null) {
+            cachedBytes -= removed.table.bytes();
+            removed.table.release();
+        }
+    }
+
+    // Evicts least recently used entries until the count and budget leave room for the given bytes
+    private void evict(long neededBytes) {
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || cachedBytes + neededBytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<Path, Entry> eldest = iterator.next();
+            iterator.remove();
+            cachedBytes -= eldest.getValue().table.bytes();
+            // Freed now, or by the last reader still decoding it
+            eldest.getValue().table.release();
+            log.debug("Evicted parsed file from cache: {}", eldest.getKey());
+        }
+    }
+
+    /**
+     * A cached file. Entries come from {@link #acquire} with a reader reference that
+     * {@link #close()} gives back.
+     */
+    @Getter
+    public static class Entry implements AutoCloseable {
+        @Getter(AccessLevel.NONE)
+        private final OffHeapTable table;
+        private final long size;
+        private final long lastModified;
+        /** Bytes covered by the cached rows, or -1 when the file cannot be extended incrementally */
+        private final long parsedBytes;
+        private final long tailChecksum;
+
+        private Entry(OffHeapTable table, long size, long lastModified, long parsedBytes, long tailChecksum) {
+            this.table = table;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.parsedBytes = parsedBytes;
+            this.tailChecksum = tailChecksum;
+        }
+
+        public boolean isCurrent(long currentSize, long currentLastModified) {
+            return size == currentSize && lastModified == currentLastModified;
+        }
+
+        public boolean mayHaveBeenAppended(long currentSize, long currentLastModified) {
+            return parsedBytes > 0 && currentSize > parsedBytes && currentLastModified != lastModified;
+        }
+
+        OffHeapTable table() {
+            return table;
+        }
+
+        /** Rough heap a full decode takes; callers hold an admission permit of this size while decoding. */
+        public long decodedBytes() {
+            return OffHeapTable.decodedBytes(table.rowCount(), table.headers().size());
+        }
+
+        /** Decodes every row onto the heap. */
+        public FileData readFileData() {
+            try (RequestTiming.Span span = RequestTiming.phase("cache")) {
+                return table.read(0, table.rowCount());
+            }
+        }
+
+        /** Decodes only the rows of one page; {@code totalRows} stays the size of the whole file. */
+        public FileData readPage(int offset, Integer limit) {
+            int from = Math.min(Math.max(offset, 0), table.rowCount());
+            int to = limit == null ? table.rowCount() : (int) Math.min((long) from + limit, table.rowCount());
+            try (RequestTiming.Span span = RequestTiming.phase("cache")) {
+                return table.read(from, to);
+            }
+        }
+
+        /** Rows passing the filters of {@code plan}, decoding only the filtered columns. */
+        int[] matchingRows(ParseOptions.RowPlan plan) {
+            try (RequestTiming.Span span = RequestTiming.phase("cache")) {
+                return table.matchingRows(plan);
+            }
+        }
+
+        /** Decodes the projected columns of the given rows; {@code totalRows} is the number of rows. */
+        FileData read(ParseOptions.RowPlan plan, int[] rows) {
+            try (RequestTiming.Span span = RequestTiming.phase("cache")) {
+                return table.read(plan, rows);
+            }
+        }
+
+        @Override
+        public void close() {
+            table.release();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.reporter.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a byte stream into records on '\n' (dropping a trailing '\r') and remembers
+ * the byte offset at which each record starts. In quote-aware mode, newlines inside
+ * double-quoted CSV fields do not end the record. Quotes follow RFC 4180: a
+ * doubled quote toggles twice and backslashes escape nothing, matching the CSV
+ * parser FileParsingService uses.
+ */
+class RecordScanner implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final boolean quoteAware;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferLength;
+    private int bufferPosition;
+    private long bufferStart;
+
+    private byte[] record = new byte[256];
+    private long recordStart;
+
+    /**
+     * @param startOffset file offset of the first byte {@code in} will return
+     */
+    RecordScanner(InputStream in, long startOffset, boolean quoteAware) {
+        this.in = in;
+        this.quoteAware = quoteAware;
+        this.bufferStart = startOffset;
+    }
+
+    /** Returns the next record without its line terminator, or null at the end of the stream. */
+    String next() throws IOException {
+        int length = 0;
+        boolean inQuotes = false;
+        recordStart = bufferStart + bufferPosition;
+        while (true) {
+            if (bufferPosition == bufferLength && !fill()) {
+                return length == 0 ? null : decode(length);
+            }
+            byte b = buffer[bufferPosition++];
+            if (b == '\n' && !inQuotes) {
+                return decode(length);
+            }
+            if (quoteAware && b == '"') {
+                inQuotes = !inQuotes;
+            }
+            if (length == record.length) {
+                record = Arrays.copyOf(record, length * 2);
+            }
+            record[length++] = b;
+        }
+    }
+
+    /** Byte offset of the record last returned by {@link #next()}. */
+    long recordStart() {
+        return recordStart;
+    }
+
+    private boolean fill() throws IOException {
+        bufferStart += bufferLength;
+        bufferPosition = 0;
+        bufferLength = Math.max(in.read(buffer), 0);
+        return bufferLength > 0;
+    }
+
+    private String decode(int length) {
+        if (length > 0 && record[length - 1] == '\r') {
+            length--;
+        }
+        return new String(record, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
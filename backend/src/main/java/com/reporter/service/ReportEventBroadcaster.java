@@ -0,0 +1,316 @@
+package com.reporter.service;
+
+import com.reporter.dto.FileInfo;
+import com.reporter.dto.ReportEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans report events out to every Server-Sent Events subscriber. Publishers only
+ * offer to a bounded queue, so they never wait on clients; one dispatch thread
+ * hands each event to a bounded queue per subscriber and keeps the last
+ * {@code app.events.replay-size} events so a reconnecting client resumes from its
+ * {@code Last-Event-ID}. Each subscriber's queue is written to its stream by a
+ * sender thread of its own while it has events, so a slow client only delays
+ * itself. Clients that missed more than the replay, fell
+ * {@code app.events.subscriber-queue-capacity} events behind, or lost events
+ * dropped on a full dispatch queue get a {@code resync} event telling them to reload.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReportEventBroadcaster {
+
+    public static final String RESYNC = "resync";
+
+    private static final Object WAKE_UP = new Object();
+
+    @Value("${app.events.max-subscribers}")
+    private int maxSubscribers;
+
+    @Value("${app.events.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${app.events.subscriber-queue-capacity}")
+    private int subscriberQueueCapacity;
+
+    @Value("${app.events.replay-size}")
+    private int replaySize;
+
+    @Value("${app.events.heartbeat-seconds}")
+    private long heartbeatSeconds;
+
+    @Value("${app.events.timeout-ms}")
+    private long timeoutMs;
+
+    private final MeterRegistry meterRegistry;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Only touched by the dispatch thread
+    private final Deque<ReportEvent> recent = new ArrayDeque<>();
+
+    private BlockingQueue<Object> queue;
+    private Thread dispatcher;
+    private ThreadPoolExecutor senders;
+    // Seeded from the clock so ids keep increasing across restarts
+    private final long firstSequence = System.currentTimeMillis();
+    private long sequence = firstSequence;
+    private volatile boolean overflowed;
+    private Counter published;
+    private Counter dropped;
+    private Counter slow;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        dispatcher = new Thread(this::dispatch, "report-events");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        // At most one sender per subscriber, and only while it has queued events
+        AtomicInteger senderThreads = new AtomicInteger();
+        senders = new ThreadPoolExecutor(0, maxSubscribers, 30, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-events-sender-" + senderThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("reporter.events.subscribers", subscribers, List::size)
+                .description("Open report event streams")
+                .register(meterRegistry);
+        published = Counter.builder("reporter.events.published")
+                .description("Report events queued for subscribers")
+                .register(meterRegistry);
+        dropped = Counter.builder("reporter.events.dropped")
+                .description("Report events dropped because the dispatch queue was full")
+                .register(meterRegistry);
+        slow = Counter.builder("reporter.events.slow-subscribers")
+                .description("Times a subscriber's queue was full and its queued events were replaced by a resync")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /** Queues an event for all subscribers; never blocks, so it is safe to call under locks. */
+    public void publish(String type, String reportId, String reportName, String fileName, FileInfo file) {
+        ReportEvent event = ReportEvent.builder()
+                .type(type)
+                .reportId(reportId)
+                .reportName(reportName)
+                .fileName(fileName)
+                .file(file)
+                .timestamp(LocalDateTime.now())
+                .build();
+        boolean accepted;
+        // Ids are only taken by queued events, so a gap always means a client missed something
+        synchronized (this) {
+            accepted = queue.remainingCapacity() > 0;
+            if (accepted) {
+                event.setId(++sequence);
+                queue.add(event);
+            }
+        }
+        if (accepted) {
+            published.increment();
+        } else {
+            overflowed = true;
+            dropped.increment();
+            log.warn("Report event queue is full, dropping {} for report {}", type, reportName);
+        }
+    }
+
+    /**
+     * Opens a stream for a new subscriber, replaying events after {@code lastEventId}
+     * if given. Returns null when {@code app.events.max-subscribers} streams are open.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber;
+        synchronized (this) {
+            if (subscribers.size() >= maxSubscribers) {
+                return null;
+            }
+            subscriber = new Subscriber(emitter, lastEventId != null ? lastEventId : sequence, subscriberQueueCapacity);
+            // Ids from before a restart cannot be replayed
+            subscriber.resync = lastEventId != null && lastEventId < firstSequence;
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        // Lets the dispatch thread open the stream and replay right away
+        queue.offer(WAKE_UP);
+        return emitter;
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Object item;
+            try {
+                item = queue.poll(heartbeatSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (item instanceof ReportEvent event) {
+                recent.addLast(event);
+                if (recent.size() > replaySize) {
+                    recent.removeFirst();
+                }
+            }
+            boolean resyncAll = overflowed;
+            overflowed = false;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.resync |= resyncAll;
+                catchUp(subscriber, item == null);
+                schedule(subscriber);
+            }
+        }
+    }
+
+    // Queues what the subscriber has not been given yet; only the dispatch thread calls this
+    private void catchUp(Subscriber subscriber, boolean heartbeat) {
+        List<ReportEvent> missed = new ArrayList<>();
+        Iterator<ReportEvent> newestFirst = recent.descendingIterator();
+        while (newestFirst.hasNext()) {
+            ReportEvent event = newestFirst.next();
+            if (event.getId() <= subscriber.lastQueued) {
+                break;
+            }
+            missed.add(event);
+        }
+        Collections.reverse(missed);
+
+        boolean resync = subscriber.resync || (!missed.isEmpty() && missed.get(0).getId() > subscriber.lastQueued + 1);
+        if (!subscriber.opened || heartbeat) {
+            subscriber.opened = true;
+            // A comment commits the response so the client sees the stream open
+            if (!enqueue(subscriber, SseEmitter.event().comment(heartbeat ? "heartbeat" : "connected"))) {
+                return;
+            }
+        }
+        if (resync) {
+            subscriber.resync = false;
+            if (!enqueue(subscriber, SseEmitter.event().name(RESYNC).data(RESYNC))) {
+                return;
+            }
+        }
+        for (ReportEvent event : missed) {
+            if (!enqueue(subscriber, SseEmitter.event()
+                    .id(Long.toString(event.getId()))
+                    .name(event.getType())
+                    .data(event, MediaType.APPLICATION_JSON))) {
+                return;
+            }
+            subscriber.lastQueued = event.getId();
+        }
+    }
+
+    /**
+     * Offers an event to the subscriber's queue. A full queue means the client is
+     * not keeping up, so its queued events are replaced by a single resync and it
+     * skips to the newest event.
+     */
+    private boolean enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.outbox.offer(event)) {
+            return true;
+        }
+        subscriber.outbox.clear();
+        subscriber.outbox.offer(SseEmitter.event().name(RESYNC).data(RESYNC));
+        if (!recent.isEmpty()) {
+            subscriber.lastQueued = Math.max(subscriber.lastQueued, recent.getLast().getId());
+        }
+        slow.increment();
+        log.debug("Report event subscriber is {} events behind, sending resync", subscriberQueueCapacity);
+        return false;
+    }
+
+    // Starts a sender for the subscriber unless one is already draining its queue
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.outbox.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Shutting down, or every sender is busy; the next dispatch tries again
+            subscriber.draining.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event = subscriber.outbox.poll();
+            if (event == null) {
+                subscriber.draining.set(false);
+                // Re-check, so an event queued between the poll and clearing the flag is not left waiting
+                if (subscriber.outbox.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            if (!send(subscriber, event)) {
+                return;
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the container completes the emitter
+            log.debug("Dropping report event subscriber: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.outbox.clear();
+            return false;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> outbox;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Dispatch thread only
+        private long lastQueued;
+        private boolean opened;
+        private boolean resync;
+
+        private Subscriber(SseEmitter emitter, long lastQueued, int queueCapacity) {
+            this.emitter = emitter;
+            this.lastQueued = lastQueued;
+            this.outbox = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
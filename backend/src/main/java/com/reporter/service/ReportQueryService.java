@@ -0,0 +1,375 @@
+package com.reporter.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reporter.dto.QueryJoin;
+import com.reporter.dto.ReportQueryRequest;
+import com.reporter.exception.FileAccessException;
+import com.reporter.model.Report;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs simple queries across the files of one report: UNION ALL of every file
+ * matching a glob, followed by optional hash joins against other files. All
+ * referenced files are loaded in parallel into the parse cache and held open until
+ * the page is written. Rows are decoded from the cache and produced lazily, so of
+ * the union only the requested page is materialised; the joined files are
+ * materialised whole, as their hash tables.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportQueryService {
+
+    public static final String SOURCE_FILE_COLUMN = "_file";
+
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    @Value("${app.query.parallelism}")
+    private int parallelism;
+
+    @Value("${app.query.max-files}")
+    private int maxFiles;
+
+    @Value("${app.query.default-limit}")
+    private int defaultLimit;
+
+    private final FileParsingService fileParsingService;
+    private final ReportService reportService;
+    private final ObjectMapper objectMapper;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "report-query-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resolves and scans every file the query touches and validates schemas and
+     * join keys, so all errors surface before the response starts streaming.
+     */
+    public QueryResult execute(Report report, ReportQueryRequest request) {
+        List<String> reportFiles = reportService.getReportFiles(report.getId());
+        List<String> sourceFiles = matchFiles(reportFiles, request.getFrom());
+        List<List<String>> joinFiles = new ArrayList<>();
+        for (QueryJoin join : request.getJoins()) {
+            joinFiles.add(matchFiles(reportFiles, join.getFile()));
+        }
+
+        Set<String> needed = new LinkedHashSet<>(sourceFiles);
+        joinFiles.forEach(needed::addAll);
+        if (needed.size() > maxFiles) {
+            throw new FileAccessException("A query may read at most " + maxFiles + " files, got " + needed.size());
+        }
+        Map<String, FileRows> tables = scan(report, needed);
+        try {
+            List<String> headers = new ArrayList<>();
+            if (request.isIncludeSourceFile()) {
+                headers.add(SOURCE_FILE_COLUMN);
+            }
+            headers.addAll(commonHeaders(request.getFrom(), sourceFiles, tables));
+            Stream<Map<String, Object>> rows = union(sourceFiles, tables, request.isIncludeSourceFile());
+
+            for (int i = 0; i < request.getJoins().size(); i++) {
+                QueryJoin join = request.getJoins().get(i);
+                List<String> buildFiles = joinFiles.get(i);
+                List<String> buildHeaders = commonHeaders(join.getFile(), buildFiles, tables);
+                HashJoin hashJoin = new HashJoin(join, headers, buildHeaders);
+                hashJoin.build(union(buildFiles, tables, false));
+                headers = hashJoin.getOutputHeaders();
+                rows = rows.flatMap(hashJoin::probe);
+            }
+
+            // Closing the rows, as writePage does, releases the cached files
+            return new QueryResult(headers, rows.onClose(() -> tables.values().forEach(FileRows::close)));
+        } catch (RuntimeException e) {
+            tables.values().forEach(FileRows::close);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes one page of the result as an {@code ApiResponse}-shaped JSON document,
+     * flushing periodically so large pages reach the client while still being produced.
+     */
+    public void writePage(QueryResult result, Integer offset, Integer limit, OutputStream outputStream) throws IOException {
+        int from = offset != null ? offset : 0;
+        int pageSize = limit != null ? limit : defaultLimit;
+
+        try (Stream<Map<String, Object>> rows = result.getRows();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeBooleanField("success", true);
+            generator.writeObjectFieldStart("data");
+            generator.writeObjectField("headers", result.getHeaders());
+            generator.writeNumberField("offset", from);
+            generator.writeArrayFieldStart("data");
+
+            Iterator<Map<String, Object>> iterator = rows.skip(from).limit((long) pageSize + 1).iterator();
+            int written = 0;
+            while (written < pageSize && iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                if (++written % FLUSH_EVERY_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+            boolean hasMore = iterator.hasNext();
+
+            generator.writeEndArray();
+            generator.writeNumberField("returnedRows", written);
+            generator.writeBooleanField("hasMore", hasMore);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    private List<String> matchFiles(List<String> reportFiles, String pattern) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        List<String> matched = reportFiles.stream()
+                .filter(fileName -> matcher.matches(Paths.get(fileName)))
+                .collect(Collectors.toList());
+        if (matched.isEmpty()) {
+            throw new FileAccessException("No files in report match '" + pattern + "'");
+        }
+        return matched;
+    }
+
+    /**
+     * Opens every file on the query threads. If one fails, the files opened so far
+     * are closed, and so are those whose task finishes after the failure.
+     */
+    private Map<String, FileRows> scan(Report report, Set<String> fileNames) {
+        Path reportDirectory = fileParsingService.resolveReportDirectory(report.getPath());
+        List<FileRows> opened = new ArrayList<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        Map<String, Future<FileRows>> futures = new LinkedHashMap<>();
+        for (String fileName : fileNames) {
+            futures.put(fileName, executor.submit(() -> {
+                FileRows rows = fileParsingService.openRows(reportDirectory, fileName, ParseOptions.ALL);
+                synchronized (opened) {
+                    if (abandoned.get()) {
+                        rows.close();
+                        return null;
+                    }
+                    opened.add(rows);
+                }
+                return rows;
+            }));
+        }
+
+        Map<String, FileRows> tables = new HashMap<>();
+        boolean complete = false;
+        try {
+            for (Map.Entry<String, Future<FileRows>> entry : futures.entrySet()) {
+                tables.put(entry.getKey(), entry.getValue().get());
+            }
+            complete = true;
+            return tables;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileAccessException("Interrupted while scanning files of report " + report.getId());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new FileAccessException("Error scanning files of report " + report.getId(), e.getCause());
+        } finally {
+            if (!complete) {
+                futures.values().forEach(future -> future.cancel(true));
+                synchronized (opened) {
+                    abandoned.set(true);
+                    opened.forEach(FileRows::close);
+                }
+            }
+        }
+    }
+
+    private List<String> commonHeaders(String pattern, List<String> fileNames, Map<String, FileRows> tables) {
+        List<String> headers = tables.get(fileNames.get(0)).getHeaders();
+        for (String fileName : fileNames) {
+            if (!tables.get(fileName).getHeaders().equals(headers)) {
+                throw new FileAccessException("Files matching '" + pattern + "' do not share the same columns: "
+                        + fileNames.get(0) + " has " + headers + ", " + fileName + " has " + tables.get(fileName).getHeaders());
+            }
+        }
+        return headers;
+    }
+
+    // Chained by hand: read through an iterator, flatMap would decode a whole file into its buffer
+    private Stream<Map<String, Object>> union(List<String> fileNames, Map<String, FileRows> tables, boolean includeSourceFile) {
+        Iterator<String> files = fileNames.iterator();
+        Iterator<Map<String, Object>> rows = new Iterator<>() {
+            private String fileName;
+            private Iterator<Map<String, Object>> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && files.hasNext()) {
+                    fileName = files.next();
+                    current = tables.get(fileName).stream().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map<String, Object> row = current.next();
+                if (!includeSourceFile) {
+                    return row;
+                }
+                Map<String, Object> tagged = new LinkedHashMap<>();
+                tagged.put(SOURCE_FILE_COLUMN, fileName);
+                tagged.putAll(row);
+                return tagged;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false);
+    }
+
+    // Numbers compare by value so an Excel long key matches a CSV integer key
+    private static Object keyValue(Object value) {
+        if (value instanceof Number number) {
+            double d = number.doubleValue();
+            if (d == Math.rint(d) && !Double.isInfinite(d)) {
+                return (long) d;
+            }
+            return d;
+        }
+        return value;
+    }
+
+    private static List<Object> key(Map<String, Object> row, List<String> columns) {
+        List<Object> key = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            Object value = row.get(column);
+            if (value == null || "".equals(value)) {
+                // Empty keys never match, as with SQL NULL
+                return null;
+            }
+            key.add(keyValue(value));
+        }
+        return key;
+    }
+
+    private static final class HashJoin {
+        private final boolean leftJoin;
+        private final List<String> leftKeys;
+        private final List<String> rightKeys;
+        // Right-side column name -> output column name, excluding the key columns
+        private final Map<String, String> rightColumns = new LinkedHashMap<>();
+        @Getter
+        private final List<String> outputHeaders;
+        private final Map<List<Object>, List<Map<String, Object>>> index = new HashMap<>();
+
+        HashJoin(QueryJoin join, List<String> leftHeaders, List<String> rightHeaders) {
+            this.leftJoin = "left".equals(join.getType());
+            this.leftKeys = join.getLeftKeys();
+            this.rightKeys = join.getRightKeys() != null && !join.getRightKeys().isEmpty()
+                    ? join.getRightKeys() : join.getLeftKeys();
+            if (leftKeys.size() != rightKeys.size()) {
+                throw new FileAccessException("Join on '" + join.getFile() + "' needs the same number of left and right keys");
+            }
+            checkColumns(leftKeys, leftHeaders, "left side of join on '" + join.getFile() + "'");
+            checkColumns(rightKeys, rightHeaders, "'" + join.getFile() + "'");
+
+            String prefix = join.getFile().contains(".")
+                    ? join.getFile().substring(0, join.getFile().lastIndexOf('.')) : join.getFile();
+            outputHeaders = new ArrayList<>(leftHeaders);
+            for (String header : rightHeaders) {
+                if (rightKeys.contains(header)) {
+                    continue;
+                }
+                String output = outputHeaders.contains(header) ? prefix + "." + header : header;
+                rightColumns.put(header, output);
+                outputHeaders.add(output);
+            }
+        }
+
+        void build(Stream<Map<String, Object>> rightRows) {
+            rightRows.forEach(row -> {
+                List<Object> key = key(row, rightKeys);
+                if (key != null) {
+                    index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(row);
+                }
+            });
+        }
+
+        Stream<Map<String, Object>> probe(Map<String, Object> left) {
+            List<Object> key = key(left, leftKeys);
+            List<Map<String, Object>> matches = key != null ? index.get(key) : null;
+            if (matches == null) {
+                return leftJoin ? Stream.of(merge(left, null)) : Stream.empty();
+            }
+            return matches.stream().map(right -> merge(left, right));
+        }
+
+        private Map<String, Object> merge(Map<String, Object> left, Map<String, Object> right) {
+            Map<String, Object> merged = new LinkedHashMap<>(left);
+            rightColumns.forEach((column, output) -> merged.put(output, right != null ? right.getOrDefault(column, "") : ""));
+            return merged;
+        }
+
+        private static void checkColumns(List<String> columns, List<String> headers, String side) {
+            for (String column : columns) {
+                if (!headers.contains(column)) {
+                    throw new FileAccessException("Column '" + column + "' not found in " + side);
+                }
+            }
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class QueryResult {
+        private final List<String> headers;
+        private final Stream<Map<String, Object>> rows;
+    }
+}
@@ -0,0 +1,188 @@
+package com.reporter.service;
+
+import com.reporter.model.Report;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rescans every report's folder every {@code app.refresh.interval-seconds}, so
+ * file listings stay current without readers paying for the scan. Folders are
+ * scanned in parallel on {@code app.refresh.parallelism} threads. Each NAS mount's
+ * reports wait in their own queue, drained by at most {@code app.refresh.per-mount-concurrency}
+ * threads, so one slow NFS export cannot occupy every thread. Changed reports are then stored in one batch.
+ * Runs, scheduled or requested, take turns on one scheduler thread.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportRefreshService {
+
+    @Value("${app.nas.base-path}")
+    private String nasBasePath;
+
+    @Value("${app.refresh.interval-seconds}")
+    private long intervalSeconds;
+
+    @Value("${app.refresh.parallelism}")
+    private int parallelism;
+
+    @Value("${app.refresh.per-mount-concurrency}")
+    private int perMountConcurrency;
+
+    private final ReportService reportService;
+    private final NasAccessGuard nasAccessGuard;
+    private final MeterRegistry meterRegistry;
+
+    // Set while a requested run waits for the scheduler thread; later requests join it
+    private final AtomicBoolean runQueued = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService scanners;
+    private Timer runTimer;
+    private Counter changedReports;
+    private Counter failedScans;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threads = new AtomicInteger();
+        scanners = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "report-refresh-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-refresh-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        runTimer = Timer.builder("reporter.refresh.runs")
+                .description("Time to rescan and store every report")
+                .register(meterRegistry);
+        changedReports = Counter.builder("reporter.refresh.changed")
+                .description("Reports whose file listing changed in a refresh run")
+                .register(meterRegistry);
+        failedScans = Counter.builder("reporter.refresh.failures")
+                .description("Report folders that could not be scanned")
+                .register(meterRegistry);
+        if (intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        scanners.shutdownNow();
+    }
+
+    /**
+     * Queues a rescan of all reports on the scheduler thread and returns at once.
+     * Requests made while a run is queued join that run; a request made during a
+     * run queues one more, so changes made meanwhile are picked up too. Returns
+     * false when the request joined a queued run.
+     */
+    public boolean requestRefresh() {
+        if (!runQueued.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            scheduler.execute(() -> {
+                runQueued.set(false);
+                refreshQuietly();
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; there is nothing left to refresh for
+            runQueued.set(false);
+        }
+        return true;
+    }
+
+    // Rescans all reports and stores the changed ones; returns the number of reports that changed
+    private int refreshAll() {
+        long start = System.nanoTime();
+        Map<String, Queue<Report>> reportsByMount = new LinkedHashMap<>();
+        for (Report report : reportService.getAllReports()) {
+            reportsByMount.computeIfAbsent(mountOf(report), key -> new ConcurrentLinkedQueue<>()).add(report);
+        }
+        Queue<ReportService.FolderScan> scans = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> drains = new ArrayList<>();
+        reportsByMount.forEach((mount, reports) -> {
+            for (int i = Math.min(perMountConcurrency, reports.size()); i > 0; i--) {
+                drains.add(CompletableFuture.runAsync(() -> drain(mount, reports, scans), scanners));
+            }
+        });
+        CompletableFuture.allOf(drains.toArray(CompletableFuture[]::new)).join();
+        int changed = reportService.applyScans(scans).size();
+        long elapsed = System.nanoTime() - start;
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        changedReports.increment(changed);
+        log.info("Refreshed {} reports in {} ms, {} changed", scans.size(), elapsed / 1_000_000, changed);
+        return changed;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refreshAll();
+        } catch (RuntimeException e) {
+            // Keeps the schedule alive; the next run starts over
+            log.error("Report refresh failed", e);
+        }
+    }
+
+    // Scans the mount's queued reports one after another, until the queue is empty
+    private void drain(String mount, Queue<Report> reports, Queue<ReportService.FolderScan> scans) {
+        Report report;
+        while ((report = reports.poll()) != null && !Thread.currentThread().isInterrupted()) {
+            ReportService.FolderScan scan = scan(mount, report);
+            if (scan != null) {
+                scans.add(scan);
+            }
+        }
+    }
+
+    private ReportService.FolderScan scan(String mount, Report report) {
+        long start = System.nanoTime();
+        try {
+            return reportService.scanFolder(report);
+        } catch (RuntimeException e) {
+            failedScans.increment();
+            log.warn("Cannot refresh report {}: {}", report.getName(), e.getMessage());
+            return null;
+        } finally {
+            Timer.builder("reporter.refresh.report")
+                    .description("Time to scan one report folder")
+                    .tag("mount", mount)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // The mount holding the report's folder, e.g. one NFS export; asking the file store could hang on it
+    private String mountOf(Report report) {
+        String path = report.getPath().startsWith("/") ? report.getPath().substring(1) : report.getPath();
+        return nasAccessGuard.mountOf(Paths.get(nasBasePath, path));
+    }
+}
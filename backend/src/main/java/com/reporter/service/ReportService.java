@@ -1,11 +1,14 @@
 package com.reporter.service;
 
 import com.reporter.model.Report;
+import com.reporter.model.ReportConfig;
 import com.reporter.dto.CreateReportRequest;
 import com.reporter.dto.FileInfo;
+import com.reporter.dto.ReportEvent;
 import com.reporter.exception.ReportNotFoundException;
 import com.reporter.exception.FileAccessException;
 import com.reporter.exception.DuplicateReportPathException;
+import com.reporter.repository.ReportRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -16,16 +19,26 @@ import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -34,28 +47,42 @@ public class ReportService {
     @Value("${app.nas.base-path}")
     private String nasBasePath;
 
-    @Value("${app.storage.config-path}")
-    private String configPath;
-
     @Value("${app.nas.allowed-extensions}")
     private String allowedExtensions;
 
+    @Value("${app.refresh.interval-seconds}")
+    private long refreshIntervalSeconds;
+
     private final ObjectMapper yamlMapper;
+    private final ReportRepository reportRepository;
+    private final ReportEventBroadcaster eventBroadcaster;
+    private final FileRowCounter fileRowCounter;
+    private final NasAccessGuard nasAccessGuard;
     private final Map<String, Report> reportCache = new ConcurrentHashMap<>();
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object metadataLoadLock = new Object();
+
+    // False until the file details a repository may skip at startup have been merged in
+    private volatile boolean fullMetadataLoaded;
 
-    public ReportService() {
+    public ReportService(ReportRepository reportRepository, ReportEventBroadcaster eventBroadcaster,
+                         FileRowCounter fileRowCounter, NasAccessGuard nasAccessGuard) {
+        this.reportRepository = reportRepository;
+        this.eventBroadcaster = eventBroadcaster;
+        this.fileRowCounter = fileRowCounter;
+        this.nasAccessGuard = nasAccessGuard;
         this.yamlMapper = new ObjectMapper(new YAMLFactory());
         this.yamlMapper.registerModule(new JavaTimeModule());
     }
 
     @PostConstruct
     public void init() {
-        loadReports();
+        reportRepository.loadIndex().forEach(report -> reportCache.put(report.getId(), report));
+        log.info("Loaded {} reports", reportCache.size());
     }
 
     public List<Report> getAllReports() {
-        lock.readLock().lock();
+        lockForRead();
         try {
             return List.copyOf(reportCache.values());
         } finally {
@@ -64,12 +91,16 @@ public class ReportService {
     }
 
     public Report getReportById(String id) {
-        lock.readLock().lock();
+        lockForRead();
         try {
             Report report = reportCache.get(id);
             if (report == null) {
                 throw new ReportNotFoundException("Report with id " + id + " not found");
             }
+            if (report.getFileDetails() == null && !fullMetadataLoaded) {
+                ensureFullMetadata();
+                report = reportCache.getOrDefault(id, report);
+            }
             return report;
         } finally {
             lock.readLock().unlock();
@@ -77,7 +108,10 @@ public class ReportService {
     }
 
     public Report createReport(CreateReportRequest request) {
-        lock.writeLock().lock();
+        // Listed before taking the lock, so a slow mount does not hold up every other request
+        List<FileInfo> fileDetails = scanReportFileDetails(request.getPath());
+        List<String> files = fileNames(fileDetails);
+        lockForWrite();
         try {
             // Check for duplicate path
             Report existingReport = reportCache.values().stream()
@@ -90,8 +124,6 @@ public class ReportService {
             }
             
             String reportId = UUID.randomUUID().toString();
-            List<String> files = scanReportFiles(request.getPath());
-            List<FileInfo> fileDetails = scanReportFileDetails(request.getPath());
             
             Report report = Report.builder()
                     .id(reportId)
@@ -104,7 +136,8 @@ public class ReportService {
                     .build();
 
             reportCache.put(reportId, report);
-            saveReports();
+            reportRepository.save(report);
+            publish(ReportEvent.REPORT_CREATED, report);
             
             log.info("Created new report: {} with {} files", report.getName(), files.size());
             return report;
@@ -114,7 +147,10 @@ public class ReportService {
     }
 
     public Report updateReport(String id, CreateReportRequest request) {
-        lock.writeLock().lock();
+        // Listed before taking the lock, so a slow mount does not hold up every other request
+        List<FileInfo> fileDetails = scanReportFileDetails(request.getPath());
+        List<String> files = fileNames(fileDetails);
+        lockForWrite();
         try {
             Report existingReport = reportCache.get(id);
             if (existingReport == null) {
@@ -131,9 +167,6 @@ public class ReportService {
                 throw new DuplicateReportPathException(request.getPath(), duplicateReport.getName());
             }
 
-            List<String> files = scanReportFiles(request.getPath());
-            List<FileInfo> fileDetails = scanReportFileDetails(request.getPath());
-            
             Report updatedReport = Report.builder()
                     .id(id)
                     .name(request.getName())
@@ -145,7 +178,9 @@ public class ReportService {
                     .build();
 
             reportCache.put(id, updatedReport);
-            saveReports();
+            reportRepository.save(updatedReport);
+            publish(ReportEvent.REPORT_UPDATED, updatedReport);
+            publishFileChanges(existingReport, updatedReport);
             
             log.info("Updated report: {} with {} files", updatedReport.getName(), files.size());
             return updatedReport;
@@ -155,127 +190,171 @@ public class ReportService {
     }
 
     public void deleteReport(String id) {
-        lock.writeLock().lock();
+        lockForWrite();
         try {
             Report report = reportCache.remove(id);
             if (report == null) {
                 throw new ReportNotFoundException("Report with id " + id + " not found");
             }
-            saveReports();
+            reportRepository.delete(id);
+            publish(ReportEvent.REPORT_DELETED, report);
             log.info("Deleted report: {}", report.getName());
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Rescans the report's folder. The scan runs without the report lock, so other
+     * requests are not held up by a slow mount; the result is stored only if the
+     * report was not changed in the meantime.
+     */
     public Report refreshReport(String id) {
-        lock.writeLock().lock();
-        try {
-            Report report = reportCache.get(id);
-            if (report == null) {
-                throw new ReportNotFoundException("Report with id " + id + " not found");
-            }
+        Report report = getReportById(id);
+        FolderScan scan = scanFolder(report);
+        if (applyScans(List.of(scan)).isEmpty()) {
+            log.debug("Report {} is unchanged", report.getName());
+        }
+        return getReportById(id);
+    }
 
-            List<String> currentFiles = scanReportFiles(report.getPath());
-            List<FileInfo> currentFileDetails = scanReportFileDetails(report.getPath());
-            Report updatedReport = Report.builder()
-                    .id(report.getId())
-                    .name(report.getName())
-                    .path(report.getPath())
-                    .files(currentFiles)
-                    .fileDetails(currentFileDetails)
-                    .createdAt(report.getCreatedAt())
-                    .updatedAt(LocalDateTime.now())
-                    .build();
+    /** Lists the report's folder once; takes no lock. */
+    public FolderScan scanFolder(Report report) {
+        List<FileInfo> fileDetails = scanReportFileDetails(report.getPath());
+        return new FolderScan(report, fileNames(fileDetails), fileDetails);
+    }
 
-            reportCache.put(id, updatedReport);
-            saveReports();
-            
-            log.info("Refreshed report: {} with {} files", updatedReport.getName(), currentFiles.size());
-            return updatedReport;
+    // The details are sorted by name, so the names come out in the same order
+    private static List<String> fileNames(List<FileInfo> fileDetails) {
+        return fileDetails.stream().map(FileInfo::getName).collect(Collectors.toList());
+    }
+
+    /**
+     * Stores the scans whose listing differs from the report in one repository
+     * batch and announces the changes. Scans that only fill in row counts are
+     * stored without an announcement. Scans of reports updated, refreshed or
+     * deleted since they were taken are dropped. Returns the updated reports.
+     */
+    public List<Report> applyScans(Collection<FolderScan> scans) {
+        lockForWrite();
+        try {
+            List<Report> previous = new ArrayList<>();
+            List<Report> updated = new ArrayList<>();
+            List<Report> saved = new ArrayList<>();
+            for (FolderScan scan : scans) {
+                Report report = scan.report();
+                if (reportCache.get(report.getId()) != report) {
+                    continue;
+                }
+                boolean changed = filesChanged(report, scan.files(), scan.fileDetails());
+                if (!changed && !rowCountsChanged(report, scan.fileDetails())) {
+                    continue;
+                }
+                Report updatedReport = withScan(report, scan.files(), scan.fileDetails(), changed);
+                reportCache.put(report.getId(), updatedReport);
+                saved.add(updatedReport);
+                if (changed) {
+                    previous.add(report);
+                    updated.add(updatedReport);
+                }
+            }
+            if (saved.isEmpty()) {
+                return updated;
+            }
+            reportRepository.saveAll(saved);
+            for (int i = 0; i < updated.size(); i++) {
+                publish(ReportEvent.REPORT_UPDATED, updated.get(i));
+                publishFileChanges(previous.get(i), updated.get(i));
+                log.info("Refreshed report: {} with {} files", updated.get(i).getName(), updated.get(i).getFiles().size());
+            }
+            return updated;
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /** The files found in a report's folder, and the report version they were compared against. */
+    public record FolderScan(Report report, List<String> files, List<FileInfo> fileDetails) {
+    }
+
     public List<String> getReportFiles(String reportId) {
-        lock.readLock().lock();
+        lockForRead();
         try {
             Report report = reportCache.get(reportId);
             if (report == null) {
                 throw new ReportNotFoundException("Report with id " + reportId + " not found");
             }
-            return refreshReportFiles(report);
+            // With background refresh on, or while the report's mount is not responding, readers get the last listing
+            boolean cached = refreshIntervalSeconds > 0 || !nasAccessGuard.isAvailable(resolveReportPath(report.getPath()));
+            return cached && report.getFiles() != null ? report.getFiles() : refreshReportFiles(report);
         } finally {
             lock.readLock().unlock();
         }
     }
 
-    private List<String> scanReportFiles(String reportPath) {
+    private List<FileInfo> scanReportFileDetails(String reportPath) {
         try {
-            Path fullPath = resolveReportPath(reportPath);
-            if (!Files.exists(fullPath) || !Files.isDirectory(fullPath)) {
-                throw new FileAccessException("Report path does not exist or is not a directory: " + fullPath);
-            }
-
-            List<String> allowedExts = List.of(allowedExtensions.split(","));
-            
-            return Files.list(fullPath)
-                    .filter(Files::isRegularFile)
-                    .map(Path::getFileName)
-                    .map(Path::toString)
-                    .filter(filename -> {
-                        String ext = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
-                        return allowedExts.contains(ext);
+            return listReportFiles(reportPath).stream()
+                    .map(file -> {
+                        String filename = file.path().getFileName().toString();
+                        long size = file.attributes().size();
+                        FileTime modifiedTime = file.attributes().lastModifiedTime();
+                        LocalDateTime lastModified = LocalDateTime.ofInstant(
+                            modifiedTime.toInstant(),
+                            java.time.ZoneId.systemDefault()
+                        );
+                        // Counted in the background; the count shows up in a later scan
+                        Long rowCount = nasAccessGuard.isAvailable(file.path())
+                                ? fileRowCounter.rowCount(file.path(), size, modifiedTime.toMillis())
+                                : null;
+
+                        return FileInfo.builder()
+                                .name(filename)
+                                .size(size)
+                                .lastModified(lastModified)
+                                .extension(CompressedInput.fullExtension(filename))
+                                .rowCount(rowCount)
+                                .build();
                     })
-                    .sorted()
+                    .sorted((a, b) -> a.getName().compareTo(b.getName()))
                     .collect(Collectors.toList());
         } catch (IOException e) {
-            throw new FileAccessException("Error scanning report files: " + e.getMessage(), e);
+            throw new FileAccessException("Error scanning report file details: " + e.getMessage(), e);
         }
     }
 
-    private List<FileInfo> scanReportFileDetails(String reportPath) {
-        try {
-            Path fullPath = resolveReportPath(reportPath);
-            if (!Files.exists(fullPath) || !Files.isDirectory(fullPath)) {
-                throw new FileAccessException("Report path does not exist or is not a directory: " + fullPath);
+    // One guarded call lists the folder and one more reads each file's attributes, so a large
+    // folder on a mount that keeps answering does not run into the timeout
+    private List<ListedFile> listReportFiles(String reportPath) throws IOException {
+        Path fullPath = resolveReportPath(reportPath);
+        List<String> allowedExts = List.of(allowedExtensions.split(","));
+        if (!nasAccessGuard.isDirectory(fullPath)) {
+            throw new FileAccessException("Report path does not exist or is not a directory: " + fullPath);
+        }
+        List<Path> paths = nasAccessGuard.call(fullPath, () -> {
+            try (Stream<Path> entries = Files.list(fullPath)) {
+                return entries
+                        .filter(path -> allowedExts.contains(CompressedInput.fullExtension(path.getFileName().toString())))
+                        .collect(Collectors.toList());
+            }
+        });
+        List<ListedFile> listed = new ArrayList<>();
+        for (Path path : paths) {
+            BasicFileAttributes attributes;
+            try {
+                attributes = nasAccessGuard.readAttributes(path);
+            } catch (NoSuchFileException e) {
+                // Removed since the listing
+                continue;
+            }
+            if (attributes.isRegularFile()) {
+                listed.add(new ListedFile(path, attributes));
             }
-
-            List<String> allowedExts = List.of(allowedExtensions.split(","));
-            
-            return Files.list(fullPath)
-                    .filter(Files::isRegularFile)
-                    .filter(path -> {
-                        String filename = path.getFileName().toString();
-                        String ext = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
-                        return allowedExts.contains(ext);
-                    })
-                    .map(path -> {
-                        try {
-                            String filename = path.getFileName().toString();
-                            String ext = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
-                            long size = Files.size(path);
-                            LocalDateTime lastModified = LocalDateTime.ofInstant(
-                                Files.getLastModifiedTime(path).toInstant(),
-                                java.time.ZoneId.systemDefault()
-                            );
-                            
-                            return FileInfo.builder()
-                                    .name(filename)
-                                    .size(size)
-                                    .lastModified(lastModified)
-                                    .extension(ext)
-                                    .build();
-                        } catch (IOException e) {
-                            throw new RuntimeException("Error getting file details: " + e.getMessage(), e);
-                        }
-                    })
-                    .sorted((a, b) -> a.getName().compareTo(b.getName()))
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            throw new FileAccessException("Error scanning report file details: " + e.getMessage(), e);
         }
+        return listed;
+    }
+
+    private record ListedFile(Path path, BasicFileAttributes attributes) {
     }
 
     private Path resolveReportPath(String reportPath) {
@@ -299,23 +378,21 @@ public class ReportService {
 
     private List<String> refreshReportFiles(Report report) {
         try {
-            List<String> currentFiles = scanReportFiles(report.getPath());
-            List<FileInfo> currentFileDetails = scanReportFileDetails(report.getPath());
-            if (!currentFiles.equals(report.getFiles())) {
+            FolderScan scan = scanFolder(report);
+            List<String> currentFiles = scan.files();
+            List<FileInfo> currentFileDetails = scan.fileDetails();
+            boolean changed = filesChanged(report, currentFiles, currentFileDetails);
+            if (changed || rowCountsChanged(report, currentFileDetails)) {
                 // Update the report with new file list
-                Report updatedReport = Report.builder()
-                        .id(report.getId())
-                        .name(report.getName())
-                        .path(report.getPath())
-                        .files(currentFiles)
-                        .fileDetails(currentFileDetails)
-                        .createdAt(report.getCreatedAt())
-                        .updatedAt(LocalDateTime.now())
-                        .build();
+                Report updatedReport = withScan(report, currentFiles, currentFileDetails, changed);
                 
                 reportCache.put(report.getId(), updatedReport);
-                saveReports();
-                log.info("Refreshed files for report: {}", report.getName());
+                reportRepository.save(updatedReport);
+                if (changed) {
+                    publish(ReportEvent.REPORT_UPDATED, updatedReport);
+                    publishFileChanges(report, updatedReport);
+                    log.info("Refreshed files for report: {}", report.getName());
+                }
             }
             return currentFiles;
         } catch (Exception e) {
@@ -324,48 +401,170 @@ public class ReportService {
         }
     }
 
-    private void loadReports() {
-        try {
-            Path configFilePath = Paths.get(configPath);
-            if (Files.exists(configFilePath)) {
-                ReportConfig config = yamlMapper.readValue(configFilePath.toFile(), ReportConfig.class);
-                if (config != null && config.getReports() != null) {
-                    config.getReports().forEach(report -> reportCache.put(report.getId(), report));
-                    log.info("Loaded {} reports from configuration", reportCache.size());
-                }
-            } else {
-                log.info("No existing configuration found, starting with empty reports");
+    // Only a changed listing moves updatedAt; filled-in row counts do not
+    private static Report withScan(Report report, List<String> files, List<FileInfo> fileDetails, boolean changed) {
+        return Report.builder()
+                .id(report.getId())
+                .name(report.getName())
+                .path(report.getPath())
+                .files(files)
+                .fileDetails(fileDetails)
+                .createdAt(report.getCreatedAt())
+                .updatedAt(changed ? LocalDateTime.now() : report.getUpdatedAt())
+                .build();
+    }
+
+    // Row counts are left out of FileInfo equality; this finds the ones counted since the last scan
+    private static boolean rowCountsChanged(Report report, List<FileInfo> currentFileDetails) {
+        List<FileInfo> previous = report.getFileDetails();
+        if (previous == null || previous.size() != currentFileDetails.size()) {
+            return false;
+        }
+        for (int i = 0; i < previous.size(); i++) {
+            if (!Objects.equals(previous.get(i).getRowCount(), currentFileDetails.get(i).getRowCount())) {
+                return true;
             }
-        } catch (IOException e) {
-            log.error("Error loading reports configuration", e);
         }
+        return false;
     }
 
-    private void saveReports() {
-        try {
-            Path configFilePath = Paths.get(configPath);
-            Files.createDirectories(configFilePath.getParent());
-            
-            ReportConfig config = new ReportConfig();
-            config.setReports(List.copyOf(reportCache.values()));
-            
-            yamlMapper.writeValue(configFilePath.toFile(), config);
-            log.debug("Saved {} reports to configuration", reportCache.size());
-        } catch (IOException e) {
-            log.error("Error saving reports configuration", e);
+    // Reports loaded from the index alone have no details yet; their file names still count
+    private boolean filesChanged(Report report, List<String> currentFiles, List<FileInfo> currentFileDetails) {
+        return !currentFiles.equals(report.getFiles())
+                || (report.getFileDetails() != null && !currentFileDetails.equals(report.getFileDetails()));
+    }
+
+    // Waits for the report lock count towards the request's "lock" phase
+    private void lockForRead() {
+        try (RequestTiming.Span span = RequestTiming.phase("lock")) {
+            lock.readLock().lock();
+        }
+    }
+
+    private void lockForWrite() {
+        try (RequestTiming.Span span = RequestTiming.phase("lock")) {
+            lock.writeLock().lock();
+        }
+    }
+
+    private void publish(String type, Report report) {
+        eventBroadcaster.publish(type, report.getId(), report.getName(), null, null);
+    }
+
+    /** Announces files added, removed or changed (size or modification time) between two versions of a report. */
+    private void publishFileChanges(Report before, Report after) {
+        if (!Objects.equals(before.getPath(), after.getPath())) {
+            return;
+        }
+        Set<String> previousFiles = before.getFiles() != null ? Set.copyOf(before.getFiles()) : Set.of();
+        Set<String> currentFiles = Set.copyOf(after.getFiles());
+        Map<String, FileInfo> previous = detailsByName(before);
+        Map<String, FileInfo> current = detailsByName(after);
+        for (String fileName : after.getFiles()) {
+            FileInfo file = current.get(fileName);
+            if (!previousFiles.contains(fileName)) {
+                eventBroadcaster.publish(ReportEvent.FILE_ADDED, after.getId(), after.getName(), fileName, file);
+            } else if (previous.containsKey(fileName) && file != null && !file.equals(previous.get(fileName))) {
+                eventBroadcaster.publish(ReportEvent.FILE_CHANGED, after.getId(), after.getName(), fileName, file);
+            }
+        }
+        for (String fileName : previousFiles) {
+            if (!currentFiles.contains(fileName)) {
+                eventBroadcaster.publish(ReportEvent.FILE_REMOVED, after.getId(), after.getName(), fileName, null);
+            }
+        }
+    }
+
+    private Map<String, FileInfo> detailsByName(Report report) {
+        if (report.getFileDetails() == null) {
+            return Map.of();
+        }
+        return report.getFileDetails().stream()
+                .collect(Collectors.toMap(FileInfo::getName, Function.identity(), (first, second) -> first));
+    }
+
+    /**
+     * Fills in file details for reports that still only have their index entry.
+     * Runs once, from the background warmup or from the first request that needs them.
+     */
+    public void ensureFullMetadata() {
+        if (fullMetadataLoaded) {
+            return;
+        }
+        synchronized (metadataLoadLock) {
+            if (fullMetadataLoaded) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                for (Report full : reportRepository.loadAll()) {
+                    // Reports rewritten since startup already carry fresh details
+                    reportCache.computeIfPresent(full.getId(), (id, current) ->
+                            current.getFileDetails() != null ? current : withFileDetails(current, full.getFileDetails()));
+                }
+                log.info("Loaded full metadata for {} reports in {} ms", reportCache.size(), (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.error("Error loading full report metadata", e);
+            }
+            fullMetadataLoaded = true;
         }
     }
 
-    // Inner class for YAML configuration
-    public static class ReportConfig {
-        private List<Report> reports;
+    private Report withFileDetails(Report report, List<FileInfo> fileDetails) {
+        return Report.builder()
+                .id(report.getId())
+                .name(report.getName())
+                .path(report.getPath())
+                .files(report.getFiles())
+                .fileDetails(fileDetails)
+                .createdAt(report.getCreatedAt())
+                .updatedAt(report.getUpdatedAt())
+                .build();
+    }
+
+    public byte[] exportReports() throws IOException {
+        ensureFullMetadata();
+        return yamlMapper.writeValueAsBytes(new ReportConfig(getAllReports()));
+    }
 
-        public List<Report> getReports() {
-            return reports;
+    /**
+     * Adds or replaces reports from a reports.yaml document. Reports without an id
+     * get a new one; reports whose path is already used by another report are skipped.
+     */
+    public int importReports(String yaml) throws IOException {
+        ReportConfig config = yamlMapper.readValue(yaml, ReportConfig.class);
+        if (config == null || config.getReports() == null) {
+            return 0;
         }
 
-        public void setReports(List<Report> reports) {
-            this.reports = reports;
+        lockForWrite();
+        try {
+            ensureFullMetadata();
+            List<Report> imported = new ArrayList<>();
+            Set<String> created = new HashSet<>();
+            for (Report report : config.getReports()) {
+                String id = report.getId() != null ? report.getId() : UUID.randomUUID().toString();
+                Report duplicate = reportCache.values().stream()
+                        .filter(existing -> !existing.getId().equals(id) && existing.getPath().equals(report.getPath()))
+                        .findFirst()
+                        .orElse(null);
+                if (duplicate != null) {
+                    log.warn("Skipping import of report {}: path '{}' is used by {}", report.getName(), report.getPath(), duplicate.getName());
+                    continue;
+                }
+                report.setId(id);
+                if (!reportCache.containsKey(id)) {
+                    created.add(id);
+                }
+                reportCache.put(id, report);
+                imported.add(report);
+            }
+            reportRepository.saveAll(imported);
+            imported.forEach(report -> publish(created.contains(report.getId()) ? ReportEvent.REPORT_CREATED : ReportEvent.REPORT_UPDATED, report));
+            log.info("Imported {} reports", imported.size());
+            return imported.size();
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 }
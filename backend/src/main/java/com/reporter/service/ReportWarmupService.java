@@ -0,0 +1,90 @@
+package com.reporter.service;
+
+import com.reporter.exception.ParseRejectedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finishes startup work after the application reports ready: merges the full
+ * report metadata and parses the most requested files into the parse cache. Runs
+ * on a single minimum-priority thread and gives up as soon as parse admission
+ * pushes back, so user requests always take precedence.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportWarmupService {
+
+    @Value("${app.warmup.enabled}")
+    private boolean enabled;
+
+    @Value("${app.warmup.top-files}")
+    private int topFiles;
+
+    @Value("${app.warmup.stats-save-interval-minutes}")
+    private long statsSaveIntervalMinutes;
+
+    private final ReportService reportService;
+    private final FileParsingService fileParsingService;
+    private final FileAccessTracker accessTracker;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-warmup");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(accessTracker::save,
+                statsSaveIntervalMinutes, statsSaveIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(reportService::ensureFullMetadata);
+        if (enabled) {
+            executor.execute(this::warmMostAccessedFiles);
+        }
+    }
+
+    private void warmMostAccessedFiles() {
+        long start = System.nanoTime();
+        int warmed = 0;
+        for (String fileKey : accessTracker.mostAccessed(topFiles)) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            int separator = fileKey.lastIndexOf('/');
+            String reportPath = separator >= 0 ? fileKey.substring(0, separator) : "";
+            String fileName = fileKey.substring(separator + 1);
+            try {
+                fileParsingService.warm(reportPath, fileName);
+                warmed++;
+            } catch (ParseRejectedException e) {
+                log.info("Stopping warmup, parse capacity is needed by requests");
+                break;
+            } catch (Exception e) {
+                log.debug("Skipping warmup of {}: {}", fileKey, e.getMessage());
+            }
+        }
+        log.info("Warmed {} frequently used files in {} ms", warmed, (System.nanoTime() - start) / 1_000_000);
+    }
+}
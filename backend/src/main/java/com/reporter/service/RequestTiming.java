@@ -0,0 +1,115 @@
+package com.reporter.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Phase durations, bytes read and rows produced for one sampled request. The
+ * request timing filter binds a recorder to the request thread; services mark
+ * phases with {@link #phase(String)}, which costs a thread-local lookup and
+ * nothing else on requests that are not sampled. Phases may nest (a parse waits
+ * for its NAS reads), so their durations can add up to more than the total.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final Span NOT_SAMPLED = () -> { };
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private long bytesRead;
+    private long rows;
+
+    /** Starts recording for the current thread's request. */
+    public static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /** The current request's recorder, or null when it is not sampled. */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /** Times a phase of the current request until the span is closed. */
+    public static Span phase(String name) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return NOT_SAMPLED;
+        }
+        long start = System.nanoTime();
+        return () -> timing.add(name, System.nanoTime() - start, 1);
+    }
+
+    public static void bytesRead(long bytes) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null && bytes > 0) {
+            timing.addBytes(bytes);
+        }
+    }
+
+    public static void rows(long count) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.addRows(count);
+        }
+    }
+
+    public synchronized void add(String name, long nanos, int count) {
+        Phase phase = phases.computeIfAbsent(name, key -> new Phase());
+        phase.nanos += nanos;
+        phase.count += count;
+    }
+
+    private synchronized void addBytes(long bytes) {
+        bytesRead += bytes;
+    }
+
+    private synchronized void addRows(long count) {
+        rows += count;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /** The phases so far as a {@code Server-Timing} header value, ending with the total. */
+    public synchronized String serverTiming() {
+        StringJoiner header = new StringJoiner(", ");
+        phases.forEach((name, phase) -> header.add(name + ";dur=" + millis(phase.nanos)));
+        header.add("total;dur=" + millis(elapsedNanos()));
+        return header.toString();
+    }
+
+    /** The phases as {@code name=ms/count} pairs, e.g. {@code nas=12.5/3 parse=40.1/1}, plus bytes and rows. */
+    public synchronized String summary() {
+        StringJoiner summary = new StringJoiner(" ");
+        phases.forEach((name, phase) -> summary.add(name + "=" + millis(phase.nanos) + "/" + phase.count));
+        summary.add("bytes_read=" + bytesRead);
+        summary.add("rows=" + rows);
+        return summary.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    /** An open phase; closing it records its duration. */
+    @FunctionalInterface
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Phase {
+        private long nanos;
+        private int count;
+    }
+}
@@ -0,0 +1,75 @@
+package com.reporter.service;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sparse index of a CSV or text file: the byte offset of every {@code interval}-th
+ * data row, plus what a page read needs to parse rows without the header line.
+ * Valid only while the file keeps the recorded size and modification time.
+ */
+@Getter
+public class RowOffsetIndex {
+    private final long size;
+    private final long lastModified;
+    private final int interval;
+    private final int totalRows;
+    private final List<String> headers;
+    /** Delimiter regex of a delimited text file; null for CSV and single-column text */
+    private final String delimiter;
+    private final long[] offsets;
+
+    public RowOffsetIndex(long size, long lastModified, int interval, int totalRows,
+                          List<String> headers, String delimiter, long[] offsets) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.interval = interval;
+        this.totalRows = totalRows;
+        this.headers = headers;
+        this.delimiter = delimiter;
+        this.offsets = offsets;
+    }
+
+    public boolean isCurrent(long currentSize, long currentLastModified) {
+        return size == currentSize && lastModified == currentLastModified;
+    }
+
+    /** Offset of the indexed row at or before {@code row}. */
+    public long offsetBefore(int row) {
+        return offsets[row / interval];
+    }
+
+    /** Collects row offsets while a parser scans the file. */
+    public static class Recorder {
+        private final int interval;
+        private long[] offsets = new long[16];
+        private int rows;
+        private String delimiter;
+
+        public Recorder(int interval) {
+            this.interval = interval;
+        }
+
+        public void row(long offset) {
+            if (rows % interval == 0) {
+                int slot = rows / interval;
+                if (slot == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, slot * 2);
+                }
+                offsets[slot] = offset;
+            }
+            rows++;
+        }
+
+        public void delimiter(String delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        public RowOffsetIndex build(long size, long lastModified, List<String> headers) {
+            long[] used = Arrays.copyOf(offsets, (rows + interval - 1) / interval);
+            return new RowOffsetIndex(size, lastModified, interval, rows, List.copyOf(headers), delimiter, used);
+        }
+    }
+}
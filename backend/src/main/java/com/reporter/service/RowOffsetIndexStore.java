@@ -0,0 +1,171 @@
+package com.reporter.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the row-offset indexes of CSV and text files in memory and in
+ * {@code app.cache.row-index-dir}, one small binary file per source file, so deep
+ * pages can be read without a full parse even after a restart or a cache eviction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RowOffsetIndexStore {
+
+    private static final int MAGIC = 0x52494458; // "RIDX"
+    private static final int VERSION = 1;
+
+    @Value("${app.cache.row-index-dir}")
+    private String indexDir;
+
+    @Getter
+    @Value("${app.cache.row-index-interval}")
+    private int interval;
+
+    @Value("${app.cache.row-index-max-entries}")
+    private int maxEntries;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Path, RowOffsetIndex> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, RowOffsetIndex> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private Counter pageCounter;
+
+    @PostConstruct
+    public void init() {
+        pageCounter = Counter.builder("reporter.parse.row-index.pages")
+                .description("Pages read by seeking through a row-offset index instead of a full parse")
+                .register(meterRegistry);
+    }
+
+    /** Returns the index of the file if one matches its current size and modification time. */
+    public RowOffsetIndex get(Path filePath, long size, long lastModified) {
+        RowOffsetIndex index;
+        synchronized (this) {
+            index = entries.get(filePath);
+        }
+        if (index == null) {
+            index = read(filePath);
+            if (index != null) {
+                synchronized (this) {
+                    entries.put(filePath, index);
+                }
+            }
+        }
+        return index != null && index.isCurrent(size, lastModified) ? index : null;
+    }
+
+    public void put(Path filePath, RowOffsetIndex index) {
+        synchronized (this) {
+            entries.put(filePath, index);
+        }
+        write(filePath, index);
+    }
+
+    void recordPage() {
+        pageCounter.increment();
+    }
+
+    private RowOffsetIndex read(Path filePath) {
+        Path indexFile = indexFile(filePath);
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(filePath.toString())) {
+                return null;
+            }
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            int interval = in.readInt();
+            int totalRows = in.readInt();
+            int headerCount = in.readInt();
+            List<String> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(in.readUTF());
+            }
+            String delimiter = in.readBoolean() ? in.readUTF() : null;
+            long[] offsets = new long[in.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+            return new RowOffsetIndex(size, lastModified, interval, totalRows, headers, delimiter, offsets);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable row index {}: {}", indexFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path filePath, RowOffsetIndex index) {
+        Path indexFile = indexFile(filePath);
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(filePath.toString());
+                out.writeLong(index.getSize());
+                out.writeLong(index.getLastModified());
+                out.writeInt(index.getInterval());
+                out.writeInt(index.getTotalRows());
+                out.writeInt(index.getHeaders().size());
+                for (String header : index.getHeaders()) {
+                    out.writeUTF(header);
+                }
+                out.writeBoolean(index.getDelimiter() != null);
+                if (index.getDelimiter() != null) {
+                    out.writeUTF(index.getDelimiter());
+                }
+                out.writeInt(index.getOffsets().length);
+                for (long offset : index.getOffsets()) {
+                    out.writeLong(offset);
+                }
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The in-memory copy still serves pages until the next restart
+            log.warn("Could not persist row index for {}: {}", filePath, e.getMessage());
+        }
+    }
+
+    private Path indexFile(Path filePath) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(filePath.toString().getBytes(StandardCharsets.UTF_8));
+            return Paths.get(indexDir, HexFormat.of().formatHex(digest, 0, 16) + ".idx");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
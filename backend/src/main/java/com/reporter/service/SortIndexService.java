@@ -0,0 +1,329 @@
+package com.reporter.service;
+
+import com.reporter.dto.FileViewCriteria;
+import com.reporter.exception.ParseRejectedException;
+import com.reporter.model.FileData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Serves sorted pages of cached files. For each file version, column and direction
+ * it builds a row permutation once, sorting packed (rank, row) longs so every
+ * comparison is primitive and ties keep file order, and keeps it under
+ * {@code app.sort.index-max-mb}. Later pages then cost only the rows they return.
+ * Until a permutation exists, requests for the first {@code app.sort.top-n-max-rows}
+ * rows select them with a bounded heap while the full permutation is built in the background.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SortIndexService {
+
+    @Value("${app.sort.top-n-max-rows}")
+    private int topNMaxRows;
+
+    @Value("${app.sort.index-max-entries}")
+    private int maxEntries;
+
+    @Value("${app.sort.index-max-mb}")
+    private long maxMemoryMb;
+
+    private final FileParsingService fileParsingService;
+    private final FileViewService fileViewService;
+    private final ParseAdmissionController admissionController;
+    private final MeterRegistry meterRegistry;
+
+    private final LinkedHashMap<IndexKey, int[]> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<IndexKey> building = ConcurrentHashMap.newKeySet();
+    private long indexBytes;
+
+    private ExecutorService executor;
+    private Counter indexedPages;
+    private Counter topNPages;
+    private Counter builds;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sort-index");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        Gauge.builder("reporter.sort.index.bytes", this, service -> service.indexBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        indexedPages = Counter.builder("reporter.sort.pages").tag("method", "index").register(meterRegistry);
+        topNPages = Counter.builder("reporter.sort.pages").tag("method", "top-n").register(meterRegistry);
+        builds = Counter.builder("reporter.sort.index.builds").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns {@code limit} rows from {@code offset} on of the file sorted by
+     * {@code column}, after the filters and projection of {@code options}, or null
+     * when the file is larger than the parse cache. {@code totalRows} is the number of
+     * matching rows. A file that was parsed but did not fit the cache after all is
+     * sorted from the parsed rows rather than parsed again.
+     */
+    public FileData sortedPage(String reportPath, String fileName, ParseOptions options, String column,
+                               boolean descending, int offset, Integer limit) {
+        try (FileParsingService.Parsed parsed = fileParsingService.acquireParsed(reportPath, fileName)) {
+            if (parsed == null) {
+                return null;
+            }
+            ParsedFileCache.Entry entry = parsed.entry();
+            if (entry == null) {
+                FileData sorted = fileViewService.view(options.apply(parsed.fileData()),
+                        new FileViewCriteria(new LinkedHashMap<>(), column, descending, null));
+                return sorted.page(offset, limit);
+            }
+            OffHeapTable table = entry.table();
+            IndexKey key = new IndexKey(reportPath + "/" + fileName, entry.getSize(), entry.getLastModified(),
+                    column, descending);
+            ParseOptions.RowPlan plan = options.plan(table.headers());
+            int from = Math.max(offset, 0);
+
+            int[] order = cachedIndex(key);
+            if (order == null && limit != null && (long) from + limit <= topNMaxRows && table.rowCount() > topNMaxRows) {
+                topNPages.increment();
+                buildInBackground(key, table, fileName);
+                return topN(table, plan, column, descending, from, from + limit);
+            }
+            if (order == null) {
+                order = buildIndex(key, table, fileName);
+            }
+            indexedPages.increment();
+            return page(table, plan, order, from, limit);
+        }
+    }
+
+    public synchronized long indexBytes() {
+        return indexBytes;
+    }
+
+    private FileData page(OffHeapTable table, ParseOptions.RowPlan plan, int[] order, int from, Integer limit) {
+        int width = table.headers().size();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int total;
+        if (!plan.hasFilters()) {
+            total = order.length;
+            int to = limit == null ? total : (int) Math.min((long) from + limit, total);
+            for (int i = Math.min(from, total); i < to; i++) {
+                rows.add(decode(table, plan, order[i]));
+            }
+        } else {
+            // The total still needs every row tested, but only the page is decoded
+            long to = limit == null ? Long.MAX_VALUE : (long) from + limit;
+            total = 0;
+            for (int row : order) {
+                if (plan.accepts(width, column -> table.value(column, row))) {
+                    if (total >= from && total < to) {
+                        rows.add(decode(table, plan, row));
+                    }
+                    total++;
+                }
+            }
+        }
+        return new FileData(table.fileName(), plan.headers(), rows, total);
+    }
+
+    /**
+     * Selects rows {@code from} to {@code to} of the sorted view with a heap of the
+     * {@code to} best rows so far, in O(n log to) without sorting the whole file.
+     */
+    private FileData topN(OffHeapTable table, ParseOptions.RowPlan plan, String column, boolean descending,
+                          int from, int to) {
+        int index = table.headers().indexOf(column);
+        OffHeapTable.SortKeys keys = index >= 0 ? table.sortKeys(index, Collator.getInstance(Locale.ROOT)) : null;
+        // Positive when the first row comes later in the view; ties keep file order
+        IntBinaryOperator order = (a, b) -> {
+            int byValue = keys == null ? 0 : keys.compare(a, b);
+            return byValue != 0 ? (descending ? -byValue : byValue) : Integer.compare(a, b);
+        };
+
+        int width = table.headers().size();
+        int[] heap = new int[to];
+        int size = 0;
+        int total = 0;
+        for (int row = 0; row < table.rowCount(); row++) {
+            int current = row;
+            if (plan.hasFilters() && !plan.accepts(width, c -> table.value(c, current))) {
+                continue;
+            }
+            total++;
+            // The heap's root is the row that comes last among those kept
+            if (size < to) {
+                heap[size] = row;
+                siftUp(heap, size++, order);
+            } else if (size > 0 && order.applyAsInt(row, heap[0]) < 0) {
+                heap[0] = row;
+                siftDown(heap, 0, size, order);
+            }
+        }
+        int[] selected = Arrays.stream(heap, 0, size).boxed()
+                .sorted(order::applyAsInt)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = Math.min(from, size); i < size; i++) {
+            rows.add(decode(table, plan, selected[i]));
+        }
+        return new FileData(table.fileName(), plan.headers(), rows, total);
+    }
+
+    private int[] buildIndex(IndexKey key, OffHeapTable table, String fileName) {
+        // Ranks, packed keys and the permutation itself are alive at the same time
+        long heapBytes = (long) table.rowCount() * (Integer.BYTES * 2 + Long.BYTES * 2 + 1);
+        try (ParseAdmissionController.Permit permit = admissionController.admit(fileName, heapBytes)) {
+            long start = System.nanoTime();
+            int[] ranks = ranks(table, key.column());
+            int maxRank = maxRank(ranks);
+            long[] packed = new long[ranks.length];
+            for (int row = 0; row < ranks.length; row++) {
+                packed[row] = pack(ranks[row], maxRank, key.descending(), row);
+            }
+            Arrays.sort(packed);
+            int[] order = new int[packed.length];
+            for (int i = 0; i < packed.length; i++) {
+                order[i] = (int) packed[i];
+            }
+            builds.increment();
+            storeIndex(key, order);
+            log.debug("Built sort index of {} by {} ({} rows) in {} ms", key.file(), key.column(), order.length,
+                    (System.nanoTime() - start) / 1_000_000);
+            return order;
+        }
+    }
+
+    // The reader reference keeps the table alive for the task even if the cache evicts it meanwhile
+    private void buildInBackground(IndexKey key, OffHeapTable table, String fileName) {
+        if (!building.add(key) || !table.retain()) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                if (cachedIndex(key) == null) {
+                    buildIndex(key, table, fileName);
+                }
+            } catch (ParseRejectedException e) {
+                log.debug("Skipping background sort index of {}: {}", key.file(), e.getMessage());
+            } finally {
+                table.release();
+                building.remove(key);
+            }
+        });
+    }
+
+    private static int[] ranks(OffHeapTable table, String column) {
+        int index = table.headers().indexOf(column);
+        // Collators are not thread-safe, so each build gets its own
+        return index >= 0
+                ? table.sortRanks(index, Collator.getInstance(Locale.ROOT))
+                : new int[table.rowCount()];
+    }
+
+    static int maxRank(int[] ranks) {
+        int max = 0;
+        for (int rank : ranks) {
+            max = Math.max(max, rank);
+        }
+        return max;
+    }
+
+    // Rank in the high half and row in the low half, so equal values keep file order in both directions
+    static long pack(int rank, int maxRank, boolean descending, int row) {
+        return ((long) (descending ? maxRank - rank : rank) << 32) | row;
+    }
+
+    private static Map<String, Object> decode(OffHeapTable table, ParseOptions.RowPlan plan, int row) {
+        return table.row(plan, row);
+    }
+
+    private static void siftUp(int[] heap, int index, IntBinaryOperator order) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (order.applyAsInt(heap[parent], heap[index]) >= 0) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int index, int size, IntBinaryOperator order) {
+        while (true) {
+            int last = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && order.applyAsInt(heap[left], heap[last]) > 0) {
+                last = left;
+            }
+            if (right < size && order.applyAsInt(heap[right], heap[last]) > 0) {
+                last = right;
+            }
+            if (last == index) {
+                return;
+            }
+            swap(heap, index, last);
+            index = last;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int value = heap[a];
+        heap[a] = heap[b];
+        heap[b] = value;
+    }
+
+    private synchronized int[] cachedIndex(IndexKey key) {
+        return indexes.get(key);
+    }
+
+    private synchronized void storeIndex(IndexKey key, int[] order) {
+        int[] previous = indexes.put(key, order);
+        if (previous != null) {
+            indexBytes -= (long) previous.length * Integer.BYTES;
+        }
+        indexBytes += (long) order.length * Integer.BYTES;
+        long maxBytes = maxMemoryMb * 1024 * 1024;
+        Iterator<Map.Entry<IndexKey, int[]>> iterator = indexes.entrySet().iterator();
+        while ((indexes.size() > maxEntries || indexBytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<IndexKey, int[]> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            iterator.remove();
+            indexBytes -= (long) eldest.getValue().length * Integer.BYTES;
+        }
+    }
+
+    /** One file version, sort column and direction. */
+    private record IndexKey(String file, long size, long lastModified, String column, boolean descending) {
+    }
+}
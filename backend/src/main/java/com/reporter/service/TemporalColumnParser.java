@@ -0,0 +1,319 @@
+package com.reporter.service;
+
+import com.reporter.model.TemporalValue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Recognises date and date-time text cells and converts them to {@link TemporalValue}.
+ * Each column narrows a fixed list of formats down to those that parse every
+ * date-like value among its first {@code app.parse.temporal.sample-values} non-empty
+ * values and then keeps the first survivor, so later cells cost one shape check and one parse with a cached
+ * formatter. Columns where fewer than half of the sampled values are dates stay text.
+ * Sampled cells are rewritten in their rows once the format is chosen, so one format
+ * types the whole column, and the choice is remembered per file so that pages,
+ * appended rows and previews of the file type the column the same way.
+ */
+@Component
+@RequiredArgsConstructor
+public class TemporalColumnParser {
+
+    // Ambiguous day/month values resolve month-first unless a sampled value rules it out
+    private static final List<TemporalFormat> FORMATS = List.of(
+            TemporalFormat.date("uuuu-M-d", "\\d{4}-\\d{1,2}-\\d{1,2}"),
+            TemporalFormat.date("uuuu/M/d", "\\d{4}/\\d{1,2}/\\d{1,2}"),
+            TemporalFormat.date("M/d/uuuu", "\\d{1,2}/\\d{1,2}/\\d{4}"),
+            TemporalFormat.date("d/M/uuuu", "\\d{1,2}/\\d{1,2}/\\d{4}"),
+            TemporalFormat.date("d.M.uuuu", "\\d{1,2}\\.\\d{1,2}\\.\\d{4}"),
+            TemporalFormat.dateTime("uuuu-M-d'T'H:mm[:ss][.SSS]", "\\d{4}-\\d{1,2}-\\d{1,2}T\\d{1,2}:\\d{2}(:\\d{2}(\\.\\d{3})?)?"),
+            TemporalFormat.dateTime("uuuu-M-d H:mm[:ss][.SSS]", "\\d{4}-\\d{1,2}-\\d{1,2} \\d{1,2}:\\d{2}(:\\d{2}(\\.\\d{3})?)?"),
+            TemporalFormat.dateTime("M/d/uuuu H:mm[:ss]", "\\d{1,2}/\\d{1,2}/\\d{4} \\d{1,2}:\\d{2}(:\\d{2})?"),
+            TemporalFormat.dateTime("d/M/uuuu H:mm[:ss]", "\\d{1,2}/\\d{1,2}/\\d{4} \\d{1,2}:\\d{2}(:\\d{2})?"),
+            TemporalFormat.dateTime("d.M.uuuu H:mm[:ss]", "\\d{1,2}\\.\\d{1,2}\\.\\d{4} \\d{1,2}:\\d{2}(:\\d{2})?")
+    );
+
+    // Sampled requests time one conversion in this many and scale it up, keeping the clock off most cells
+    private static final int TIMED_CONVERSION_INTERVAL = 64;
+    private static final int REMEMBERED_FILES = 1024;
+
+    @Value("${app.parse.temporal.enabled}")
+    private boolean enabled;
+
+    @Value("${app.parse.temporal.sample-values}")
+    private int sampleValues;
+
+    private final MeterRegistry meterRegistry;
+
+    // File -> column -> chosen formats: one format, or none for a text column
+    private final Map<Path, Map<Integer, List<TemporalFormat>>> fileFormats = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, Map<Integer, List<TemporalFormat>>> eldest) {
+                    return size() > REMEMBERED_FILES;
+                }
+            });
+
+    private Counter temporalColumns;
+
+    @PostConstruct
+    public void init() {
+        temporalColumns = Counter.builder("reporter.parse.temporal.columns")
+                .description("Parsed columns recognised as dates or date-times")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A session for part of a file, e.g. a page or appended rows. Columns keep the
+     * formats an earlier session of the file chose; the others are sampled.
+     */
+    public Session newSession(Path file) {
+        return new Session(file, false);
+    }
+
+    /** A session for a whole-file parse, which samples every column afresh and replaces the remembered formats. */
+    public Session newWholeFileSession(Path file) {
+        return new Session(file, true);
+    }
+
+    public final class Session {
+        private final Path file;
+        private final boolean replaces;
+        private final Map<Integer, List<TemporalFormat>> remembered;
+        private final List<ColumnState> columns = new ArrayList<>();
+        // Columns sampled while building the current row
+        private final List<Integer> rowSampled = new ArrayList<>();
+        private final RequestTiming timing = RequestTiming.current();
+        private int conversions;
+
+        private Session(Path file, boolean replaces) {
+            this.file = file;
+            this.replaces = replaces;
+            this.remembered = replaces ? Map.of() : fileFormats.getOrDefault(file, Map.of());
+        }
+
+        /**
+         * Builds a row through the plan, converting its date cells. Cells of columns
+         * still sampling are kept provisionally and rewritten in the row once the
+         * column's format is chosen. Returns null when the plan's filters reject the row.
+         */
+        Map<String, Object> row(ParseOptions.RowPlan plan, int width, IntFunction<Object> valueAt,
+                                ParseOptions.ValueEncoder encoder) {
+            rowSampled.clear();
+            Map<String, Object> row = plan.row(width, i -> convert(i, valueAt.apply(i)), encoder);
+            for (int column : rowSampled) {
+                ColumnState state = columns.get(column);
+                if (row != null) {
+                    state.pending.add(new PendingCell(row, plan.header(column), state.lastText, state.lastValue, encoder));
+                }
+                if (state.sampled >= sampleValues) {
+                    state.decide(column);
+                }
+            }
+            return row;
+        }
+
+        /**
+         * Chooses the format of columns whose sample the rows did not fill, rewrites
+         * their cells, and remembers the file's formats. Call after the last row.
+         */
+        public void finish() {
+            Map<Integer, List<TemporalFormat>> chosen = new HashMap<>();
+            for (int column = 0; column < columns.size(); column++) {
+                ColumnState state = columns.get(column);
+                if (!state.decided && state.sampled > 0) {
+                    state.decide(column);
+                }
+                if (state.decided) {
+                    chosen.put(column, state.candidates);
+                }
+            }
+            if (chosen.isEmpty()) {
+                return;
+            }
+            fileFormats.compute(file, (key, previous) -> {
+                Map<Integer, List<TemporalFormat>> formats = new HashMap<>(previous != null ? previous : Map.of());
+                if (replaces) {
+                    formats.putAll(chosen);
+                } else {
+                    chosen.forEach(formats::putIfAbsent);
+                }
+                return Map.copyOf(formats);
+            });
+        }
+
+        /**
+         * Whether a cell holding {@code value} may pass a filter for {@code needle} once
+         * converted: as it is, or read by the column's chosen format or, while the
+         * column is still sampling, by any format it may still choose.
+         */
+        boolean mayMatch(int column, Object value, String needle) {
+            if (FileViewService.matches(value, needle)) {
+                return true;
+            }
+            if (!enabled || !(value instanceof String text) || text.isEmpty()) {
+                return false;
+            }
+            List<TemporalFormat> candidates = column < columns.size()
+                    ? columns.get(column).candidates
+                    : remembered.getOrDefault(column, FORMATS);
+            for (TemporalFormat format : candidates) {
+                TemporalValue parsed = format.parse(text);
+                if (parsed != null && FileViewService.matches(parsed, needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Returns the cell as a TemporalValue if its column holds dates, otherwise unchanged
+        private Object convert(int column, Object value) {
+            if (!enabled || !(value instanceof String text) || text.isEmpty()) {
+                return value;
+            }
+            while (columns.size() <= column) {
+                columns.add(new ColumnState(remembered.get(columns.size())));
+            }
+            ColumnState state = columns.get(column);
+            if (!state.decided) {
+                rowSampled.add(column);
+            }
+            if (timing == null || conversions++ % TIMED_CONVERSION_INTERVAL != 0) {
+                return state.convert(text);
+            }
+            long start = System.nanoTime();
+            Object converted = state.convert(text);
+            timing.add("infer", (System.nanoTime() - start) * TIMED_CONVERSION_INTERVAL, TIMED_CONVERSION_INTERVAL);
+            return converted;
+        }
+    }
+
+    private final class ColumnState {
+        private List<TemporalFormat> candidates;
+        private boolean decided;
+        private int sampled;
+        private int matched;
+        private final List<PendingCell> pending = new ArrayList<>();
+        // The cell most recently sampled and its provisional value
+        private String lastText;
+        private Object lastValue;
+
+        ColumnState(List<TemporalFormat> remembered) {
+            candidates = remembered != null ? remembered : FORMATS;
+            decided = remembered != null;
+        }
+
+        Object convert(String text) {
+            if (decided) {
+                return typed(text);
+            }
+
+            sampled++;
+            List<TemporalFormat> remaining = new ArrayList<>(candidates.size());
+            TemporalValue value = null;
+            for (TemporalFormat format : candidates) {
+                TemporalValue parsed = format.parse(text);
+                if (parsed != null) {
+                    remaining.add(format);
+                    value = value != null ? value : parsed;
+                }
+            }
+            // Values no format accepts (e.g. "n/a") do not narrow the candidates
+            if (!remaining.isEmpty()) {
+                matched++;
+                candidates = remaining;
+            }
+            lastText = text;
+            lastValue = value != null ? value : text;
+            return lastValue;
+        }
+
+        // Keeps the first surviving format, or none, and retypes the sampled cells with it
+        void decide(int column) {
+            if (decided) {
+                return;
+            }
+            decided = true;
+            if (matched * 2 < sampled) {
+                candidates = List.of();
+            } else {
+                temporalColumns.increment();
+                candidates = List.of(candidates.get(0));
+            }
+            for (PendingCell cell : pending) {
+                Object value = typed(cell.text());
+                if (!Objects.equals(value, cell.provisional())) {
+                    cell.row().put(cell.header(), cell.encoder().encode(column, value));
+                }
+            }
+            pending.clear();
+        }
+
+        private Object typed(String text) {
+            if (candidates.isEmpty()) {
+                return text;
+            }
+            TemporalValue value = candidates.get(0).parse(text);
+            return value != null ? value : text;
+        }
+    }
+
+    /** A sampled cell in a built row, with the value it was given before its column's format was chosen. */
+    private record PendingCell(Map<String, Object> row, String header, String text, Object provisional,
+                               ParseOptions.ValueEncoder encoder) {
+    }
+
+    private static final class TemporalFormat {
+        private final DateTimeFormatter formatter;
+        private final Pattern shape;
+        private final boolean dateOnly;
+
+        private TemporalFormat(String pattern, String shape, boolean dateOnly) {
+            this.formatter = DateTimeFormatter.ofPattern(pattern, Locale.ROOT).withResolverStyle(ResolverStyle.STRICT);
+            this.shape = Pattern.compile(shape);
+            this.dateOnly = dateOnly;
+        }
+
+        static TemporalFormat date(String pattern, String shape) {
+            return new TemporalFormat(pattern, shape, true);
+        }
+
+        static TemporalFormat dateTime(String pattern, String shape) {
+            return new TemporalFormat(pattern, shape, false);
+        }
+
+        // The shape check keeps exceptions to values that look like dates but are not valid ones
+        TemporalValue parse(String text) {
+            if (!shape.matcher(text).matches()) {
+                return null;
+            }
+            try {
+                return dateOnly
+                        ? TemporalValue.ofDate(LocalDate.parse(text, formatter))
+                        : TemporalValue.ofDateTime(LocalDateTime.parse(text, formatter));
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.reporter.service;
+
+import com.reporter.model.TemporalValue;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the first rows of the first sheet of an XLSX file with POI's streaming
+ * SAX reader, so a preview never builds the whole workbook. Cells come back typed
+ * by the same rules as a full parse: text cells stay strings, numbers become
+ * longs or doubles, date-formatted numbers become {@link TemporalValue}s, booleans
+ * stay booleans and formulas read as their formula text. The total row count is
+ * taken from the sheet's {@code dimension} element, or extrapolated from the share
+ * of the sheet XML read so far.
+ */
+final class XlsxPreviewReader {
+
+    private XlsxPreviewReader() {
+    }
+
+    static Result read(Path filePath, int maxRows) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(filePath.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return new Result(List.of(), List.of(), 0, true);
+            }
+            sheets.next().close();
+            PackagePart sheet = sheets.getSheetPart();
+            int lastRow = dimensionLastRow(sheet);
+
+            RawValueFormatter formatter = new RawValueFormatter();
+            CellTypes parser = new CellTypes(XMLHelper.newXMLReader());
+            Collector collector = new Collector(maxRows, parser, formatter);
+            parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+                    new ReadOnlySharedStringsTable(pkg), collector, formatter, true));
+            CountingInputStream in = new CountingInputStream(sheet.getInputStream());
+            boolean complete = true;
+            try (in) {
+                parser.parse(new InputSource(in));
+            } catch (StopReading e) {
+                complete = false;
+            }
+
+            int rows = collector.rows.size();
+            long total;
+            if (complete) {
+                total = rows;
+            } else if (lastRow > collector.headerRow) {
+                // Zero-based rows after the header's, matching dimensionRows for a header in the first row
+                total = Math.max(lastRow - collector.headerRow, rows + 1L);
+            } else if (sheet.getSize() > 0 && in.count > 0) {
+                total = Math.max(rows * sheet.getSize() / in.count, rows + 1L);
+            } else {
+                total = rows + 1L;
+            }
+            return new Result(collector.headers, collector.rows, total, complete);
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Cannot read workbook " + filePath.getFileName(), e);
+        }
+    }
+
+    /** Data rows below the header according to the first sheet's dimension, or -1 when it records none. */
+    static long dimensionRows(Path filePath) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(filePath.toFile(), PackageAccess.READ)) {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+            sheets.next().close();
+            // The last row's zero-based index is the number of rows after the first
+            return dimensionLastRow(sheets.getSheetPart());
+        } catch (OpenXML4JException e) {
+            throw new IOException("Cannot read workbook " + filePath.getFileName(), e);
+        }
+    }
+
+    // Zero-based last row of the sheet's dimension, or -1 when it is missing or a single cell
+    private static int dimensionLastRow(PackagePart sheet) throws IOException {
+        try (InputStream in = sheet.getInputStream()) {
+            XMLStreamReader xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(in);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    if ("sheetData".equals(xml.getLocalName())) {
+                        return -1;
+                    }
+                    if ("dimension".equals(xml.getLocalName())) {
+                        String ref = xml.getAttributeValue(null, "ref");
+                        int colon = ref == null ? -1 : ref.indexOf(':');
+                        return colon < 0 ? -1 : new CellReference(ref.substring(colon + 1)).getRow();
+                    }
+                }
+                return -1;
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException | IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /** Header names, data rows as typed cells, and the exact or estimated number of data rows. */
+    record Result(List<String> headers, List<Object[]> rows, long totalRows, boolean exact) {
+    }
+
+    private static final class Collector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final int maxRows;
+        private final CellTypes types;
+        private final RawValueFormatter formatter;
+        private final List<String> headers = new ArrayList<>();
+        private final List<Object[]> rows = new ArrayList<>();
+        private final List<Object> current = new ArrayList<>();
+        private int headerRow = -1;
+
+        private Collector(int maxRows, CellTypes types, RawValueFormatter formatter) {
+            this.maxRows = maxRows;
+            this.types = types;
+            this.formatter = formatter;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            if (headerRow >= 0 && rows.size() >= maxRows) {
+                throw new StopReading();
+            }
+            current.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (headerRow < 0) {
+                headerRow = rowNum;
+                current.stream().filter(header -> header != null).map(String::valueOf).forEach(headers::add);
+            } else {
+                rows.add(current.toArray());
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : current.size();
+            // Cells missing from the sheet read as empty, like blank cells in a full parse
+            while (current.size() < column) {
+                current.add(headerRow < 0 ? null : "");
+            }
+            LocalDateTime date = formatter.takeDate();
+            String text = formattedValue != null ? formattedValue : "";
+            current.add(headerRow < 0 ? text : typed(text, date));
+        }
+
+        // The value FileParsingService.getCellValue gives the same cell in a full parse
+        private Object typed(String text, LocalDateTime date) {
+            if (text.isEmpty() || types.formula) {
+                return text;
+            }
+            String type = types.type;
+            if (type == null || "n".equals(type)) {
+                if (date != null) {
+                    return date.toLocalTime().equals(LocalTime.MIDNIGHT)
+                            ? TemporalValue.ofDate(date.toLocalDate())
+                            : TemporalValue.ofDateTime(date);
+                }
+                try {
+                    double value = Double.parseDouble(text);
+                    return value == (long) value ? (Object) (long) value : (Object) value;
+                } catch (NumberFormatException e) {
+                    return text;
+                }
+            }
+            if ("b".equals(type)) {
+                return "TRUE".equalsIgnoreCase(text) || "1".equals(text);
+            }
+            // Error cells read as empty, like in a full parse
+            return "e".equals(type) ? "" : text;
+        }
+    }
+
+    /** Notes each cell's type attribute and whether it has a formula before POI's handler sees it. */
+    private static final class CellTypes extends XMLFilterImpl {
+        private String type;
+        private boolean formula;
+
+        private CellTypes(XMLReader parent) {
+            super(parent);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if ("c".equals(localName)) {
+                type = attributes.getValue("t");
+                formula = false;
+            } else if ("f".equals(localName)) {
+                formula = true;
+            }
+            super.startElement(uri, localName, qName, attributes);
+        }
+    }
+
+    /** Leaves numbers unformatted and keeps the date of date-formatted numbers for the collector. */
+    private static final class RawValueFormatter extends DataFormatter {
+        private LocalDateTime date;
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                date = DateUtil.getLocalDateTime(value, use1904Windowing);
+                return date.toString();
+            }
+            date = null;
+            return value == (long) value ? Long.toString((long) value) : Double.toString(value);
+        }
+
+        // The date of the cell just formatted, if it was one
+        LocalDateTime takeDate() {
+            LocalDateTime taken = date;
+            date = null;
+            return taken;
+        }
+    }
+
+    // Thrown from the handler to abandon the parse once enough rows are read
+    private static final class StopReading extends RuntimeException {
+        private StopReading() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
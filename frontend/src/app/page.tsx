@@ -1,11 +1,14 @@
 'use client'
 
-import { useState, useEffect } from 'react'
+import { useState, useEffect, useRef } from 'react'
 import Sidebar from '@/components/Sidebar'
 import MainContent from '@/components/MainContent'
-import { Report, FileData } from '@/types/types'
+import { Report, FileData, ReportEvent } from '@/types/types'
 import { reportService } from '@/services/reportService'
 
+// Rows shown while the rest of a newly opened file loads
+const PREVIEW_ROWS = 200
+
 export default function Home() {
   const [reports, setReports] = useState<Report[]>([])
   const [selectedReport, setSelectedReport] = useState<Report | null>(null)
@@ -13,11 +16,42 @@ export default function Home() {
   const [selectedFileName, setSelectedFileName] = useState<string>('')
   const [sidebarCollapsed, setSidebarCollapsed] = useState(false)
   const [loading, setLoading] = useState(true)
+  // Ignores file loads that finish after another file was selected
+  const fileRequest = useRef(0)
 
   useEffect(() => {
     loadReports()
   }, [])
 
+  // Keep the report list current from server events instead of polling
+  useEffect(() => {
+    return reportService.subscribeToEvents(handleReportEvent, loadReports)
+  }, [])
+
+  const handleReportEvent = async (event: ReportEvent) => {
+    if (event.type === 'report-deleted') {
+      setReports(prev => prev.filter(report => report.id !== event.reportId))
+      setSelectedReport(prev => (prev?.id === event.reportId ? null : prev))
+      return
+    }
+    // File events come with a report-updated event for the same report
+    if (event.type !== 'report-created' && event.type !== 'report-updated') {
+      return
+    }
+    try {
+      const report = await reportService.getReport(event.reportId)
+      if (!report) return
+      setReports(prev =>
+        prev.some(existing => existing.id === report.id)
+          ? prev.map(existing => (existing.id === report.id ? report : existing))
+          : [...prev, report]
+      )
+      setSelectedReport(prev => (prev?.id === report.id ? report : prev))
+    } catch (error) {
+      console.error('Error applying report event:', error)
+    }
+  }
+
   const loadReports = async () => {
     try {
       setLoading(true)
@@ -31,6 +65,7 @@ export default function Home() {
   }
 
   const handleReportSelect = async (report: Report) => {
+    fileRequest.current++
     setSelectedReport(report)
     setSelectedFile(null)
     setSelectedFileName('')
@@ -41,16 +76,27 @@ export default function Home() {
     
     if (!fileName) {
       // Clear selection
+      fileRequest.current++
       setSelectedFile(null)
       setSelectedFileName('')
       return
     }
     
+    const request = ++fileRequest.current
     try {
       setLoading(true)
       setSelectedFileName(fileName)
-      const fileData = await reportService.getFileData(selectedReport.id, fileName)
-      setSelectedFile(fileData)
+      // Show the first rows right away while the whole file loads
+      const full = reportService.getFileData(selectedReport.id, fileName)
+      const preview = await reportService.getFilePreview(selectedReport.id, fileName, PREVIEW_ROWS)
+      if (preview && request === fileRequest.current) {
+        setSelectedFile(preview)
+        setLoading(false)
+      }
+      const fileData = await full
+      if (request === fileRequest.current) {
+        setSelectedFile(fileData)
+      }
     } catch (error) {
       console.error('Error loading file data:', error)
     } finally {
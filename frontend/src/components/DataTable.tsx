@@ -2,12 +2,14 @@
 
 import { useState, useMemo } from 'react'
 import { FileData } from '@/types/types'
+import { reportService } from '@/services/reportService'
 
 interface DataTableProps {
+  reportId: string
   fileData: FileData
 }
 
-export default function DataTable({ fileData }: DataTableProps) {
+export default function DataTable({ reportId, fileData }: DataTableProps) {
   const [sortColumn, setSortColumn] = useState<string>('')
   const [sortDirection, setSortDirection] = useState<'asc' | 'desc'>('asc')
   const [filters, setFilters] = useState<Record<string, string>>({})
@@ -92,23 +94,16 @@ export default function DataTable({ fileData }: DataTableProps) {
     }, 100)
   }
 
-  const exportData = () => {
-    const csvContent = [
-      fileData.headers.join(','),
-      ...filteredData.map(row => 
-        fileData.headers.map(header => 
-          JSON.stringify(row[header] || '')
-        ).join(',')
-      )
-    ].join('\n')
-
-    const blob = new Blob([csvContent], { type: 'text/csv' })
-    const url = URL.createObjectURL(blob)
+  // The server applies the same filters and sort and streams the file, so the browser never holds it in memory
+  const exportData = (format: 'csv' | 'xlsx') => {
     const link = document.createElement('a')
-    link.href = url
-    link.download = `${fileData.fileName}_filtered.csv`
+    link.href = reportService.getExportUrl(reportId, fileData.fileName, {
+      filters,
+      sortColumn,
+      sortDirection,
+      format,
+    })
     link.click()
-    URL.revokeObjectURL(url)
   }
 
   return (
@@ -119,7 +114,10 @@ export default function DataTable({ fileData }: DataTableProps) {
           <div className="flex items-center space-x-4">
             <h2 className="text-lg font-semibold text-gray-900">{fileData.fileName}</h2>
             <span className="text-sm text-gray-500">
-              {filteredData.length} of {fileData.totalRows} rows
+              {filteredData.length} of {fileData.totalRowsExact === false ? '~' : ''}{fileData.totalRows} rows
+              {fileData.totalRowsExact === false && (
+                <span className="ml-2 text-xs bg-gray-100 text-gray-700 px-2 py-1 rounded">Preview</span>
+              )}
               {fileData.headers.length > 10 && (
                 <span className="ml-2 text-xs bg-yellow-100 text-yellow-800 px-2 py-1 rounded">
                   {fileData.headers.length} columns
@@ -160,12 +158,19 @@ export default function DataTable({ fileData }: DataTableProps) {
               Clear Filters
             </button>
             <button
-              onClick={exportData}
+              onClick={() => exportData('csv')}
               disabled={isProcessing}
               className="px-3 py-1 text-sm text-white bg-blue-500 rounded-md hover:bg-blue-600 transition-colors disabled:opacity-50 disabled:cursor-not-allowed"
             >
               Export CSV
             </button>
+            <button
+              onClick={() => exportData('xlsx')}
+              disabled={isProcessing}
+              className="px-3 py-1 text-sm text-blue-600 border border-blue-300 rounded-md hover:bg-blue-50 transition-colors disabled:opacity-50 disabled:cursor-not-allowed"
+            >
+              Export XLSX
+            </button>
           </div>
         </div>
 
@@ -285,7 +290,7 @@ export default function DataTable({ fileData }: DataTableProps) {
           <div className="flex items-center justify-between">
             <div className="text-sm text-gray-500">
               Showing {(currentPage - 1) * itemsPerPage + 1} to {Math.min(currentPage * itemsPerPage, filteredData.length)} of {filteredData.length} results
-              {filteredData.length !== fileData.totalRows && (
+              {filteredData.length !== fileData.totalRows && fileData.totalRowsExact !== false && (
                 <span className="ml-2 text-xs bg-blue-100 text-blue-800 px-2 py-1 rounded">
                   Filtered from {fileData.totalRows} total
                 </span>
@@ -14,7 +14,8 @@ interface FileListProps {
 export default function FileList({ report, onFileSelect, selectedFile, loading = false }: FileListProps) {
   const [viewMode, setViewMode] = useState<'grid' | 'list'>('list')
   const getFileIcon = (fileName: string) => {
-    const extension = fileName.split('.').pop()?.toLowerCase()
+    // Compressed files (report.csv.gz) get the icon of the format inside
+    const extension = fileName.toLowerCase().replace(/\.(gz|zip|zst)$/, '').split('.').pop()
     switch (extension) {
       case 'xlsx':
       case 'xls':
@@ -118,6 +118,9 @@ export default function FileListView({ files, onFileSelect, selectedFile }: File
                   {getSortIcon('lastModified')}
                 </div>
               </th>
+              <th className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">
+                Rows
+              </th>
               <th className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">
                 Type
               </th>
@@ -148,6 +151,9 @@ export default function FileListView({ files, onFileSelect, selectedFile }: File
                 <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">
                   {formatDate(file.lastModified)}
                 </td>
+                <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">
+                  {file.rowCount != null ? file.rowCount.toLocaleString() : '—'}
+                </td>
                 <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">
                   <span className="inline-flex items-center px-2.5 py-0.5 rounded-full text-xs font-medium bg-gray-100 text-gray-800">
                     {file.extension.toUpperCase()}
@@ -75,7 +75,7 @@ export default function MainContent({
           
           {selectedFile && (
             <div className="flex items-center space-x-2 text-sm text-gray-500">
-              <span>{selectedFile.totalRows} rows</span>
+              <span>{selectedFile.totalRowsExact === false ? '~' : ''}{selectedFile.totalRows} rows</span>
               <span>•</span>
               <span>{selectedFile.headers.length} columns</span>
             </div>
@@ -108,7 +108,7 @@ export default function MainContent({
             </div>
           </div>
         ) : selectedFile ? (
-          <DataTable fileData={selectedFile} />
+          <DataTable reportId={selectedReport.id} fileData={selectedFile} />
         ) : (
           <FileList 
             report={selectedReport} 
@@ -0,0 +1,250 @@
+import { FileData } from '@/types/types'
+
+export const ARROW_STREAM_MEDIA_TYPE = 'application/vnd.apache.arrow.stream'
+
+// Minimal reader for the Arrow IPC streaming format as written by the backend's
+// ArrowStreamService: uncompressed record batches of Int, FloatingPoint, Bool, Utf8,
+// Date(MILLISECOND) and Timestamp(MILLISECOND) columns, without dictionaries or nested types.
+
+const MESSAGE_HEADER_SCHEMA = 1
+const MESSAGE_HEADER_RECORD_BATCH = 3
+
+const TYPE_INT = 2
+const TYPE_FLOATING_POINT = 3
+const TYPE_UTF8 = 5
+const TYPE_BOOL = 6
+const TYPE_DATE = 8
+const TYPE_TIMESTAMP = 10
+
+interface ArrowField {
+  name: string
+  typeId: number
+  bitWidth: number
+}
+
+// Thin accessor over a flatbuffers table, enough to walk Arrow's Message/Schema/RecordBatch metadata
+class FlatTable {
+  constructor(private view: DataView, private pos: number) {}
+
+  static root(view: DataView): FlatTable {
+    return new FlatTable(view, view.getUint32(0, true))
+  }
+
+  private fieldOffset(index: number): number {
+    const vtable = this.pos - this.view.getInt32(this.pos, true)
+    const vtableSize = this.view.getUint16(vtable, true)
+    const slot = 4 + index * 2
+    return slot < vtableSize ? this.view.getUint16(vtable + slot, true) : 0
+  }
+
+  uint8(index: number, fallback = 0): number {
+    const offset = this.fieldOffset(index)
+    return offset ? this.view.getUint8(this.pos + offset) : fallback
+  }
+
+  int16(index: number, fallback = 0): number {
+    const offset = this.fieldOffset(index)
+    return offset ? this.view.getInt16(this.pos + offset, true) : fallback
+  }
+
+  int32(index: number, fallback = 0): number {
+    const offset = this.fieldOffset(index)
+    return offset ? this.view.getInt32(this.pos + offset, true) : fallback
+  }
+
+  int64(index: number): number {
+    const offset = this.fieldOffset(index)
+    return offset ? readInt64(this.view, this.pos + offset) : 0
+  }
+
+  table(index: number): FlatTable | null {
+    const offset = this.fieldOffset(index)
+    if (!offset) return null
+    const at = this.pos + offset
+    return new FlatTable(this.view, at + this.view.getUint32(at, true))
+  }
+
+  string(index: number): string {
+    const offset = this.fieldOffset(index)
+    if (!offset) return ''
+    const at = this.pos + offset
+    const start = at + this.view.getUint32(at, true)
+    const length = this.view.getUint32(start, true)
+    return utf8.decode(new Uint8Array(this.view.buffer, this.view.byteOffset + start + 4, length))
+  }
+
+  // Returns [elementStart, elementCount] of a vector field
+  vector(index: number): [number, number] {
+    const offset = this.fieldOffset(index)
+    if (!offset) return [0, 0]
+    const at = this.pos + offset
+    const start = at + this.view.getUint32(at, true)
+    return [start + 4, this.view.getUint32(start, true)]
+  }
+
+  tableAt(vectorStart: number, element: number): FlatTable {
+    const at = vectorStart + element * 4
+    return new FlatTable(this.view, at + this.view.getUint32(at, true))
+  }
+}
+
+const utf8 = new TextDecoder('utf-8')
+
+function readInt64(view: DataView, at: number): number {
+  const low = view.getUint32(at, true)
+  const high = view.getInt32(at + 4, true)
+  return high * 4294967296 + low
+}
+
+function readSchema(schema: FlatTable): ArrowField[] {
+  const [start, count] = schema.vector(1)
+  const fields: ArrowField[] = []
+  for (let i = 0; i < count; i++) {
+    const field = schema.tableAt(start, i)
+    const typeId = field.uint8(2)
+    const type = field.table(3)
+    let bitWidth = 0
+    if (typeId === TYPE_INT && type) {
+      bitWidth = type.int32(0)
+    } else if (typeId === TYPE_FLOATING_POINT && type) {
+      bitWidth = [16, 32, 64][type.int16(0)]
+    }
+    fields.push({ name: field.string(0), typeId, bitWidth })
+  }
+  return fields
+}
+
+// Zone-less epoch millis as the ISO text the JSON format sends (Java's LocalDate/LocalDateTime.toString)
+function formatTemporal(millis: number, dateOnly: boolean): string {
+  const date = new Date(millis)
+  const pad = (value: number, width = 2) => String(value).padStart(width, '0')
+  const day = `${pad(date.getUTCFullYear(), 4)}-${pad(date.getUTCMonth() + 1)}-${pad(date.getUTCDate())}`
+  if (dateOnly) return day
+  let time = `${pad(date.getUTCHours())}:${pad(date.getUTCMinutes())}`
+  const seconds = date.getUTCSeconds()
+  const milliseconds = date.getUTCMilliseconds()
+  if (seconds || milliseconds) time += `:${pad(seconds)}`
+  if (milliseconds) time += `.${pad(milliseconds, 3)}`
+  return `${day}T${time}`
+}
+
+function isValid(validity: Uint8Array | null, index: number): boolean {
+  return !validity || ((validity[index >> 3] >> (index & 7)) & 1) === 1
+}
+
+function readRecordBatch(
+  batch: FlatTable,
+  metadataView: DataView,
+  body: DataView,
+  fields: ArrowField[],
+  rows: Record<string, any>[]
+) {
+  const length = batch.int64(0)
+  const [bufferStart] = batch.vector(2)
+  let bufferIndex = 0
+
+  const nextBuffer = (): DataView => {
+    const at = bufferStart + bufferIndex * 16
+    bufferIndex++
+    const offset = readInt64(metadataView, at)
+    const size = readInt64(metadataView, at + 8)
+    return new DataView(body.buffer, body.byteOffset + offset, size)
+  }
+
+  const firstRow = rows.length
+  for (let r = 0; r < length; r++) {
+    rows.push({})
+  }
+
+  fields.forEach(field => {
+    const validityView = nextBuffer()
+    const validity = validityView.byteLength > 0
+      ? new Uint8Array(validityView.buffer, validityView.byteOffset, validityView.byteLength)
+      : null
+
+    if (field.typeId === TYPE_UTF8) {
+      const offsets = nextBuffer()
+      const data = nextBuffer()
+      const bytes = new Uint8Array(data.buffer, data.byteOffset, data.byteLength)
+      for (let r = 0; r < length; r++) {
+        if (!isValid(validity, r)) {
+          rows[firstRow + r][field.name] = null
+          continue
+        }
+        const start = offsets.getInt32(r * 4, true)
+        const end = offsets.getInt32((r + 1) * 4, true)
+        rows[firstRow + r][field.name] = utf8.decode(bytes.subarray(start, end))
+      }
+      return
+    }
+
+    const data = nextBuffer()
+    for (let r = 0; r < length; r++) {
+      let value: any = null
+      if (isValid(validity, r)) {
+        switch (field.typeId) {
+          case TYPE_BOOL:
+            value = ((data.getUint8(r >> 3) >> (r & 7)) & 1) === 1
+            break
+          case TYPE_INT:
+            value = field.bitWidth === 64 ? readInt64(data, r * 8) : data.getInt32(r * 4, true)
+            break
+          case TYPE_FLOATING_POINT:
+            value = field.bitWidth === 64 ? data.getFloat64(r * 8, true) : data.getFloat32(r * 4, true)
+            break
+          case TYPE_DATE:
+            value = formatTemporal(readInt64(data, r * 8), true)
+            break
+          case TYPE_TIMESTAMP:
+            value = formatTemporal(readInt64(data, r * 8), false)
+            break
+        }
+      }
+      rows[firstRow + r][field.name] = value
+    }
+  })
+}
+
+export function decodeArrowStream(buffer: ArrayBuffer, fileName: string): FileData {
+  const view = new DataView(buffer)
+  let position = 0
+  let fields: ArrowField[] = []
+  const rows: Record<string, any>[] = []
+
+  while (position + 4 <= view.byteLength) {
+    let metadataLength = view.getInt32(position, true)
+    position += 4
+    // Streams since Arrow 0.15 prefix each message with a 0xFFFFFFFF continuation marker
+    if (metadataLength === -1) {
+      metadataLength = view.getInt32(position, true)
+      position += 4
+    }
+    if (metadataLength === 0) {
+      break
+    }
+
+    const metadataView = new DataView(buffer, position, metadataLength)
+    const message = FlatTable.root(metadataView)
+    position += metadataLength
+
+    const headerType = message.uint8(1)
+    const header = message.table(2)
+    const bodyLength = message.int64(3)
+    const body = new DataView(buffer, position, bodyLength)
+    position += bodyLength
+
+    if (!header) continue
+    if (headerType === MESSAGE_HEADER_SCHEMA) {
+      fields = readSchema(header)
+    } else if (headerType === MESSAGE_HEADER_RECORD_BATCH) {
+      readRecordBatch(header, metadataView, body, fields, rows)
+    }
+  }
+
+  return {
+    fileName,
+    headers: fields.map(field => field.name),
+    data: rows,
+    totalRows: rows.length,
+  }
+}
@@ -65,6 +65,19 @@ export const reportService = {
     }
   },
 
+  // First rows of a file with an estimated total, returned without parsing the whole file
+  async getFilePreview(reportId: string, fileName: string, rows: number): Promise<FileData | null> {
+    try {
+      const response = await api.get<ApiResponse<FileData>>(`/files/${reportId}/${fileName}`, {
+        params: { preview: rows },
+      })
+      return response.data.success && response.data.data ? response.data.data : null
+    } catch (error: any) {
+      console.error('Error fetching file preview:', error)
+      return null
+    }
+  },
+
   async getFileData(reportId: string, fileName: string): Promise<FileData | null> {
     try {
       const response = await api.get<ApiResponse<FileData>>(`/files/${reportId}/${fileName}`)
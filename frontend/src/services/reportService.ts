@@ -1,8 +1,11 @@
 import axios from 'axios'
-import { Report, FileData, CreateReportRequest, ApiResponse, FolderItem } from '@/types/types'
+import { Report, FileData, CreateReportRequest, ApiResponse, FolderItem, ReportEvent, ReportEventType } from '@/types/types'
+import { ARROW_STREAM_MEDIA_TYPE, decodeArrowStream } from '@/services/arrowDecoder'
 
 const API_BASE_URL = process.env.NEXT_PUBLIC_API_URL || 'http://localhost:8080/api'
 const IS_PRODUCTION = process.env.NODE_ENV === 'production'
+// Table data is fetched as Arrow IPC unless explicitly switched back to JSON
+const USE_ARROW = process.env.NEXT_PUBLIC_FILE_WIRE_FORMAT !== 'json'
 
 const api = axios.create({
   baseURL: API_BASE_URL,
@@ -40,6 +43,15 @@ api.interceptors.response.use(
   }
 )
 
+const REPORT_EVENT_TYPES: ReportEventType[] = [
+  'report-created',
+  'report-updated',
+  'report-deleted',
+  'file-added',
+  'file-changed',
+  'file-removed',
+]
+
 // Mock data for initial development
 const mockReports: Report[] = [
   {
@@ -146,7 +158,23 @@ export const reportService = {
     }
   },
 
+  // First rows of a file with an estimated total, returned without parsing the whole file
+  async getFilePreview(reportId: string, fileName: string, rows: number): Promise<FileData | null> {
+    try {
+      const response = await api.get<ApiResponse<FileData>>(`/files/${reportId}/${fileName}`, {
+        params: { preview: rows },
+      })
+      return response.data.success && response.data.data ? response.data.data : null
+    } catch (error: any) {
+      console.error('Error fetching file preview:', error)
+      return null
+    }
+  },
+
   async getFileData(reportId: string, fileName: string): Promise<FileData | null> {
+    if (USE_ARROW) {
+      return this.getFileDataArrow(reportId, fileName)
+    }
     try {
       const response = await api.get<ApiResponse<FileData>>(`/files/${reportId}/${fileName}`)
       if (response.data.success && response.data.data) {
@@ -167,6 +195,44 @@ export const reportService = {
     }
   },
 
+  async getFileDataArrow(reportId: string, fileName: string): Promise<FileData | null> {
+    try {
+      const response = await api.get<ArrayBuffer>(`/files/${reportId}/${fileName}`, {
+        headers: { Accept: ARROW_STREAM_MEDIA_TYPE },
+        responseType: 'arraybuffer',
+      })
+      return decodeArrowStream(response.data, fileName)
+    } catch (error: any) {
+      console.error('Error fetching file data:', error)
+      // Only use mock data in development
+      if (!IS_PRODUCTION) {
+        console.warn('Using mock data - backend unavailable')
+        await new Promise(resolve => setTimeout(resolve, 800))
+        return mockFileData[fileName] || null
+      }
+      throw new Error('Failed to fetch file data. Please ensure the backend server is running.')
+    }
+  },
+
+  // Download URL for the server-side export of a filtered/sorted file view
+  getExportUrl(
+    reportId: string,
+    fileName: string,
+    view: { filters: Record<string, string>; sortColumn?: string; sortDirection?: 'asc' | 'desc'; format: 'csv' | 'xlsx' }
+  ): string {
+    const params = new URLSearchParams({ format: view.format })
+    Object.entries(view.filters).forEach(([column, value]) => {
+      if (value) {
+        params.append(`filter.${column}`, value)
+      }
+    })
+    if (view.sortColumn) {
+      params.append('sort', view.sortColumn)
+      params.append('direction', view.sortDirection || 'asc')
+    }
+    return `${API_BASE_URL}/files/${encodeURIComponent(reportId)}/${encodeURIComponent(fileName)}/export?${params.toString()}`
+  },
+
   async createReport(name: string, path: string): Promise<Report> {
     try {
       const response = await api.post<ApiResponse<Report>>('/reports', { name, path })
@@ -296,6 +362,20 @@ export const reportService = {
       return false
     }
   },
+
+  // Server-pushed report and file changes; the browser reconnects and resumes on its own.
+  // onResync is called when events were missed and reports should be reloaded. Returns a close function.
+  subscribeToEvents(onEvent: (event: ReportEvent) => void, onResync: () => void): () => void {
+    if (typeof EventSource === 'undefined') {
+      return () => {}
+    }
+    const source = new EventSource(`${API_BASE_URL}/reports/events`)
+    REPORT_EVENT_TYPES.forEach(type => {
+      source.addEventListener(type, message => onEvent(JSON.parse((message as MessageEvent).data)))
+    })
+    source.addEventListener('resync', () => onResync())
+    return () => source.close()
+  },
 }
 
 // Mock folder structure for fallback
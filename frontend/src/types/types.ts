@@ -13,6 +13,26 @@ export interface FileInfo {
   size: number
   lastModified: string
   extension: string
+  // Data rows, when the backend can count them without parsing the file
+  rowCount?: number
+}
+
+export type ReportEventType =
+  | 'report-created'
+  | 'report-updated'
+  | 'report-deleted'
+  | 'file-added'
+  | 'file-changed'
+  | 'file-removed'
+
+export interface ReportEvent {
+  id: number
+  type: ReportEventType
+  reportId: string
+  reportName: string
+  fileName?: string
+  file?: FileInfo
+  timestamp: string
 }
 
 export interface FileData {
@@ -20,6 +40,8 @@ export interface FileData {
   headers: string[]
   data: Record<string, any>[]
   totalRows: number
+  // false when totalRows is an estimate, as for a preview
+  totalRowsExact?: boolean
 }
 
 export interface TableColumn {
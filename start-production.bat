@@ -72,7 +72,7 @@ if exist "pids\frontend.pid" (
 REM Start backend
 echo 🚀 Starting Backend...
 cd backend
-start /B java -Xmx512m -Xms256m -jar build\libs\backend-0.0.1-SNAPSHOT.jar > ..\data\logs\backend.log 2>&1
+start /B java -Xmx512m -Xms256m --add-opens=java.base/java.nio=ALL-UNNAMED -jar build\libs\backend-0.0.1-SNAPSHOT.jar > ..\data\logs\backend.log 2>&1
 
 REM Get the PID of the last started process (approximation for Windows)
 for /f "tokens=2 delims=," %%a in ('tasklist /fi "imagename eq java.exe" /fo csv ^| find "java.exe"') do (
@@ -53,7 +53,7 @@ mkdir -p pids
 start_backend() {
     echo "🚀 Starting Backend..."
     cd backend
-    nohup java -Xmx512m -Xms256m -jar build/libs/backend-0.0.1-SNAPSHOT.jar > ../data/logs/backend.log 2>&1 &
+    nohup java -Xmx512m -Xms256m --add-opens=java.base/java.nio=ALL-UNNAMED -jar build/libs/backend-0.0.1-SNAPSHOT.jar > ../data/logs/backend.log 2>&1 &
     echo $! > ../pids/backend.pid
     cd ..
     echo "✅ Backend started (PID: $(cat pids/backend.pid))"